@@ -1,72 +1,124 @@
 package com.impossibl.postgres.jdbc;
 
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * Reads a large object as a stream. Regions of the object are read
+ * ahead, several regions (the connection's "blob.readAhead" setting) of
+ * "blob.regionSize" bytes per round trip, and queued until consumed.
+ */
 public class BlobInputStream extends InputStream {
 	
-	private static final int MAX_BUF_SIZE = 8 * 1024;
-	
 	LargeObject lo;
-	byte[] buf = {};
-	int pos = 0;
+	int regionSize;
+	int readAhead;
+	Deque<ChannelBuffer> regions;
+	ChannelBuffer buf = ChannelBuffers.EMPTY_BUFFER;
+	boolean eof;
 	
 	public BlobInputStream(LargeObject lo) {
 		this.lo = lo;
+		this.regionSize = max(lo.connection.blobRegionSize, 1);
+		this.readAhead = max(lo.connection.blobReadAhead, 1);
+		this.regions = new ArrayDeque<>(readAhead);
 	}
 
 	@Override
 	public int read() throws IOException {
 		
-		if(pos >= buf.length) {
+		if(!buf.readable()) {
 			readNextRegion();
 		}
 		
-    return (pos < buf.length) ? (buf[pos++] & 0xff) : -1;
+		return buf.readable() ? buf.readUnsignedByte() : -1;
 	}
-  
+
+	@Override
 	public int read(byte b[], int off, int len) throws IOException {
-    if (b == null) {
-        throw new NullPointerException();
-    } else if (off < 0 || len < 0 || len > b.length - off) {
-        throw new IndexOutOfBoundsException();
-    }
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		else if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
 
-    int left = len;
-    while(left > 0) {
+		int left = len;
+		while(left > 0) {
 
-	    if (pos >= buf.length) {
-	    	readNextRegion();
-	    	
-	    	if(len == left && buf.length == 0)
-	    		return -1;
-	    }
-	
-	    int avail = buf.length - pos;
-	    int amt = min(avail,  left);
-	    if (amt <= 0) {
-	        break;
-	    }
-	    
-	    System.arraycopy(buf, pos, b, off+(len-left), amt);
-	    pos += amt;
-	    left -= amt;
-    }
-    
-	  return len-left;
-  }
+			if(!buf.readable()) {
+				readNextRegion();
+
+				if(!buf.readable()) {
+					break;
+				}
+			}
+
+			int amt = min(buf.readableBytes(), left);
+
+			buf.readBytes(b, off + (len - left), amt);
+			left -= amt;
+		}
+
+		if(len > 0 && left == len) {
+			return -1;
+		}
+
+		return len - left;
+	}
+
+	@Override
+	public int available() throws IOException {
+		
+		int available = buf.readableBytes();
+		for(ChannelBuffer region : regions) {
+			available += region.readableBytes();
+		}
+		
+		return available;
+	}
 	
+	/**
+	 * Advances to the next queued region, reading the next set of regions
+	 * when the queue is empty
+	 * 
+	 * @throws IOException If reading fails
+	 */
 	public void readNextRegion() throws IOException {
-		try {
-			buf = lo.read(MAX_BUF_SIZE);
-			pos = 0;
-		}
-		catch(SQLException e) {
-			throw new IOException(e);
+		
+		if(regions.isEmpty() && !eof) {
+			
+			try {
+				
+				for(ChannelBuffer region : lo.readRegions(regionSize, readAhead)) {
+					
+					// A short region marks the end of the object
+					if(region.readableBytes() < regionSize) {
+						eof = true;
+					}
+					
+					if(region.readable()) {
+						regions.add(region);
+					}
+				}
+				
+			}
+			catch(SQLException e) {
+				throw new IOException(e);
+			}
+			
 		}
+		
+		buf = regions.isEmpty() ? ChannelBuffers.EMPTY_BUFFER : regions.poll();
 	}
 
 }
@@ -1,13 +1,26 @@
 package com.impossibl.postgres.jdbc;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.sql.SQLException;
 
+/**
+ * Writes a large object as a stream. With write-behind enabled (the
+ * connection's "blob.writeBehind" setting is greater than 0) data is
+ * encoded into queued write calls as it is written and up to that many
+ * calls, of at most "blob.regionSize" bytes each, are sent per round
+ * trip. Results of queued writes are checked when they are sent, so
+ * errors may be reported by a later write, flush or close.
+ */
 public class BlobOutputStream extends OutputStream {
-	
+
 	PGBlob owner;
 	LargeObject lo;
+	int regionSize;
+	int writeBehind;
 	byte[] buf;
 	int pos;
 
@@ -15,18 +28,20 @@ public class BlobOutputStream extends OutputStream {
 		super();
 		this.owner = owner;
 		this.lo = lo;
+		this.regionSize = max(lo.connection.blobRegionSize, 1);
+		this.writeBehind = max(lo.connection.blobWriteBehind, 0);
 		this.pos = 0;
-		this.buf = new byte[1024];
+		this.buf = new byte[min(regionSize, 8192)];
 	}
 
 
 	@Override
 	public void write(int b) throws IOException {
-		
+
 		if(pos >= buf.length) {
 			writeNextRegion();
 		}
-		
+
 		buf[pos++] = (byte)b;
 	}
 
@@ -39,27 +54,42 @@ public class BlobOutputStream extends OutputStream {
 
 	@Override
 	public void write(byte[] b, int off, int len) throws IOException {
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		else if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
 
 		if(pos > 0) {
 			writeNextRegion();
 		}
-		
-		try {
-			lo.write(b, off, len);
-		}
-		catch(SQLException e) {
-			throw new IOException(e);
+
+		while(len > 0) {
+
+			int count = min(len, regionSize);
+
+			writeRegion(b, off, count);
+
+			off += count;
+			len -= count;
 		}
-		
+
 	}
-	
+
 	@Override
 	public void flush() throws IOException {
 		if(pos > 0) {
 			writeNextRegion();
 		}
+		try {
+			lo.flushWrites();
+		}
+		catch(SQLException e) {
+			throw new IOException(e);
+		}
 	}
-	
+
 	@Override
 	public void close() throws IOException {
 		flush();
@@ -75,15 +105,34 @@ public class BlobOutputStream extends OutputStream {
 	}
 
 	private void writeNextRegion() throws IOException {
-		
+
+		writeRegion(buf, 0, pos);
+		pos = 0;
+
+	}
+
+	private void writeRegion(byte[] b, int off, int len) throws IOException {
+
 		try {
-			lo.write(buf, 0, pos);
-			pos = 0;
+
+			if(writeBehind == 0) {
+				lo.write(b, off, len);
+				return;
+			}
+
+			// Data is encoded when queued, so the array section (including
+			// our own buffer) can be reused immediately
+			lo.queueWrite(b, off, len);
+
+			if(lo.getQueuedWrites() >= writeBehind) {
+				lo.flushWrites();
+			}
+
 		}
 		catch(SQLException e) {
 			throw new IOException(e);
 		}
-		
+
 	}
-	
+
 }
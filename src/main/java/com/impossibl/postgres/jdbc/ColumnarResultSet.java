@@ -0,0 +1,39 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.impossibl.postgres.protocol.ColumnVector;
+
+
+
+/**
+ * Result set that provides direct access to column oriented result data.
+ * Available via {@link ResultSet#unwrap(Class)} when the connection is
+ * opened with the "resultset.columnar" setting enabled.
+ *
+ * Vectors only contain the rows of the currently fetched batch; when a
+ * fetch size is in effect they are replaced each time the next batch
+ * is retrieved.
+ */
+public interface ColumnarResultSet extends ResultSet {
+
+	/**
+	 * Determines if the current results are stored in column vectors
+	 *
+	 * @return True if {@link #getColumnVector(int)} is available
+	 * @throws SQLException If the result set is closed
+	 */
+	boolean isColumnar() throws SQLException;
+
+	/**
+	 * Retrieves the vector holding the values of a column
+	 *
+	 * @param columnIndex Column index (one based, as with other accessors)
+	 * @return Column vector of the current batch of rows
+	 * @throws SQLException If the result set is closed, the column index
+	 * 					is invalid or the results are not columnar
+	 */
+	ColumnVector getColumnVector(int columnIndex) throws SQLException;
+
+}
@@ -22,5 +22,6 @@ public class Exceptions {
 	public static final SQLException SERVER_VERSION_NOT_SUPPORTED = new SQLException("Server version not supported");
 	public static final SQLException UNWRAP_ERROR = new SQLException("Unwrap error");
 	public static final SQLException CURSOR_NOT_SCROLLABLE = new SQLException("Cursor not scrollable");
+	public static final SQLException RESULT_SET_NOT_COLUMNAR = new SQLException("Result set not columnar");
 
 }
@@ -0,0 +1,416 @@
+package com.impossibl.postgres.jdbc;
+
+import static com.impossibl.postgres.jdbc.SQLTextUtils.isKeyword;
+import static com.impossibl.postgres.jdbc.SQLTextUtils.nextSignificant;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.impossibl.postgres.jdbc.SQLTextTree.CommentPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.CompositeNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.EscapeNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.GrammarPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.IdentifierPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.LiteralPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.Node;
+import com.impossibl.postgres.jdbc.SQLTextTree.ParameterPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.ParenGroupNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.PieceNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.UnquotedIdentifierPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.WhitespacePiece;
+
+
+
+/**
+ * Rewrite of parameter only IN lists, e.g. "id IN (?, ?, ?)", into
+ * comparisons with a single array parameter, e.g. "(id = ANY ($1))".
+ * "NOT IN" lists are rewritten to "&lt;&gt; ALL ($1)".
+ *
+ * Only standalone predicates with a simple left operand (e.g. a column,
+ * a cast or a function call) are rewritten. IN binds tighter than the
+ * comparison operators, so a list used as the operand of another
+ * operator (e.g. "a IN (?) = true") is left untouched.
+ *
+ * The rewritten SQL text is identical for lists of any size so a single
+ * statement (and plan) serves them all. Each JDBC parameter is mapped
+ * to either a native parameter or an element of a native array
+ * parameter.
+ */
+class InListRewrite {
+
+	/**
+	 * Keywords that may precede a standalone predicate
+	 */
+	private static final Set<String> PREDICATE_START_KEYWORDS = new HashSet<>(Arrays.asList(
+			"WHERE", "AND", "OR", "NOT", "ON", "WHEN", "THEN", "ELSE", "HAVING", "SELECT"));
+
+	/**
+	 * Keywords that may follow a standalone predicate
+	 */
+	private static final Set<String> PREDICATE_END_KEYWORDS = new HashSet<>(Arrays.asList(
+			"AND", "OR", "THEN", "ELSE", "END", "WHEN", "AS", "FROM", "WHERE", "GROUP", "HAVING", "ORDER", "LIMIT",
+			"OFFSET", "UNION", "EXCEPT", "INTERSECT", "RETURNING", "FOR", "WINDOW"));
+
+	private String nativeSQL;
+	private int nativeParameterCount;
+	private int[] nativeIndexes;
+	private int[] elementIndexes;
+	private int[] listSizes;
+
+	private InListRewrite(String nativeSQL, int nativeParameterCount, int[] nativeIndexes, int[] elementIndexes, int[] listSizes) {
+		this.nativeSQL = nativeSQL;
+		this.nativeParameterCount = nativeParameterCount;
+		this.nativeIndexes = nativeIndexes;
+		this.elementIndexes = elementIndexes;
+		this.listSizes = listSizes;
+	}
+
+	/**
+	 * Analyzes translated SQL text for IN lists that can be rewritten
+	 *
+	 * @param sqlText Translated (i.e. escape processed) SQL text
+	 * @param parameterCount Number of parameters in the SQL text
+	 * @return Rewrite of the statement or null if it contains no
+	 * 					rewritable IN lists
+	 */
+	static InListRewrite analyze(SQLText sqlText, int parameterCount) {
+
+		if(sqlText.getStatementCount() != 1 || parameterCount == 0) {
+			return null;
+		}
+
+		Builder builder = new Builder(parameterCount);
+
+		if(!builder.build(sqlText.getFirstStatement()) || builder.lists == 0) {
+			return null;
+		}
+
+		// Every JDBC parameter must have been mapped exactly once
+		for(int nativeIndex : builder.nativeIndexes) {
+			if(nativeIndex == -1) {
+				return null;
+			}
+		}
+
+		return new InListRewrite(builder.sql.toString(), builder.nativeCount, builder.nativeIndexes, builder.elementIndexes,
+				Arrays.copyOf(builder.listSizes, builder.nativeCount));
+	}
+
+	String getNativeSQL() {
+		return nativeSQL;
+	}
+
+	int getNativeParameterCount() {
+		return nativeParameterCount;
+	}
+
+	int getParameterCount() {
+		return nativeIndexes.length;
+	}
+
+	/**
+	 * Native parameter a JDBC parameter is bound to
+	 *
+	 * @param parameterIdx JDBC parameter index (0 based)
+	 * @return Native parameter index (0 based)
+	 */
+	int getNativeIndex(int parameterIdx) {
+		return nativeIndexes[parameterIdx];
+	}
+
+	/**
+	 * Array element a JDBC parameter is bound to
+	 *
+	 * @param parameterIdx JDBC parameter index (0 based)
+	 * @return Element index or -1 if the parameter is bound directly
+	 */
+	int getElementIndex(int parameterIdx) {
+		return elementIndexes[parameterIdx];
+	}
+
+	/**
+	 * Number of elements in an array parameter
+	 *
+	 * @param nativeIdx Native parameter index (0 based)
+	 * @return Number of elements or 0 if the parameter is not an array
+	 */
+	int getListSize(int nativeIdx) {
+		return listSizes[nativeIdx];
+	}
+
+	private static class Builder {
+
+		StringBuilder sql = new StringBuilder();
+		int nativeCount;
+		int lists;
+		int[] nativeIndexes;
+		int[] elementIndexes;
+		int[] listSizes;
+
+		Builder(int parameterCount) {
+			nativeIndexes = new int[parameterCount];
+			elementIndexes = new int[parameterCount];
+			listSizes = new int[parameterCount];
+			Arrays.fill(nativeIndexes, -1);
+		}
+
+		boolean build(CompositeNode composite) {
+
+			// Position of each node in the SQL, allowing rewrites to
+			// parenthesize their left operand
+			int[] nodeStarts = new int[composite.getNodeCount()];
+
+			for(int c=0; c < composite.getNodeCount(); ++c) {
+
+				Node node = composite.get(c);
+
+				nodeStarts[c] = sql.length();
+
+				if(isKeyword(node, "NOT")) {
+
+					int in = nextSignificant(composite, c + 1);
+					int list = nextSignificant(composite, in + 1);
+
+					int operand = findOperandStart(composite, c);
+
+					if(isKeyword(composite, in, "IN") && isParameterList(composite, list) && operand != -1 && isPredicateEnd(composite, list + 1)) {
+
+						sql.insert(nodeStarts[operand], '(');
+						sql.append("<> ALL ");
+						if(!addList((ParenGroupNode) composite.get(list))) {
+							return false;
+						}
+						sql.append(')');
+
+						c = list;
+						continue;
+					}
+				}
+				else if(isKeyword(node, "IN")) {
+
+					int list = nextSignificant(composite, c + 1);
+
+					int operand = findOperandStart(composite, c);
+
+					if(isParameterList(composite, list) && operand != -1 && isPredicateEnd(composite, list + 1)) {
+
+						sql.insert(nodeStarts[operand], '(');
+						sql.append("= ANY ");
+						if(!addList((ParenGroupNode) composite.get(list))) {
+							return false;
+						}
+						sql.append(')');
+
+						c = list;
+						continue;
+					}
+				}
+
+				if(!build(node)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		boolean build(Node node) {
+
+			if(node instanceof ParameterPiece) {
+
+				int parameterIdx = getParameterIndex(node);
+				if(parameterIdx < 0 || parameterIdx >= nativeIndexes.length || nativeIndexes[parameterIdx] != -1) {
+					return false;
+				}
+
+				nativeIndexes[parameterIdx] = nativeCount;
+				elementIndexes[parameterIdx] = -1;
+
+				sql.append('$').append(++nativeCount);
+				return true;
+			}
+
+			if(node instanceof PieceNode) {
+				node.build(sql);
+				return true;
+			}
+
+			if(node instanceof EscapeNode) {
+				return false;
+			}
+
+			if(node instanceof ParenGroupNode) {
+
+				sql.append('(');
+				if(!build((CompositeNode) node)) {
+					return false;
+				}
+				sql.append(')');
+				return true;
+			}
+
+			return build((CompositeNode) node);
+		}
+
+		boolean addList(ParenGroupNode list) {
+
+			int nativeIdx = nativeCount++;
+			int elementIdx = 0;
+
+			for(int c=0; c < list.getNodeCount(); ++c) {
+
+				Node node = list.get(c);
+				if(!(node instanceof ParameterPiece)) {
+					continue;
+				}
+
+				int parameterIdx = getParameterIndex(node);
+				if(parameterIdx < 0 || parameterIdx >= nativeIndexes.length || nativeIndexes[parameterIdx] != -1) {
+					return false;
+				}
+
+				nativeIndexes[parameterIdx] = nativeIdx;
+				elementIndexes[parameterIdx] = elementIdx++;
+			}
+
+			listSizes[nativeIdx] = elementIdx;
+			lists++;
+
+			sql.append("($").append(nativeIdx + 1).append(')');
+			return true;
+		}
+
+	}
+
+	private static int getParameterIndex(Node node) {
+		return Integer.parseInt(((ParameterPiece) node).getText().substring(1)) - 1;
+	}
+
+	/**
+	 * Finds the start of the simple operand preceding an IN predicate; one
+	 * or more terms (identifiers, literals, parameters or groups) joined
+	 * by "." or "::", optionally in a function call
+	 *
+	 * @param composite Composite node containing the predicate
+	 * @param idx Index of the predicate's IN (or NOT) keyword
+	 * @return Index of the operand's first node or -1 if the predicate
+	 * 					is not standalone
+	 */
+	private static int findOperandStart(CompositeNode composite, int idx) {
+
+		int first = -1;
+		boolean expectTerm = true;
+
+		for(int c=idx - 1; c >= 0; --c) {
+
+			Node node = composite.get(c);
+
+			if(node instanceof WhitespacePiece || node instanceof CommentPiece) {
+				continue;
+			}
+
+			if(isPredicateStart(node)) {
+				return expectTerm ? -1 : first;
+			}
+
+			if(expectTerm) {
+
+				if(node instanceof ParenGroupNode) {
+
+					// Function call, e.g. "lower(name)"
+					int name = previousSignificant(composite, c - 1);
+					if(name != -1 && composite.get(name) instanceof UnquotedIdentifierPiece && !isPredicateStart(composite.get(name))) {
+						c = name;
+					}
+				}
+				else if(!(node instanceof IdentifierPiece || node instanceof LiteralPiece || node instanceof ParameterPiece)) {
+					return -1;
+				}
+
+				first = c;
+				expectTerm = false;
+			}
+			else if(isGrammar(node, ".") || isGrammar(node, "::")) {
+				expectTerm = true;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		return expectTerm ? -1 : first;
+	}
+
+	/**
+	 * Determines if the end of a predicate is followed by the end of its
+	 * expression (or a keyword that ends it)
+	 */
+	private static boolean isPredicateEnd(CompositeNode composite, int idx) {
+
+		idx = nextSignificant(composite, idx);
+		if(idx == composite.getNodeCount()) {
+			return true;
+		}
+
+		Node node = composite.get(idx);
+
+		return isGrammar(node, ",") || isGrammar(node, ";") ||
+				(node instanceof UnquotedIdentifierPiece && PREDICATE_END_KEYWORDS.contains(((UnquotedIdentifierPiece) node).getText().toUpperCase()));
+	}
+
+	private static boolean isPredicateStart(Node node) {
+		return isGrammar(node, ",") || isGrammar(node, ";") ||
+				(node instanceof UnquotedIdentifierPiece && PREDICATE_START_KEYWORDS.contains(((UnquotedIdentifierPiece) node).getText().toUpperCase()));
+	}
+
+	private static boolean isGrammar(Node node, String text) {
+		return node instanceof GrammarPiece && ((GrammarPiece) node).getText().equals(text);
+	}
+
+	private static int previousSignificant(CompositeNode composite, int idx) {
+
+		while(idx >= 0 && (composite.get(idx) instanceof WhitespacePiece || composite.get(idx) instanceof CommentPiece)) {
+			idx--;
+		}
+
+		return idx;
+	}
+
+	/**
+	 * Determines if a node is a group containing only (one or more)
+	 * parameters separated by commas
+	 */
+	private static boolean isParameterList(CompositeNode composite, int idx) {
+
+		if(idx >= composite.getNodeCount() || !(composite.get(idx) instanceof ParenGroupNode)) {
+			return false;
+		}
+
+		CompositeNode group = (CompositeNode) composite.get(idx);
+
+		boolean expectParameter = true;
+
+		for(int c=0; c < group.getNodeCount(); ++c) {
+
+			Node node = group.get(c);
+
+			if(node instanceof WhitespacePiece || node instanceof CommentPiece) {
+				continue;
+			}
+
+			if(expectParameter && node instanceof ParameterPiece) {
+				expectParameter = false;
+			}
+			else if(!expectParameter && node instanceof GrammarPiece && ((GrammarPiece) node).getText().equals(",")) {
+				expectParameter = true;
+			}
+			else {
+				return false;
+			}
+		}
+
+		return !expectParameter;
+	}
+
+}
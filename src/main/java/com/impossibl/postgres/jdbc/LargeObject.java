@@ -1,20 +1,40 @@
 package com.impossibl.postgres.jdbc;
 
+import static java.lang.Math.max;
+import static java.util.Arrays.asList;
+
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 
+import com.impossibl.postgres.protocol.FunctionCallPipelineCommand;
+import com.impossibl.postgres.system.Version;
+import com.impossibl.postgres.types.Type;
+
+/**
+ * Large object operations, executed as server function calls (via the
+ * Fastpath protocol) instead of SQL text.
+ */
 class LargeObject {
-	
+
 	protected static final int INV_READ 	= 0x00040000;
 	protected static final int INV_WRITE 	= 0x00020000;
-	
+
 	protected static final int SEEK_SET = 0;
 	protected static final int SEEK_CUR = 1;
 	protected static final int SEEK_END = 2;
-	
+
 	int oid;
 	int fd;
 	PGConnection connection;
-	
+	FunctionCallPipelineCommand regionReads;
+	FunctionCallPipelineCommand regionWrites;
+	long queuedWriteLength;
+
 	static LargeObject open(PGConnection connection, int oid) throws SQLException {
 		int fd = open(connection, oid, INV_READ|INV_WRITE);
 		if(fd == -1) {
@@ -22,7 +42,7 @@ class LargeObject {
 		}
 		return new LargeObject(connection, oid, fd);
 	}
-	
+
 	LargeObject(PGConnection connection, int oid, int fd) {
 		super();
 		this.oid = oid;
@@ -35,47 +55,193 @@ class LargeObject {
 	}
 
 	static int creat(PGConnection conn, int mode) throws SQLException {
-		return conn.executeForResult("select lo_creat($1)", true, Integer.class, mode);
+		Type int4 = int4(conn);
+		return conn.executeFunction("lo_creat", true, Integer.class, int4, asList(int4), mode);
 	}
-	
+
 	static int open(PGConnection conn, int oid, int access) throws SQLException {
-		return conn.executeForResult("select lo_open($1,$2)", true, Integer.class, oid, access);
+		Type int4 = int4(conn);
+		return conn.executeFunction("lo_open", true, Integer.class, int4, asList(oid(conn), int4), oid, access);
 	}
-	
+
 	static int unlink(PGConnection conn, int oid) throws SQLException {
-		return conn.executeForResult("select lo_unlink($1)", true, Integer.class, oid);
+		return conn.executeFunction("lo_unlink", true, Integer.class, int4(conn), asList(oid(conn)), oid);
 	}
 
 	int close() throws SQLException {
-		return connection.executeForResult("select lo_close($1)", true, Integer.class, fd);
+		Type int4 = int4(connection);
+		return connection.executeFunction("lo_close", true, Integer.class, int4, asList(int4), fd);
 	}
-	
-	int lseek(long offset, int whence) throws SQLException {
-		return connection.executeForResult("select lo_lseek($1,$2,$3)", true, Integer.class, fd, (int)offset, whence);		
+
+	long lseek(long offset, int whence) throws SQLException {
+		Type int4 = int4(connection);
+		if(has64BitOperations(connection)) {
+			Type int8 = int8(connection);
+			return connection.executeFunction("lo_lseek64", true, Long.class, int8, asList(int4, int8, int4), fd, offset, whence);
+		}
+		return connection.executeFunction("lo_lseek", true, Integer.class, int4, asList(int4, int4, int4), fd, checkInt(offset), whence);
 	}
-	
+
 	long tell() throws SQLException {
-		return connection.executeForResult("select lo_tell($1)", true, Integer.class, fd);		
+		Type int4 = int4(connection);
+		if(has64BitOperations(connection)) {
+			return connection.executeFunction("lo_tell64", true, Long.class, int8(connection), asList(int4), fd);
+		}
+		return connection.executeFunction("lo_tell", true, Integer.class, int4, asList(int4), fd);
 	}
 
 	byte[] read(long len) throws SQLException {
-		return connection.executeForResult("select loread($1,$2)", true, byte[].class, fd, (int)len);		
+		Type int4 = int4(connection);
+		return connection.executeFunction("loread", true, byte[].class, bytea(connection), asList(int4, int4), fd, (int)len);
+	}
+
+	/**
+	 * Reads a number of consecutive regions, starting at the current
+	 * position, in a single round trip. Each region is returned as the
+	 * received data, without copying or decoding.
+	 * 
+	 * @param regionSize Size of each region
+	 * @param count Number of regions to read
+	 * @return Data of each region, in order; regions reaching the end of
+	 * 					the object are shorter (or empty)
+	 * @throws SQLException If reading fails
+	 */
+	List<ChannelBuffer> readRegions(int regionSize, int count) throws SQLException {
+
+		if(regionReads == null) {
+			Type int4 = int4(connection);
+			regionReads = connection.getProtocol().createFunctionCallPipeline("loread", asList(int4, int4), null);
+		}
+
+		try {
+			for(int c=0; c < count; ++c) {
+				regionReads.add(asList((Object)fd, regionSize));
+			}
+		}
+		catch(IOException e) {
+			throw new SQLException(e);
+		}
+
+		connection.execute(regionReads, true);
+
+		List<ChannelBuffer> regions = new ArrayList<>(count);
+
+		for(Object result : regionReads.getResults()) {
+
+			ChannelBuffer region = (ChannelBuffer) result;
+
+			regions.add(region.readSlice(max(region.readInt(), 0)));
+		}
+
+		return regions;
 	}
 
 	int write(byte[] data, int off, int len) throws SQLException {
+		Type int4 = int4(connection);
+		// Array sections are encoded directly, without copying them first
+		return connection.executeFunction("lowrite", true, Integer.class, int4, asList(int4, bytea(connection)), fd, ChannelBuffers.wrappedBuffer(data, off, len));
+	}
+
+	/**
+	 * Queues a write of an array section at the current position. The
+	 * section is encoded directly into the outgoing message and may be
+	 * reused as soon as this method returns. Queued writes are sent, and
+	 * their results checked, by {@link #flushWrites()}.
+	 * 
+	 * @param data Array containing the data to write
+	 * @param off Offset of the data in the array
+	 * @param len Length of the data
+	 * @throws SQLException If the write cannot be encoded
+	 */
+	void queueWrite(byte[] data, int off, int len) throws SQLException {
+
+		if(regionWrites == null) {
+			Type int4 = int4(connection);
+			regionWrites = connection.getProtocol().createFunctionCallPipeline("lowrite", asList(int4, bytea(connection)), int4);
+		}
+
+		try {
+			regionWrites.add(asList((Object)fd, ChannelBuffers.wrappedBuffer(data, off, len)));
+		}
+		catch(IOException e) {
+			throw new SQLException(e);
+		}
+
+		queuedWriteLength += len;
+	}
+
+	/**
+	 * @return Number of writes queued and not yet flushed
+	 */
+	int getQueuedWrites() {
+		return regionWrites != null ? regionWrites.getSize() : 0;
+	}
 
-		//TODO optimize away by supporting passing of array sections as parameters
-		if(off != 0 || len != data.length) {
-			byte[] sub = new byte[len];
-			System.arraycopy(data, off, sub, 0, len);
-			data = sub;
+	/**
+	 * Sends all queued writes in a single round trip and checks that every
+	 * byte was written
+	 * 
+	 * @throws SQLException If any of the writes failed
+	 */
+	void flushWrites() throws SQLException {
+
+		if(getQueuedWrites() == 0) {
+			return;
+		}
+
+		long expected = queuedWriteLength;
+		queuedWriteLength = 0;
+
+		connection.execute(regionWrites, true);
+
+		long written = 0;
+		for(Object result : regionWrites.getResults()) {
+			written += (Integer) result;
+		}
+
+		if(written != expected) {
+			throw new SQLException("Large object write incomplete: " + written + " of " + expected + " bytes written");
 		}
-		
-		return connection.executeForResult("select lowrite($1,$2)", true, Integer.class, fd, data);		
 	}
-	
+
 	int truncate(long len) throws SQLException {
-		return connection.executeForResult("select lo_truncate($1,$2)", true, Integer.class, fd, (int)len);		
+		Type int4 = int4(connection);
+		if(has64BitOperations(connection)) {
+			return connection.executeFunction("lo_truncate64", true, Integer.class, int4, asList(int4, int8(connection)), fd, len);
+		}
+		return connection.executeFunction("lo_truncate", true, Integer.class, int4, asList(int4, int4), fd, checkInt(len));
+	}
+
+	/**
+	 * Determines if the server supports 64-bit offsets & lengths (i.e.
+	 * lo_lseek64, lo_tell64 & lo_truncate64), available since 9.3
+	 */
+	private static boolean has64BitOperations(PGConnection conn) {
+		Version version = conn.getServerVersion();
+		return version.getMajor() > 9 || (version.getMajor() == 9 && version.getMinor() != null && version.getMinor() >= 3);
+	}
+
+	private static int checkInt(long value) throws SQLException {
+		if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new SQLException("Large object offsets beyond 2GB require server version 9.3 or later");
+		}
+		return (int) value;
+	}
+
+	private static Type int4(PGConnection conn) {
+		return conn.getRegistry().loadType("int4");
 	}
-	
+
+	private static Type int8(PGConnection conn) {
+		return conn.getRegistry().loadType("int8");
+	}
+
+	private static Type oid(PGConnection conn) {
+		return conn.getRegistry().loadType("oid");
+	}
+
+	private static Type bytea(PGConnection conn) {
+		return conn.getRegistry().loadType("bytea");
+	}
+
 }
@@ -0,0 +1,230 @@
+package com.impossibl.postgres.jdbc;
+
+import static com.impossibl.postgres.jdbc.SQLTextUtils.isKeyword;
+import static com.impossibl.postgres.jdbc.SQLTextUtils.nextSignificant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.impossibl.postgres.jdbc.SQLTextTree.CompositeNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.EscapeNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.GrammarPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.Node;
+import com.impossibl.postgres.jdbc.SQLTextTree.ParameterPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.ParenGroupNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.PieceNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.StatementNode;
+
+
+
+/**
+ * Template for rewriting a single row "INSERT ... VALUES (...)" statement
+ * into one inserting many rows at once, i.e.
+ * "INSERT ... VALUES ($1, $2), ($3, $4), ...".
+ *
+ * Only statements whose parameters are all within the VALUES row can be
+ * rewritten; clauses following the row (e.g. RETURNING) are retained.
+ */
+class MultiRowInsert {
+
+	/**
+	 * Maximum number of parameters in a single statement, limited by the
+	 * 16-bit parameter count of the Bind message
+	 */
+	static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+	private String prefix;
+	private String[] rowFragments;
+	private int[] rowParameters;
+	private String suffix;
+	private int parameterCount;
+
+	private MultiRowInsert(String prefix, String[] rowFragments, int[] rowParameters, String suffix, int parameterCount) {
+		this.prefix = prefix;
+		this.rowFragments = rowFragments;
+		this.rowParameters = rowParameters;
+		this.suffix = suffix;
+		this.parameterCount = parameterCount;
+	}
+
+	/**
+	 * Analyzes translated SQL text to determine if it can be rewritten
+	 *
+	 * @param sqlText Translated (i.e. escape processed) SQL text
+	 * @param parameterCount Number of parameters in the SQL text
+	 * @return Template for rewriting the statement or null if it cannot be
+	 * 					rewritten
+	 */
+	static MultiRowInsert analyze(SQLText sqlText, int parameterCount) {
+
+		if(sqlText.getStatementCount() != 1 || parameterCount == 0) {
+			return null;
+		}
+
+		StatementNode statement = sqlText.getFirstStatement();
+
+		int first = nextSignificant(statement, 0);
+		if(!isKeyword(statement, first, "INSERT")) {
+			return null;
+		}
+
+		// Find the top level VALUES keyword and its row
+		int values = first + 1;
+		while(values < statement.getNodeCount() && !isKeyword(statement, values, "VALUES")) {
+			values++;
+		}
+
+		int row = nextSignificant(statement, values + 1);
+		if(row >= statement.getNodeCount() || !(statement.get(row) instanceof ParenGroupNode)) {
+			return null;
+		}
+
+		// Statement must insert a single row
+		int next = nextSignificant(statement, row + 1);
+		if(next < statement.getNodeCount() && isGrammar(statement.get(next), ",")) {
+			return null;
+		}
+
+		List<String> fragments = new ArrayList<>();
+		List<Integer> parameters = new ArrayList<>();
+		StringBuilder fragment = new StringBuilder();
+
+		if(!collectRow(statement.get(row), fragment, fragments, parameters, parameterCount) || parameters.size() != parameterCount) {
+			return null;
+		}
+
+		fragments.add(fragment.toString());
+
+		StringBuilder prefix = new StringBuilder();
+		StringBuilder suffix = new StringBuilder();
+
+		for(int c=0; c < statement.getNodeCount(); ++c) {
+			if(c == row) {
+				continue;
+			}
+			Node node = statement.get(c);
+			if(node instanceof EscapeNode || !(node instanceof ParenGroupNode || node instanceof PieceNode) || containsParameter(node)) {
+				return null;
+			}
+			node.build(c < row ? prefix : suffix);
+		}
+
+		int[] rowParameters = new int[parameters.size()];
+		for(int c=0; c < rowParameters.length; ++c) {
+			rowParameters[c] = parameters.get(c);
+		}
+
+		return new MultiRowInsert(prefix.toString(), fragments.toArray(new String[fragments.size()]), rowParameters, suffix.toString(), parameterCount);
+	}
+
+	/**
+	 * Maximum number of rows a single rewritten statement can insert
+	 *
+	 * @return Maximum number of rows
+	 */
+	int getMaxRows() {
+		return MAX_PARAMETERS / parameterCount;
+	}
+
+	/**
+	 * Builds the SQL text for inserting a number of rows. Parameters of
+	 * each row follow the previous row's parameters, in the same order as
+	 * in the original statement.
+	 *
+	 * @param rows Number of rows to insert
+	 * @return Native SQL text
+	 */
+	String build(int rows) {
+
+		StringBuilder sb = new StringBuilder(prefix);
+
+		for(int r=0; r < rows; ++r) {
+
+			if(r > 0) {
+				sb.append(", ");
+			}
+
+			int base = r * parameterCount;
+
+			for(int c=0; c < rowParameters.length; ++c) {
+				sb.append(rowFragments[c]).append('$').append(base + rowParameters[c]);
+			}
+
+			sb.append(rowFragments[rowParameters.length]);
+		}
+
+		sb.append(suffix);
+
+		return sb.toString();
+	}
+
+	/**
+	 * Collects the text of the VALUES row, split at each parameter
+	 *
+	 * @return True if the row can be rewritten
+	 */
+	private static boolean collectRow(Node node, StringBuilder fragment, List<String> fragments, List<Integer> parameters, int parameterCount) {
+
+		if(node instanceof ParameterPiece) {
+
+			int parameter = Integer.parseInt(((ParameterPiece) node).getText().substring(1));
+			if(parameter < 1 || parameter > parameterCount) {
+				return false;
+			}
+
+			fragments.add(fragment.toString());
+			fragment.setLength(0);
+
+			parameters.add(parameter);
+			return true;
+		}
+
+		if(node instanceof PieceNode) {
+			node.build(fragment);
+			return true;
+		}
+
+		if(node instanceof ParenGroupNode) {
+
+			CompositeNode group = (CompositeNode) node;
+
+			fragment.append('(');
+
+			for(int c=0; c < group.getNodeCount(); ++c) {
+				if(!collectRow(group.get(c), fragment, fragments, parameters, parameterCount)) {
+					return false;
+				}
+			}
+
+			fragment.append(')');
+			return true;
+		}
+
+		return false;
+	}
+
+	private static boolean containsParameter(Node node) {
+
+		if(node instanceof ParameterPiece) {
+			return true;
+		}
+
+		if(node instanceof CompositeNode) {
+
+			CompositeNode composite = (CompositeNode) node;
+
+			for(int c=0; c < composite.getNodeCount(); ++c) {
+				if(containsParameter(composite.get(c))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isGrammar(Node node, String text) {
+		return node instanceof GrammarPiece && ((GrammarPiece) node).getText().equals(text);
+	}
+
+}
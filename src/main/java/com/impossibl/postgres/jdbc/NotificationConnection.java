@@ -0,0 +1,62 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+
+import com.impossibl.postgres.system.NotificationSubscriber;
+
+
+
+/**
+ * Connection that delivers asynchronous notifications (i.e. sent with
+ * NOTIFY) to subscribers of their channel. Available via
+ * {@link Connection#unwrap(Class)}.
+ *
+ * Each subscription has its own bounded queue; received notifications
+ * are queued as they are read from the connection and delivered in
+ * batches on the subscription's executor. The queue capacity, maximum
+ * batch size and the handling of notifications that do not fit are
+ * controlled by the "notification.queueCapacity",
+ * "notification.batchSize" and "notification.overflowPolicy"
+ * ("dropNewest" or "dropOldest") settings.
+ *
+ * The connection issues LISTEN for the first subscription to a channel
+ * and UNLISTEN when the last one is closed. As with any LISTEN, when
+ * issued inside a transaction it takes effect once the transaction is
+ * committed.
+ *
+ * When the "notification.shared" setting is enabled subscriptions are
+ * instead made via a single listening connection, managed by the driver,
+ * shared by all connections to the same database and user. Such
+ * subscriptions are not tied to the connection used to make them, which
+ * can be returned to a pool (or closed), and survive the shared
+ * connection being lost and reopened.
+ */
+public interface NotificationConnection extends Connection {
+
+	/**
+	 * Subscribes to a channel, delivering on the connection's default
+	 * notification thread.
+	 *
+	 * @param channelName Name of the channel; matched exactly (i.e. case
+	 * 					sensitive)
+	 * @param subscriber Receiver of the channel's notifications
+	 * @return Subscription, closed to stop delivery
+	 * @throws SQLException If the connection is closed or listening fails
+	 */
+	NotificationSubscription subscribe(String channelName, NotificationSubscriber subscriber) throws SQLException;
+
+	/**
+	 * Subscribes to a channel, delivering on the given executor.
+	 *
+	 * @param channelName Name of the channel; matched exactly (i.e. case
+	 * 					sensitive)
+	 * @param subscriber Receiver of the channel's notifications
+	 * @param executor Executor used to deliver notifications
+	 * @return Subscription, closed to stop delivery
+	 * @throws SQLException If the connection is closed or listening fails
+	 */
+	NotificationSubscription subscribe(String channelName, NotificationSubscriber subscriber, Executor executor) throws SQLException;
+
+}
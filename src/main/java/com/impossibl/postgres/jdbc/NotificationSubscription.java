@@ -0,0 +1,30 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.SQLException;
+
+
+
+/**
+ * Subscription to the notifications of a channel
+ *
+ * @see NotificationConnection
+ */
+public interface NotificationSubscription extends AutoCloseable {
+
+	String getChannelName();
+
+	/**
+	 * @return Number of notifications discarded because the subscription's
+	 * 					queue was full
+	 */
+	long getDroppedCount();
+
+	/**
+	 * Stops delivery; notifications still queued are discarded
+	 *
+	 * @throws SQLException If unlistening from the channel fails
+	 */
+	@Override
+	void close() throws SQLException;
+
+}
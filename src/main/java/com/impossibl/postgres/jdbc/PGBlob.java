@@ -2,7 +2,9 @@ package com.impossibl.postgres.jdbc;
 
 import static com.impossibl.postgres.jdbc.Exceptions.CLOSED_BLOB;
 import static com.impossibl.postgres.jdbc.Exceptions.ILLEGAL_ARGUMENT;
+import static java.lang.Math.max;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.Blob;
@@ -14,38 +16,7 @@ import com.google.common.io.ByteStreams;
 
 public class PGBlob implements Blob {
 	
-  private class LOByteIterator
-  {
-      private static final int MAX_BUFFER_SIZE = 8096;
-      private byte buffer[] = {};
-      private int idx = 0;
-
-      LOByteIterator(long start) throws SQLException {
-          lo.lseek(start, LargeObject.SEEK_SET);
-      }
-
-      boolean hasNext() throws SQLException
-      {
-          boolean result = false;
-          if(idx < buffer.length) {
-              result = true;
-          }
-          else {
-              buffer = lo.read(MAX_BUFFER_SIZE);
-              idx = 0;
-              result = (buffer.length > 0);
-          }
-          return result;
-      }
-
-      private byte next()
-      {
-          return buffer[idx++];
-      }
-  }	
-
-
-  LargeObject lo;
+	LargeObject lo;
 	List<LargeObject> streamLos;
 
 	PGBlob(PGConnection connection, int oid) throws SQLException {
@@ -115,36 +86,63 @@ public class PGBlob implements Blob {
 		checkClosed();
 		checkPosition(start);
 
-		LOByteIterator iter = new LOByteIterator(start-1);
-		long curPos=start, matchStartPos=0;
-		int patternIdx=0;
-		
-		while(iter.hasNext()) {
-			
-			byte b = iter.next();
-			
-			if(b == pattern[patternIdx]) {
-				
-				if(patternIdx == 0) {
-					matchStartPos = curPos;
-				}
-				
-				patternIdx++;
-				
-				if(patternIdx == pattern.length) {
-					return matchStartPos;
+		if(pattern.length == 0) {
+			return start;
+		}
+
+		lo.lseek(start-1, LargeObject.SEEK_SET);
+
+		BlobInputStream in = new BlobInputStream(lo);
+
+		// Scan a window of regions, retaining enough of the previous window's
+		// tail to find matches that span two windows
+		byte[] window = new byte[max(lo.connection.blobRegionSize, pattern.length) + pattern.length - 1];
+		long windowPos = start;
+		int kept = 0;
+
+		try {
+
+			int count;
+			while((count = in.read(window, kept, window.length - kept)) > 0) {
+
+				int end = kept + count;
+
+				int idx = indexOf(window, end, pattern);
+				if(idx != -1) {
+					return windowPos + idx;
 				}
+
+				int next = max(end - (pattern.length - 1), 0);
+				System.arraycopy(window, next, window, 0, end - next);
+				windowPos += next;
+				kept = end - next;
 			}
-			else {
-				patternIdx = 0;
+
+		}
+		catch(IOException e) {
+			throw new SQLException(e);
+		}
+
+		return -1;
+	}
+
+	private static int indexOf(byte[] data, int end, byte[] pattern) {
+
+		scan:
+		for(int c=0, last=end - pattern.length; c <= last; ++c) {
+
+			for(int p=0; p < pattern.length; ++p) {
+				if(data[c + p] != pattern[p]) {
+					continue scan;
+				}
 			}
-			
-			curPos++;
+
+			return c;
 		}
 
 		return -1;
 	}
-	
+
 	@Override
 	public long position(Blob pattern, long start) throws SQLException {
 		checkClosed();
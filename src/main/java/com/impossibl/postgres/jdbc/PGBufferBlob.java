@@ -0,0 +1,132 @@
+package com.impossibl.postgres.jdbc;
+
+import static com.impossibl.postgres.jdbc.Exceptions.CLOSED_BLOB;
+import static com.impossibl.postgres.jdbc.Exceptions.ILLEGAL_ARGUMENT;
+import static com.impossibl.postgres.jdbc.Exceptions.NOT_SUPPORTED;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferInputStream;
+
+/**
+ * Read-only blob over a received binary (i.e. bytea) value. Data is read
+ * directly from the value's buffer, without copying it first.
+ */
+public class PGBufferBlob implements Blob {
+
+	ChannelBuffer data;
+
+	PGBufferBlob(ChannelBuffer data) {
+		this.data = data;
+	}
+
+	private void checkClosed() throws SQLException {
+		if(data == null) {
+			throw CLOSED_BLOB;
+		}
+	}
+
+	private void checkPosition(long pos) throws SQLException {
+		if(pos < 1 || pos > data.readableBytes() + 1) {
+			throw ILLEGAL_ARGUMENT;
+		}
+	}
+
+	@Override
+	public long length() throws SQLException {
+		checkClosed();
+
+		return data.readableBytes();
+	}
+
+	@Override
+	public byte[] getBytes(long pos, int length) throws SQLException {
+		checkClosed();
+		checkPosition(pos);
+
+		int start = data.readerIndex() + (int) (pos - 1);
+
+		byte[] bytes = new byte[max(min(length, data.writerIndex() - start), 0)];
+		data.getBytes(start, bytes);
+		return bytes;
+	}
+
+	@Override
+	public InputStream getBinaryStream() throws SQLException {
+		checkClosed();
+
+		return new ChannelBufferInputStream(data.duplicate());
+	}
+
+	@Override
+	public InputStream getBinaryStream(long pos, long length) throws SQLException {
+		checkClosed();
+		checkPosition(pos);
+
+		int start = (int) (pos - 1);
+		if(length < 0 || start + length > data.readableBytes()) {
+			throw ILLEGAL_ARGUMENT;
+		}
+
+		return new ChannelBufferInputStream(data.slice(data.readerIndex() + start, (int) length));
+	}
+
+	@Override
+	public long position(byte[] pattern, long start) throws SQLException {
+		checkClosed();
+		checkPosition(start);
+
+		scan:
+		for(int c=data.readerIndex() + (int) (start - 1), last=data.writerIndex() - pattern.length; c <= last; ++c) {
+
+			for(int p=0; p < pattern.length; ++p) {
+				if(data.getByte(c + p) != pattern[p]) {
+					continue scan;
+				}
+			}
+
+			return c - data.readerIndex() + 1;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public long position(Blob pattern, long start) throws SQLException {
+		checkClosed();
+
+		return position(pattern.getBytes(1, (int)pattern.length()), start);
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes) throws SQLException {
+		throw NOT_SUPPORTED;
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+		throw NOT_SUPPORTED;
+	}
+
+	@Override
+	public OutputStream setBinaryStream(long pos) throws SQLException {
+		throw NOT_SUPPORTED;
+	}
+
+	@Override
+	public void truncate(long len) throws SQLException {
+		throw NOT_SUPPORTED;
+	}
+
+	@Override
+	public void free() throws SQLException {
+		data = null;
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.impossibl.postgres.jdbc;
 
+import static com.impossibl.postgres.jdbc.ErrorUtils.chainWarnings;
 import static com.impossibl.postgres.jdbc.ErrorUtils.makeSQLException;
 import static com.impossibl.postgres.jdbc.ErrorUtils.makeSQLWarningChain;
 import static com.impossibl.postgres.jdbc.Exceptions.INVALID_COMMAND_FOR_GENERATED_KEYS;
@@ -19,15 +20,43 @@ import static com.impossibl.postgres.jdbc.SQLTextUtils.getSetSavepointText;
 import static com.impossibl.postgres.jdbc.SQLTextUtils.getSetSessionIsolationLevelText;
 import static com.impossibl.postgres.jdbc.SQLTextUtils.getSetSessionReadabilityText;
 import static com.impossibl.postgres.jdbc.SQLTextUtils.isTrue;
+import static com.impossibl.postgres.jdbc.SQLTypeUtils.coerce;
+import static com.impossibl.postgres.jdbc.SQLTypeUtils.mapSetType;
 import static com.impossibl.postgres.protocol.TransactionStatus.Idle;
+import static com.impossibl.postgres.system.Settings.BATCH_FLUSH_SIZE;
+import static com.impossibl.postgres.system.Settings.BATCH_FLUSH_SIZE_DEFAULT;
+import static com.impossibl.postgres.system.Settings.BATCH_PIPELINED;
+import static com.impossibl.postgres.system.Settings.BATCH_REWRITE_INSERTS;
+import static com.impossibl.postgres.system.Settings.BLOB_READ_AHEAD;
+import static com.impossibl.postgres.system.Settings.BLOB_READ_AHEAD_DEFAULT;
+import static com.impossibl.postgres.system.Settings.BLOB_REGION_SIZE;
+import static com.impossibl.postgres.system.Settings.BLOB_REGION_SIZE_DEFAULT;
+import static com.impossibl.postgres.system.Settings.BLOB_WRITE_BEHIND;
+import static com.impossibl.postgres.system.Settings.BLOB_WRITE_BEHIND_DEFAULT;
+import static com.impossibl.postgres.system.Settings.CONNECTION_KEEPALIVE_INTERVAL;
+import static com.impossibl.postgres.system.Settings.FIELD_BINARY_STREAM_THRESHOLD;
 import static com.impossibl.postgres.system.Settings.CONNECTION_READONLY;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_BATCH_SIZE;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_BATCH_SIZE_DEFAULT;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_OVERFLOW_POLICY;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_OVERFLOW_POLICY_DEFAULT;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_QUEUE_CAPACITY;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_QUEUE_CAPACITY_DEFAULT;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_SHARED;
+import static com.impossibl.postgres.system.Settings.RESULTSET_COLUMNAR;
+import static com.impossibl.postgres.system.Settings.STATEMENT_PREPARE_THRESHOLD;
+import static com.impossibl.postgres.system.Settings.STATEMENT_PREPARE_THRESHOLD_DEFAULT;
+import static com.impossibl.postgres.system.Settings.STATEMENT_PARAMETER_STREAM_THRESHOLD;
+import static com.impossibl.postgres.system.Settings.STATEMENT_REWRITE_IN_LISTS;
 import static java.lang.Boolean.parseBoolean;
+import static java.lang.Math.max;
 import static java.sql.ResultSet.CLOSE_CURSORS_AT_COMMIT;
 import static java.sql.ResultSet.CONCUR_READ_ONLY;
 import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
@@ -47,28 +76,33 @@ import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Struct;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TimeZone;
 import java.util.concurrent.Executor;
 
-import com.impossibl.postgres.jdbc.SQLTextTree.Node;
-import com.impossibl.postgres.jdbc.SQLTextTree.ParameterPiece;
-import com.impossibl.postgres.jdbc.SQLTextTree.Processor;
+import com.impossibl.postgres.protocol.BindExecCommand;
 import com.impossibl.postgres.protocol.Command;
+import com.impossibl.postgres.protocol.FunctionCallCommand;
+import com.impossibl.postgres.protocol.PingCommand;
+import com.impossibl.postgres.protocol.PrepareCommand;
+import com.impossibl.postgres.protocol.QueryCommand;
 import com.impossibl.postgres.system.BasicContext;
 import com.impossibl.postgres.system.NoticeException;
+import com.impossibl.postgres.system.NotificationDispatcher.OverflowPolicy;
+import com.impossibl.postgres.system.NotificationDispatcher.Subscription;
+import com.impossibl.postgres.system.NotificationSubscriber;
 import com.impossibl.postgres.types.ArrayType;
 import com.impossibl.postgres.types.CompositeType;
 import com.impossibl.postgres.types.Type;
 
 
 
-class PGConnection extends BasicContext implements Connection {
+class PGConnection extends BasicContext implements TypedQueryConnection, NotificationConnection {
 
 	
 	
@@ -78,6 +112,26 @@ class PGConnection extends BasicContext implements Connection {
 	private int holdability;
 	boolean autoCommit = true;
 	int networkTimeout;
+	boolean columnarResults;
+	int prepareThreshold;
+	long keepaliveInterval;
+	boolean pipelinedBatches;
+	int batchFlushSize;
+	boolean rewriteBatchedInserts;
+	boolean rewriteInLists;
+	long parameterStreamThreshold;
+	int binaryStreamThreshold;
+	int blobRegionSize;
+	int blobReadAhead;
+	int blobWriteBehind;
+	int notificationQueueCapacity;
+	int notificationBatchSize;
+	OverflowPolicy notificationOverflowPolicy;
+	boolean sharedNotifications;
+	StatementDescriptionCache statementDescriptions = new StatementDescriptionCache();
+	Boolean readOnly;
+	Integer transactionIsolation;
+	boolean sessionStateChangedInTransaction;
 	SQLWarning warningChain;
 	List<WeakReference<PGStatement>> activeStatements;
 
@@ -98,6 +152,96 @@ class PGConnection extends BasicContext implements Connection {
 
 	void applySettings(Properties settings) throws IOException {
 		
+		columnarResults = parseBoolean(settings.getProperty(RESULTSET_COLUMNAR, "false"));
+		
+		try {
+			prepareThreshold = Integer.parseInt(settings.getProperty(STATEMENT_PREPARE_THRESHOLD, Integer.toString(STATEMENT_PREPARE_THRESHOLD_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			prepareThreshold = STATEMENT_PREPARE_THRESHOLD_DEFAULT;
+		}
+		
+		pipelinedBatches = parseBoolean(settings.getProperty(BATCH_PIPELINED, "false"));
+		
+		try {
+			batchFlushSize = Integer.parseInt(settings.getProperty(BATCH_FLUSH_SIZE, Integer.toString(BATCH_FLUSH_SIZE_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			batchFlushSize = BATCH_FLUSH_SIZE_DEFAULT;
+		}
+		
+		rewriteBatchedInserts = parseBoolean(settings.getProperty(BATCH_REWRITE_INSERTS, "false"));
+		
+		rewriteInLists = parseBoolean(settings.getProperty(STATEMENT_REWRITE_IN_LISTS, "false"));
+		
+		try {
+			parameterStreamThreshold = Long.parseLong(settings.getProperty(STATEMENT_PARAMETER_STREAM_THRESHOLD, "0"));
+		}
+		catch(NumberFormatException e) {
+			parameterStreamThreshold = 0;
+		}
+		
+		try {
+			blobRegionSize = Integer.parseInt(settings.getProperty(BLOB_REGION_SIZE, Integer.toString(BLOB_REGION_SIZE_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			blobRegionSize = BLOB_REGION_SIZE_DEFAULT;
+		}
+		
+		try {
+			blobReadAhead = Integer.parseInt(settings.getProperty(BLOB_READ_AHEAD, Integer.toString(BLOB_READ_AHEAD_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			blobReadAhead = BLOB_READ_AHEAD_DEFAULT;
+		}
+		
+		try {
+			blobWriteBehind = Integer.parseInt(settings.getProperty(BLOB_WRITE_BEHIND, Integer.toString(BLOB_WRITE_BEHIND_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			blobWriteBehind = BLOB_WRITE_BEHIND_DEFAULT;
+		}
+		
+		try {
+			notificationQueueCapacity = Integer.parseInt(settings.getProperty(NOTIFICATION_QUEUE_CAPACITY, Integer.toString(NOTIFICATION_QUEUE_CAPACITY_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			notificationQueueCapacity = NOTIFICATION_QUEUE_CAPACITY_DEFAULT;
+		}
+		
+		try {
+			notificationBatchSize = Integer.parseInt(settings.getProperty(NOTIFICATION_BATCH_SIZE, Integer.toString(NOTIFICATION_BATCH_SIZE_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			notificationBatchSize = NOTIFICATION_BATCH_SIZE_DEFAULT;
+		}
+		
+		notificationOverflowPolicy = OverflowPolicy.DropNewest;
+		String overflowPolicy = settings.getProperty(NOTIFICATION_OVERFLOW_POLICY, NOTIFICATION_OVERFLOW_POLICY_DEFAULT);
+		for(OverflowPolicy policy : OverflowPolicy.values()) {
+			if(policy.name().equalsIgnoreCase(overflowPolicy)) {
+				notificationOverflowPolicy = policy;
+			}
+		}
+		
+		sharedNotifications = parseBoolean(settings.getProperty(NOTIFICATION_SHARED, "false"));
+		
+		try {
+			binaryStreamThreshold = Integer.parseInt(settings.getProperty(FIELD_BINARY_STREAM_THRESHOLD, "0"));
+		}
+		catch(NumberFormatException e) {
+			binaryStreamThreshold = 0;
+		}
+		
+		try {
+			keepaliveInterval = SECONDS.toMillis(Long.parseLong(settings.getProperty(CONNECTION_KEEPALIVE_INTERVAL, "0")));
+		}
+		catch(NumberFormatException e) {
+			keepaliveInterval = 0;
+		}
+		
+		protocol.setKeepaliveInterval(keepaliveInterval);
+		
 		if(parseBoolean(settings.getProperty(CONNECTION_READONLY, "false"))) {
 			try {
 				setReadOnly(true);
@@ -112,6 +256,93 @@ class PGConnection extends BasicContext implements Connection {
 		close();
 	}
 
+	@Override
+	public void updateSystemParameter(String name, String value) {
+		
+		super.updateSystemParameter(name, value);
+		
+		switch(name) {
+		
+		case "default_transaction_read_only":
+			
+			readOnly = isTrue(value);
+			break;
+			
+		case "default_transaction_isolation":
+			
+			transactionIsolation = getIsolationLevel(value);
+			break;
+			
+		}
+		
+	}
+
+	/**
+	 * Discards the locally tracked session state (read only & isolation
+	 * level) so it is retrieved from the server when next requested
+	 */
+	void invalidateSessionState() {
+		readOnly = null;
+		transactionIsolation = null;
+		sessionStateChangedInTransaction = false;
+	}
+
+	/**
+	 * Records that the session state may have been changed by a command
+	 * the connection did not issue itself. Changes made in a transaction
+	 * can be undone when it ends, so the state is invalidated again at
+	 * that point.
+	 */
+	void sessionStateChanged() {
+		
+		invalidateSessionState();
+		
+		if(protocol.getTransactionStatus() != Idle) {
+			sessionStateChangedInTransaction = true;
+		}
+	}
+
+	/**
+	 * Called after the current transaction has ended
+	 */
+	void transactionEnded() {
+		
+		if(sessionStateChangedInTransaction) {
+			invalidateSessionState();
+		}
+	}
+
+	/**
+	 * Inspects the command tags of an executed query for commands that
+	 * may change the session state behind the connection's back (e.g.
+	 * executing SET SESSION CHARACTERISTICS directly).
+	 * 
+	 * @param cmd Executed query command
+	 */
+	void checkSessionStateChanges(QueryCommand cmd) {
+		
+		for(QueryCommand.ResultBatch resultBatch : cmd.getResultBatches()) {
+			
+			if(resultBatch == null || resultBatch.command == null)
+				continue;
+			
+			switch(resultBatch.command) {
+			case "SET":
+			case "RESET":
+			case "DISCARD ALL":
+				sessionStateChanged();
+				break;
+				
+			case "COMMIT":
+			case "ROLLBACK":
+				transactionEnded();
+				break;
+			}
+			
+		}
+		
+	}
+
 	/**
 	 * Ensure the connection is not closed
 	 * 
@@ -149,22 +380,14 @@ class PGConnection extends BasicContext implements Connection {
 	}
 
 	/**
-	 * Ensures that a transaction is active when in manual commit mode
-	 * 
-	 * @throws SQLException
+	 * Ensures that a transaction is active when in manual commit mode. The
+	 * begin is queued to be sent along with the next command rather than
+	 * executed on its own.
 	 */
-	void checkTransaction() throws SQLException {
+	void checkTransaction() {
 		
 		if(!autoCommit && protocol.getTransactionStatus() == Idle) {
-			try {
-				execQuery(getBeginText());
-			}
-			catch(IOException e) {
-				throw new SQLException(e);
-			}
-			catch(NoticeException e) {
-				throw makeSQLException(e.getNotice());
-			}
+			protocol.queueBegin(getBeginText());
 		}
 
 	}
@@ -223,13 +446,21 @@ class PGConnection extends BasicContext implements Connection {
 	}
 	
 	SQLText parseSQL(String sqlText) throws SQLException {
-		try {
-			return new SQLText(sqlText);
-		}
-		catch(ParseException e) {
-			
-			throw new SQLException("Error parsing SQL at position " + e.getErrorOffset());
-		}
+		return SQLTextCache.parse(sqlText);
+	}
+
+	/**
+	 * Translates JDBC SQL text into native SQL text (processing escapes
+	 * and parameter placeholders) using the shared translation cache
+	 * 
+	 * @param sqlText
+	 *          JDBC SQL text to translate
+	 * @return Translated SQL text
+	 * @throws SQLException
+	 *           If the SQL cannot be parsed or contains invalid escapes
+	 */
+	SQLTextCache.Entry translateSQL(String sqlText) throws SQLException {
+		return SQLTextCache.get(sqlText, this);
 	}
 
 	/**
@@ -252,6 +483,10 @@ class PGConnection extends BasicContext implements Connection {
 			
 			protocol.execute(cmd);
 
+			if(cmd instanceof QueryCommand) {
+				checkSessionStateChanges((QueryCommand) cmd);
+			}
+			
 			if(cmd.getError() != null) {
 
 				throw makeSQLException(cmd.getError());
@@ -267,6 +502,37 @@ class PGConnection extends BasicContext implements Connection {
 
 	}
 
+	/**
+	 * Calls a server function using the function call (aka Fastpath)
+	 * protocol. Unlike executing equivalent SQL text, nothing needs to be
+	 * parsed or planned by the server; the function's id is looked up in
+	 * the (cached) system catalog.
+	 * 
+	 * @param functionName
+	 *          Name of the function to call
+	 * @param checkTxn
+	 *          Whether to ensure a transaction is started first
+	 * @param returnType
+	 *          Class of the function's result
+	 * @param resultType
+	 *          Type of the function's result
+	 * @param parameterTypes
+	 *          Types of the function's parameters
+	 * @param parameterValues
+	 *          Values of the function's parameters
+	 * @return Result of the function
+	 * @throws SQLException
+	 *           If an error was encountered during execution
+	 */
+	<T> T executeFunction(String functionName, boolean checkTxn, Class<T> returnType, Type resultType, List<Type> parameterTypes, Object... parameterValues) throws SQLException {
+
+		FunctionCallCommand functionCall = protocol.createFunctionCall(functionName, parameterTypes, asList(parameterValues), resultType);
+
+		execute(functionCall, checkTxn);
+
+		return returnType.cast(functionCall.getResult());
+	}
+
 	/**
 	 * Executes the given SQL text ignoring all result values
 	 * 
@@ -375,6 +641,126 @@ class PGConnection extends BasicContext implements Connection {
 
 	}
 
+	@Override
+	public <T> List<T> query(String sql, Class<T> rowType, Object... parameters) throws SQLException {
+		checkClosed();
+		
+		String nativeSQL = translateSQL(sql).nativeSQL;
+		
+		PrepareCommand prepare = protocol.createPrepare(null, nativeSQL, Collections.<Type>emptyList());
+		
+		SQLWarning warnings = execute(prepare, true);
+		
+		List<Type> parameterTypes = prepare.getDescribedParameterTypes();
+		if(parameterTypes.size() != parameters.length) {
+			throw new SQLException("Incorrect number of parameters: expected " + parameterTypes.size() + ", got " + parameters.length);
+		}
+
+		List<Object> parameterValues = new ArrayList<>(parameters.length);
+		
+		for(int c=0; c < parameters.length; ++c) {
+			
+			Type parameterType = parameterTypes.get(c);
+			Object parameterValue = parameters[c];
+			
+			if(parameterValue != null) {
+				
+				try {
+					parameterValue = coerce(parameterValue, parameterType, mapSetType(parameterType), Collections.<String,Class<?>>emptyMap(), TimeZone.getDefault(), this);
+				}
+				catch(SQLException coercionException) {
+					throw new SQLException("Error converting parameter " + c, coercionException);
+				}
+			}
+			
+			parameterValues.add(parameterValue);
+		}
+		
+		BindExecCommand command = protocol.createBindExec(null, null, parameterTypes, parameterValues, prepare.getDescribedResultFields(), rowType);
+		
+		warnings = chainWarnings(warnings, execute(command, true));
+		
+		warningChain = chainWarnings(warningChain, warnings);
+		
+		@SuppressWarnings("unchecked")
+		List<T> results = (List<T>) command.getResultBatches().get(0).results;
+		if(results == null) {
+			return Collections.emptyList();
+		}
+		
+		return results;
+	}
+
+	@Override
+	public NotificationSubscription subscribe(String channelName, NotificationSubscriber subscriber) throws SQLException {
+		checkClosed();
+		
+		if(sharedNotifications) {
+			return subscribeShared(channelName, subscriber, null);
+		}
+
+		return subscribe(channelName, subscriber, notificationDispatcher.getDefaultExecutor());
+	}
+
+	@Override
+	public NotificationSubscription subscribe(String channelName, NotificationSubscriber subscriber, Executor executor) throws SQLException {
+		checkClosed();
+		
+		if(channelName == null || subscriber == null || executor == null) {
+			throw new SQLException("illegal argument");
+		}
+		
+		if(sharedNotifications) {
+			return subscribeShared(channelName, subscriber, executor);
+		}
+		
+		Subscription subscription =
+				new Subscription(channelName, subscriber, executor, max(notificationQueueCapacity, 1), notificationOverflowPolicy, max(notificationBatchSize, 1));
+		
+		if(notificationDispatcher.add(subscription)) {
+			
+			try {
+				execute("LISTEN " + Identifiers.escape(channelName), false);
+			}
+			catch(SQLException e) {
+				notificationDispatcher.remove(subscription);
+				throw e;
+			}
+			
+		}
+		
+		return new PGNotificationSubscription(this, subscription);
+	}
+
+	/**
+	 * Subscribes via the driver's shared listener for this connection's
+	 * database; the subscription is not tied to this connection
+	 */
+	private NotificationSubscription subscribeShared(String channelName, NotificationSubscriber subscriber, Executor executor) throws SQLException {
+		
+		if(channelName == null || subscriber == null) {
+			throw new SQLException("illegal argument");
+		}
+		
+		return SharedNotificationListener.subscribe(settings, channelName, subscriber, executor, max(notificationQueueCapacity, 1), notificationOverflowPolicy, max(notificationBatchSize, 1));
+	}
+
+	/**
+	 * Removes a subscription, unlistening from its channel when it was the
+	 * last subscription to it
+	 * 
+	 * @param subscription Subscription to remove
+	 * @throws SQLException If unlistening fails
+	 */
+	void unsubscribe(Subscription subscription) throws SQLException {
+		
+		if(notificationDispatcher.remove(subscription) && !isClosed()) {
+			
+			execute("UNLISTEN " + Identifiers.escape(subscription.getChannelName()), false);
+		}
+		
+	}
+
 	/**
 	 * Closes all statemens and shuts down the protocol
 	 * 
@@ -382,6 +768,10 @@ class PGConnection extends BasicContext implements Connection {
 	 */
 	void internalClose() throws SQLException {
 
+		// Already closed (e.g. after a failed validity check)
+		if(isClosed())
+			return;
+
 		closeStatements();
 
 		shutdown();
@@ -390,11 +780,35 @@ class PGConnection extends BasicContext implements Connection {
 	@Override
 	public boolean isValid(int timeout) throws SQLException {
 		
+		if(timeout < 0)
+			throw new SQLException("illegal argument");
+		
 		//Not valid if connection is closed
 		if(isClosed())
 			return false;
 		
-		return executeForString("SELECT '1'::char", false).equals("1");
+		//Valid if recently heard from (e.g. by keepalive)
+		if(keepaliveInterval > 0 && System.currentTimeMillis() - protocol.getLastReceivedTime() < keepaliveInterval)
+			return true;
+		
+		PingCommand ping = protocol.createPing(SECONDS.toMillis(timeout));
+		
+		try {
+			protocol.execute(ping);
+		}
+		catch(IOException e) {
+			internalClose();
+			return false;
+		}
+		
+		//A response still outstanding would be received by the next
+		//command; the connection cannot be used further
+		if(!ping.isComplete()) {
+			internalClose();
+			return false;
+		}
+		
+		return ping.getError() == null;
 	}
 
 	@Override
@@ -455,6 +869,7 @@ class PGConnection extends BasicContext implements Connection {
 		// new transaction since we would still be in manual commit mode)
 		if(!this.autoCommit && protocol.getTransactionStatus() != Idle) {
 			execute(getCommitText(), false);
+			transactionEnded();
 		}
 
 		this.autoCommit = autoCommit;
@@ -464,9 +879,17 @@ class PGConnection extends BasicContext implements Connection {
 	public boolean isReadOnly() throws SQLException {
 		checkClosed();
 
-		String readability = executeForString(getGetSessionReadabilityText(), false);
+		Boolean readOnly = this.readOnly;
+		if(readOnly == null) {
+			
+			String readability = executeForString(getGetSessionReadabilityText(), false);
+			
+			readOnly = isTrue(readability);
+			
+			this.readOnly = readOnly;
+		}
 
-		return isTrue(readability);
+		return readOnly;
 	}
 
 	@Override
@@ -478,15 +901,25 @@ class PGConnection extends BasicContext implements Connection {
 		}
 
 		execute(getSetSessionReadabilityText(readOnly), false);
+		
+		this.readOnly = readOnly;
 	}
 
 	@Override
 	public int getTransactionIsolation() throws SQLException {
 		checkClosed();
 
-		String isolLevel = executeForString(getGetSessionIsolationLevelText(), false);
+		Integer transactionIsolation = this.transactionIsolation;
+		if(transactionIsolation == null) {
+			
+			String isolLevel = executeForString(getGetSessionIsolationLevelText(), false);
+			
+			transactionIsolation = getIsolationLevel(isolLevel);
+			
+			this.transactionIsolation = transactionIsolation;
+		}
 
-		return getIsolationLevel(isolLevel);
+		return transactionIsolation;
 	}
 
 	@Override
@@ -502,6 +935,13 @@ class PGConnection extends BasicContext implements Connection {
 		}
 
 		execute(getSetSessionIsolationLevelText(level), false);
+		
+		// Changes made in a transaction are undone by rolling it back
+		if(protocol.getTransactionStatus() != Idle) {
+			sessionStateChangedInTransaction = true;
+		}
+		
+		this.transactionIsolation = level;
 	}
 
 	@Override
@@ -512,6 +952,7 @@ class PGConnection extends BasicContext implements Connection {
 		// Commit the current transaction
 		if(protocol.getTransactionStatus() != Idle) {
 			execute(getCommitText(), false);
+			transactionEnded();
 		}
 
 	}
@@ -524,6 +965,7 @@ class PGConnection extends BasicContext implements Connection {
 		// Roll back the current transaction
 		if(protocol.getTransactionStatus() != Idle) {
 			execute(getRollbackText(), false);
+			transactionEnded();
 		}
 
 	}
@@ -571,6 +1013,12 @@ class PGConnection extends BasicContext implements Connection {
 			// Rollback to save-point (if in transaction)
 			if(protocol.getTransactionStatus() != Idle) {
 				execute(getRollbackToText(savepoint), false);
+				
+				// Changes may have been undone, but transaction continues
+				if(sessionStateChangedInTransaction) {
+					readOnly = null;
+					transactionIsolation = null;
+				}
 			}
 		}
 		finally {
@@ -630,11 +1078,7 @@ class PGConnection extends BasicContext implements Connection {
 	public String nativeSQL(String sql) throws SQLException {
 		checkClosed();
 
-		SQLText sqlText = parseSQL(sql);
-		
-		SQLTextEscapes.processEscapes(sqlText, this);
-		
-		return sqlText.toString();
+		return translateSQL(sql).nativeSQL;
 	}
 	
 	@Override
@@ -676,31 +1120,41 @@ class PGConnection extends BasicContext implements Connection {
 	public PGPreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
 		checkClosed();
 		
-		SQLText sqlText = parseSQL(sql);
+		SQLTextCache.Entry translated = translateSQL(sql);
 		
-		return prepareStatement(sqlText, resultSetType, resultSetConcurrency, resultSetHoldability);
+		return prepareStatement(translated, resultSetType, resultSetConcurrency, resultSetHoldability);
 	}
 	
 	public PGPreparedStatement prepareStatement(SQLText sqlText, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
 		
-		SQLTextEscapes.processEscapes(sqlText, this);
+		SQLTextCache.Entry translated = SQLTextCache.translate(sqlText, this);
 		
-		String statementName = getNextStatementName();
+		return prepareStatement(translated, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+	
+	PGPreparedStatement prepareStatement(SQLTextCache.Entry translated, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
 		
-		final int[] parameterCount = new int[1];
-		sqlText.process(new Processor() {
-
-			@Override
-			public Node process(Node node) throws SQLException {
-				if(node instanceof ParameterPiece)
-					parameterCount[0] += 1;
-				return node;
-			}
+		//Statements start out using the unnamed statement and are
+		//promoted to a named statement once executed enough times
+		String statementName = prepareThreshold > 0 ? null : getNextStatementName();
+		
+		PGPreparedStatement statement;
+		
+		if(rewriteInLists && translated.inListRewrite != null) {
 			
-		}, true);
-
-		PGPreparedStatement statement =
-				new PGPreparedStatement(this, resultSetType, resultSetConcurrency, resultSetHoldability, statementName, sqlText.toString(), parameterCount[0]);
+			InListRewrite inListRewrite = translated.inListRewrite;
+			
+			statement = new PGPreparedStatement(this, resultSetType, resultSetConcurrency, resultSetHoldability, statementName, inListRewrite.getNativeSQL(), inListRewrite.getNativeParameterCount());
+			statement.setInListRewrite(inListRewrite);
+		}
+		else {
+			
+			statement = new PGPreparedStatement(this, resultSetType, resultSetConcurrency, resultSetHoldability, statementName, translated.nativeSQL, translated.parameterCount);
+			
+			if(rewriteBatchedInserts) {
+				statement.multiRowInsert = translated.multiRowInsert;
+			}
+		}
 		
 		activeStatements.add(new WeakReference<PGStatement>(statement));
 		
@@ -21,6 +21,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
 import com.impossibl.postgres.system.NoticeException;
 import com.impossibl.postgres.system.Version;
 
@@ -71,6 +72,21 @@ public class PGDriver implements Driver {
 		DriverManager.registerDriver(this);
 	}
 
+	/**
+	 * Deregisters the driver from the DriverManager and releases its
+	 * driver wide resources (i.e. the metrics MBean). Applications that
+	 * unload the driver (e.g. when redeployed) should use this in place of
+	 * DriverManager.deregisterDriver.
+	 * 
+	 * @throws SQLException If deregistration fails
+	 */
+	public void deregister() throws SQLException {
+		
+		DriverManager.deregisterDriver(this);
+		
+		Metrics.unregisterDriverMetrics();
+	}
+
 	@Override
 	public PGConnection connect(String url, Properties info) throws SQLException {
 		
@@ -79,17 +95,33 @@ public class PGDriver implements Driver {
 			return null;
 		}
 
-		SQLException lastException = null;
-		
 		Properties settings = buildSettings(connSpec, info);
 		
+		return connect(connSpec, settings);
+	}
+	
+	/**
+	 * Connects to the first available address of a connection specifier
+	 * 
+	 * @param connSpec Connection specification as parsed
+	 * @param settings Settings of the connection, as built by
+	 * 					{@link #buildSettings(ConnectionSpecifier, Properties)}
+	 * @return Initialized connection
+	 * @throws SQLException If no address could be connected to
+	 */
+	static PGConnection connect(ConnectionSpecifier connSpec, Properties settings) throws SQLException {
+
+		SQLException lastException = null;
+		
 		//Try to connect to each provided address in turn returning the first
 		//successful connection
 		for(InetSocketAddress address : connSpec.addresses) {
 			
+			PGConnection conn = null;
+			
 			try {
 				
-				PGConnection conn = new PGConnection(address, settings);
+				conn = new PGConnection(address, settings);
 		
 				conn.init();
 		
@@ -105,6 +137,17 @@ public class PGDriver implements Driver {
 				lastException = makeSQLException(e.getNotice());
 			}
 			
+			//Release the partially initialized connection
+			if(conn != null) {
+				
+				try {
+					conn.internalClose();
+				}
+				catch(SQLException e) {
+					//Ignore...
+				}
+			}
+			
 		}
 		
 		//Couldn't connect so report that last exception we saw
@@ -172,7 +215,7 @@ public class PGDriver implements Driver {
 	 * @param url
 	 * @return
 	 */
-	ConnectionSpecifier parseURL(String url) {
+	static ConnectionSpecifier parseURL(String url) {
 		
 		try {
 			
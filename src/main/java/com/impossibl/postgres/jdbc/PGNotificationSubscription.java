@@ -0,0 +1,50 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.SQLException;
+
+import com.impossibl.postgres.system.NotificationDispatcher.Subscription;
+
+
+
+class PGNotificationSubscription implements NotificationSubscription {
+
+	PGConnection connection;
+	SharedNotificationListener sharedListener;
+	Subscription subscription;
+
+	PGNotificationSubscription(PGConnection connection, Subscription subscription) {
+		this.connection = connection;
+		this.subscription = subscription;
+	}
+
+	PGNotificationSubscription(SharedNotificationListener sharedListener, Subscription subscription) {
+		this.sharedListener = sharedListener;
+		this.subscription = subscription;
+	}
+
+	@Override
+	public String getChannelName() {
+		return subscription.getChannelName();
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return subscription.getDroppedCount();
+	}
+
+	@Override
+	public void close() throws SQLException {
+
+		if(subscription.isClosed()) {
+			return;
+		}
+
+		if(sharedListener != null) {
+			sharedListener.unsubscribe(subscription);
+		}
+		else {
+			connection.unsubscribe(subscription);
+		}
+	}
+
+}
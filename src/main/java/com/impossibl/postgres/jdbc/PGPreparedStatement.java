@@ -7,6 +7,7 @@ import static com.impossibl.postgres.jdbc.Exceptions.PARAMETER_INDEX_OUT_OF_BOUN
 import static com.impossibl.postgres.jdbc.SQLTypeMetaData.getSQLType;
 import static com.impossibl.postgres.jdbc.SQLTypeUtils.coerce;
 import static com.impossibl.postgres.jdbc.SQLTypeUtils.mapSetType;
+import static com.impossibl.postgres.protocol.TransactionStatus.Idle;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
@@ -45,29 +46,56 @@ import java.util.Collections;
 import java.util.List;
 import java.util.TimeZone;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import com.impossibl.postgres.datetime.instants.Instants;
+import com.impossibl.postgres.protocol.BindExecBatchCommand;
 import com.impossibl.postgres.protocol.BindExecCommand;
+import com.impossibl.postgres.protocol.ParameterStream;
 import com.impossibl.postgres.protocol.PrepareCommand;
 import com.impossibl.postgres.protocol.QueryCommand;
 import com.impossibl.postgres.protocol.ResultField;
 import com.impossibl.postgres.protocol.ServerObjectType;
+import com.impossibl.postgres.system.Metrics;
+import com.impossibl.postgres.types.ArrayType;
+import com.impossibl.postgres.types.PrimitiveType;
 import com.impossibl.postgres.types.Type;
 
 
 
 class PGPreparedStatement extends PGStatement implements PreparedStatement {
 
+	/**
+	 * Maximum length of a streamed parameter, the maximum size of a bytea
+	 */
+	static final long MAX_STREAM_LENGTH = 0x3FFFFFFF;
 	
+	/**
+	 * Value of IN list elements that have not been set
+	 */
+	private static final Object UNSET_LIST_ELEMENT = new Object();
 	
 	String sqlText;
 	List<Type> parameterTypes;
-	List<Object> parameterValues;
-	List<List<Type>> batchParameterTypes;
-	List<List<Object>> batchParameterValues;
+	ParameterValues parameterValues;
+	Class<?>[] parameterTargetTypes;
+	ParameterBatch batch;
+	boolean batchDescribed;
+	MultiRowInsert multiRowInsert;
+	InListRewrite inListRewrite;
+	Object[][] inListValues;
+	BindExecBatchCommand pipelinedBatch;
+	ChannelBuffer pipelinedBatchRow;
+	int[] pipelinedBatchCounts;
+	int pipelinedBatchExecuted;
+	List<Object[]> pipelinedBatchGeneratedKeys;
 	boolean wantsGeneratedKeys;
 	boolean parsed;
+	boolean prepared;
+	int executionCount;
 	
 	
 	
@@ -75,7 +103,7 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		super(connection, type, concurrency, holdability, name, null);
 		this.sqlText = sqlText;
 		this.parameterTypes = asList(new Type[parameterCount]);
-		this.parameterValues = asList(new Object[parameterCount]);
+		this.parameterValues = new ParameterValues(parameterCount);
 	}
 
 	public boolean getWantsGeneratedKeys() {
@@ -86,6 +114,28 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		this.wantsGeneratedKeys = wantsGeneratedKeys;
 	}
 
+	/**
+	 * Binds the statement's parameters according to a rewrite of its IN
+	 * lists; values of list parameters are collected and packed into the
+	 * list's array parameter at execution.
+	 * 
+	 * @param inListRewrite Rewrite the statement's SQL text was produced by
+	 */
+	void setInListRewrite(InListRewrite inListRewrite) {
+		
+		this.inListRewrite = inListRewrite;
+		this.inListValues = new Object[inListRewrite.getNativeParameterCount()][];
+		
+		for(int c=0; c < inListValues.length; ++c) {
+			
+			int listSize = inListRewrite.getListSize(c);
+			if(listSize > 0) {
+				inListValues[c] = new Object[listSize];
+				Arrays.fill(inListValues[c], UNSET_LIST_ELEMENT);
+			}
+		}
+	}
+	
 	/**
 	 * Ensure the given parameter index is valid for this statement
 	 * 
@@ -94,24 +144,67 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 	 */
 	void checkParameterIndex(int idx) throws SQLException {
 		
-		if(idx < 1 || idx > parameterValues.size())
+		int count = inListRewrite != null ? inListRewrite.getParameterCount() : parameterValues.size();
+		
+		if(idx < 1 || idx > count)
 			throw PARAMETER_INDEX_OUT_OF_BOUNDS;
 	}
 	
-	void set(int parameterIdx, Object val) throws SQLException {		
+	/**
+	 * Checks a parameter can be set & maps it to its parameter value
+	 * 
+	 * @param parameterIdx JDBC parameter index (1 based)
+	 * @return Index of the parameter's value or -1 if the parameter is
+	 * 					an element of a rewritten IN list
+	 * @throws SQLException
+	 * 					If the statement is closed or the parameter index is out of bounds
+	 */
+	int checkSet(int parameterIdx) throws SQLException {
 		checkClosed();
 		checkParameterIndex(parameterIdx);
 		
+		if(inListRewrite == null) {
+			return parameterIdx - 1;
+		}
+		
+		if(inListRewrite.getElementIndex(parameterIdx - 1) != -1) {
+			return -1;
+		}
+		
+		return inListRewrite.getNativeIndex(parameterIdx - 1);
+	}
+	
+	/**
+	 * Sets an element of a rewritten IN list
+	 */
+	void setInListElement(int parameterIdx, Object val) {
+		
 		parameterIdx -= 1;
-
-		parameterValues.set(parameterIdx, val);
+		
+		inListValues[inListRewrite.getNativeIndex(parameterIdx)][inListRewrite.getElementIndex(parameterIdx)] = val;
+	}
+	
+	void set(int parameterIdx, Object val) throws SQLException {		
+		int valueIdx = checkSet(parameterIdx);
+		
+		if(valueIdx == -1) {
+			setInListElement(parameterIdx, val);
+			return;
+		}
+		
+		parameterValues.set(valueIdx, val);
 	}
 
 	void set(int parameterIdx, Object val, int targetSQLType) throws SQLException {
-		checkClosed();
-		checkParameterIndex(parameterIdx);
+		int valueIdx = checkSet(parameterIdx);
 		
-		parameterIdx -= 1;
+		if(valueIdx == -1) {
+			// Element types are determined by the list's array parameter
+			setInListElement(parameterIdx, val);
+			return;
+		}
+		
+		parameterIdx = valueIdx;
 
 		Type paramType = parameterTypes.get(parameterIdx);
 		
@@ -126,6 +219,8 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 			parameterTypes.set(parameterIdx, paramType);
 			
 			parsed = false;
+			parameterTargetTypes = null;
+			batchDescribed = false;
 		}
 		
 		parameterValues.set(parameterIdx, val);
@@ -137,55 +232,284 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		
 		parameterTypes = null;
 		parameterValues = null;
+		parameterTargetTypes = null;
+		pipelinedBatch = null;
+		pipelinedBatchRow = null;
+	}
+	
+	void closeIfPrepared() throws SQLException {
+		
+		if(name != null && prepared) {
+			connection.execute(connection.getProtocol().createClose(ServerObjectType.Statement, name), false);
+			prepared = false;
+		}
+		
 	}
 	
 	void parseIfNeeded() throws SQLException {
 		
 		if(!parsed) {
 			
-			if(name != null) {
-				connection.execute(connection.getProtocol().createClose(ServerObjectType.Statement, name), false);
-			}
+			closeIfPrepared();
 			
 			PrepareCommand prep = connection.getProtocol().createPrepare(name, sqlText.toString(), parameterTypes);
 			
 			warningChain = connection.execute(prep, true);
 			
-			parameterTypes = prep.getDescribedParameterTypes();
+			connection.statementDescriptions.put(sqlText, parameterTypes, prep.getDescribedParameterTypes(), prep.getDescribedResultFields());
+			
+			setParameterTypes(prep.getDescribedParameterTypes());
 			resultFields = prep.getDescribedResultFields();
 			
 			parsed = true;
+			prepared = name != null;
 		}
 				
 	}
+	
+	/**
+	 * Uses the connection's cached description of the statement, if
+	 * available, in place of parsing it separately. The statement is
+	 * then parsed in the same round trip that executes it.
+	 * 
+	 * @return Parameter types the description was found with or null
+	 * 					if none is available and the statement must be
+	 * 					parsed first
+	 * @throws SQLException If closing the previous server statement fails
+	 */
+	List<Type> describeFromCache() throws SQLException {
+		
+		StatementDescriptionCache.Description description = connection.statementDescriptions.get(sqlText, parameterTypes);
+		
+		Metrics metrics = connection.getMetrics();
+		if(metrics != null)
+			metrics.statementCacheLookup(description != null);
+		
+		if(description == null)
+			return null;
+		
+		closeIfPrepared();
+		
+		List<Type> lookupTypes = parameterTypes;
+		
+		setParameterTypes(new ArrayList<>(description.parameterTypes));
+		resultFields = description.resultFields;
+		
+		// Even if execution fails the statement may have been parsed
+		prepared = name != null;
+		
+		return lookupTypes;
+	}
+	
+	/**
+	 * Chooses the server statement for the next execution. Until the
+	 * connection's prepare threshold is reached executions use the
+	 * unnamed statement, which must be re-parsed every time since any
+	 * other command may replace it. After that the statement is promoted
+	 * to a named statement that is parsed only once.
+	 * 
+	 * Named portals (i.e. when a fetch size is set) always use a named
+	 * statement.
+	 */
+	void selectStatement() {
+		
+		executionCount++;
+		
+		if(name != null)
+			return;
+		
+		if(executionCount > connection.prepareThreshold || needsNamedPortal()) {
+			
+			name = connection.getNextStatementName();
+		}
+		
+		parsed = false;
+	}
 
-	@Override
-	public boolean execute() throws SQLException {
+	/**
+	 * Updates the parameter types with those described by the server
+	 * 
+	 * @param describedTypes Described parameter types
+	 */
+	void setParameterTypes(List<Type> describedTypes) {
 		
-		parseIfNeeded();
+		if(!describedTypes.equals(parameterTypes)) {
+			parameterTargetTypes = null;
+		}
 		
-		for(int c=0, sz=parameterTypes.size(); c < sz; ++c) {
+		parameterTypes = describedTypes;
+	}
+	
+	/**
+	 * Retrieves the type each parameter value is coerced to before
+	 * binding. It is determined from the parameter types once and reused
+	 * until the types change (i.e. the statement is parsed again).
+	 * 
+	 * @return Target type of each parameter
+	 */
+	Class<?>[] getParameterTargetTypes() {
+		
+		if(parameterTargetTypes == null) {
+			
+			Class<?>[] targetTypes = new Class<?>[parameterTypes.size()];
+			
+			for(int c=0; c < targetTypes.length; ++c) {
+				targetTypes[c] = mapSetType(parameterTypes.get(c));
+			}
+			
+			parameterTargetTypes = targetTypes;
+		}
+		
+		return parameterTargetTypes;
+	}
 
-			Type parameterType = parameterTypes.get(c);
-			Object parameterValue = parameterValues.get(c);
+	/**
+	 * Packs the values of each rewritten IN list into its array parameter.
+	 * The arrays are copied so values set afterwards do not alter those
+	 * already sent or batched.
+	 * 
+	 * @throws SQLException If an element of a list has not been set
+	 */
+	void packInListValues() throws SQLException {
+		
+		if(inListValues == null) {
+			return;
+		}
+		
+		for(int c=0; c < inListValues.length; ++c) {
 			
-			if(parameterValue != null) {
+			if(inListValues[c] == null) {
+				continue;
+			}
+			
+			for(int e=0; e < inListValues[c].length; ++e) {
+				if(inListValues[c][e] == UNSET_LIST_ELEMENT) {
+					throw new SQLException("No value specified for parameter " + getInListParameterIndex(c, e));
+				}
+			}
+			
+			parameterValues.set(c, inListValues[c].clone());
+		}
+	}
+	
+	/**
+	 * Maps an element of a rewritten IN list back to its JDBC parameter
+	 * 
+	 * @return JDBC parameter index (1 based)
+	 */
+	int getInListParameterIndex(int nativeIdx, int elementIdx) {
+		
+		for(int c=0; c < inListRewrite.getParameterCount(); ++c) {
+			if(inListRewrite.getNativeIndex(c) == nativeIdx && inListRewrite.getElementIndex(c) == elementIdx) {
+				return c + 1;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Coerces the parameter values to the target types of their parameters
+	 * 
+	 * @throws SQLException If a value cannot be converted or a streamed
+	 * 					value has already been sent
+	 */
+	void coerceParameterValues() throws SQLException {
+		
+		Class<?>[] targetTypes = getParameterTargetTypes();
+		TimeZone zone = null;
+		
+		for(int c=0; c < targetTypes.length; ++c) {
 
-				Class<?> targetType = mapSetType(parameterType);
+			// Values set with a matching type need no conversion
+			Class<?> valueClass = parameterValues.getValueClass(c);
+			
+			// Streams are read as they are sent and cannot be sent again
+			if(valueClass == ParameterStream.class && ((ParameterStream) parameterValues.get(c)).isConsumed()) {
+				throw new SQLException("Stream of parameter " + (c + 1) + " has already been read; it must be set again");
+			}
+			
+			if(valueClass == null || targetTypes[c].isAssignableFrom(valueClass)) {
+				continue;
+			}
+			
+			Object parameterValue = parameterValues.get(c);
+			
+			if(parameterValue instanceof ParameterStream) {
+				
+				// Streamed as is to binary parameters, otherwise read & converted
+				if(parameterTypes.get(c).getPrimitiveType() == PrimitiveType.Binary) {
+					continue;
+				}
 				
 				try {
-					parameterValue = coerce(parameterValue, parameterType, targetType, Collections.<String,Class<?>>emptyMap(), TimeZone.getDefault(), connection);
+					parameterValue = ((ParameterStream) parameterValue).toByteArray();
 				}
-				catch(SQLException coercionException) {
-					throw new SQLException("Error converting parameter " + c, coercionException);
+				catch(IOException e) {
+					throw new SQLException(e);
 				}
 			}
 			
+			if(zone == null) {
+				zone = TimeZone.getDefault();
+			}
+				
+			try {
+				parameterValue = coerce(parameterValue, parameterTypes.get(c), targetTypes[c], Collections.<String,Class<?>>emptyMap(), zone, connection);
+			}
+			catch(SQLException coercionException) {
+				throw new SQLException("Error converting parameter " + c, coercionException);
+			}
+			
 			parameterValues.set(c, parameterValue);
 		}
+		
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		
+		selectStatement();
+		
+		List<Type> describedWith = null;
+		
+		if(!parsed) {
+			
+			describedWith = describeFromCache();
+			if(describedWith == null) {
+				parseIfNeeded();
+			}
+		}
+		
+		packInListValues();
+		coerceParameterValues();
 				
 		
-		boolean res = super.executeStatement(name, parameterTypes, parameterValues);
+		boolean res;
+		
+		if(describedWith != null) {
+			
+			try {
+				res = super.executeStatement(sqlText, name, parameterTypes, parameterValues);
+			}
+			catch(SQLException e) {
+				// Description may be out of date (e.g. the schema changed)
+				connection.statementDescriptions.invalidate(sqlText, describedWith);
+				connection.statementDescriptions.invalidate(sqlText, parameterTypes);
+				
+				if(!canRetryDescribed(e)) {
+					throw e;
+				}
+				
+				return executeReparsed(describedWith);
+			}
+			
+			parsed = true;
+		}
+		else {
+			
+			res = super.executeStatement(name, parameterTypes, parameterValues);
+		}
 		
 		if(wantsGeneratedKeys) {
 			generatedKeysResultSet = getResultSet();
@@ -194,6 +518,65 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		return res;
 	}
 
+	/**
+	 * Determines if an execution that used a cached description, and
+	 * failed, can be retried after parsing the statement separately. Only
+	 * errors the server raises when analyzing the statement (SQLSTATE
+	 * class 42, or a plan whose result type changed) are retried.
+	 * Retrying in a (now failed) transaction cannot succeed and streamed
+	 * parameter values cannot be sent again.
+	 * 
+	 * @param e Error the execution failed with
+	 * @return true if the execution can be retried
+	 */
+	boolean canRetryDescribed(SQLException e) {
+		
+		String sqlState = e.getSQLState();
+		if(sqlState == null || !(sqlState.startsWith("42") || sqlState.equals("0A000"))) {
+			return false;
+		}
+		
+		if(connection.getProtocol().getTransactionStatus() != Idle) {
+			return false;
+		}
+		
+		for(Object parameterValue : parameterValues) {
+			if(parameterValue instanceof ParameterStream) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Executes the statement after parsing & describing it separately;
+	 * used once when execution with a cached description fails.
+	 * 
+	 * @param lookupTypes Parameter types the cached description was
+	 * 					found with
+	 * @return true if command returned results or false if not
+	 * @throws SQLException If parsing or execution fails
+	 */
+	boolean executeReparsed(List<Type> lookupTypes) throws SQLException {
+		
+		setParameterTypes(lookupTypes);
+		parsed = false;
+		
+		parseIfNeeded();
+		
+		packInListValues();
+		coerceParameterValues();
+		
+		boolean res = super.executeStatement(name, parameterTypes, parameterValues);
+		
+		if(wantsGeneratedKeys) {
+			generatedKeysResultSet = getResultSet();
+		}
+		
+		return res;
+	}
+
 	@Override
 	public PGResultSet executeQuery() throws SQLException {
 
@@ -214,36 +597,163 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 	public void addBatch() throws SQLException {
 		checkClosed();
 		
-		if(batchParameterTypes == null) {
-			batchParameterTypes = new ArrayList<>();
+		// Values are encoded as they are added, which requires the complete
+		// parameter types
+		if(!parsed && !batchDescribed) {
+			
+			if(describeFromCache() == null) {
+				parseIfNeeded();
+			}
+			
+			batchDescribed = true;
+		}
+		
+		packInListValues();
+		coerceParameterValues();
+		
+		if(connection.pipelinedBatches && multiRowInsert == null) {
+			addPipelinedBatch();
+			return;
 		}
 		
-		if(batchParameterValues == null) {
-			batchParameterValues = new ArrayList<>();
+		if(batch == null) {
+			batch = new ParameterBatch();
+		}
+		
+		try {
+			batch.add(parameterTypes, parameterValues, connection);
+		}
+		catch(IOException e) {
+			throw new SQLException(e);
+		}
+	}
+
+	/**
+	 * Encodes the current parameter values directly into a pipelined
+	 * batch. Once the queued values reach the connection's flush size
+	 * they are executed, keeping the memory used by very large batches
+	 * bounded.
+	 * 
+	 * @throws SQLException If encoding fails or an automatic flush fails
+	 */
+	void addPipelinedBatch() throws SQLException {
+		
+		if(pipelinedBatch == null) {
+			pipelinedBatch = connection.getProtocol().createBindExecBatch(sqlText, resultFields);
+			pipelinedBatchCounts = new int[16];
+			pipelinedBatchExecuted = 0;
+			pipelinedBatchGeneratedKeys = new ArrayList<>();
+		}
+		
+		if(pipelinedBatchRow == null) {
+			pipelinedBatchRow = ChannelBuffers.dynamicBuffer();
+		}
+		
+		pipelinedBatchRow.clear();
+		
+		try {
+			
+			ParameterBatch.encode(parameterTypes, parameterValues, pipelinedBatchRow, connection);
+			
+			pipelinedBatch.add(parameterTypes, pipelinedBatchRow);
+		}
+		catch(IOException e) {
+			throw new SQLException(e);
+		}
+		
+		if(pipelinedBatch.getMessageSize() >= connection.batchFlushSize) {
+			flushPipelinedBatch();
+		}
+	}
+	
+	/**
+	 * Executes the rows queued in the pipelined batch and records their
+	 * update counts (and generated keys)
+	 * 
+	 * @throws SQLException If execution fails
+	 */
+	void flushPipelinedBatch() throws SQLException {
+		
+		if(pipelinedBatch.getSize() == 0) {
+			return;
+		}
+		
+		try {
+			
+			SQLWarning warnings = connection.execute(pipelinedBatch, true);
+			
+			warningChain = chainWarnings(warningChain, warnings);
+		}
+		catch(SQLException e) {
+			pipelinedBatch = null;
+			throw e;
+		}
+		
+		for(QueryCommand.ResultBatch resultBatch : pipelinedBatch.getResultBatches()) {
+			
+			if(resultBatch.rowsAffected == null) {
+				int[] counts = Arrays.copyOf(pipelinedBatchCounts, pipelinedBatchExecuted);
+				pipelinedBatch = null;
+				throw new BatchUpdateException(counts);
+			}
+			
+			if(wantsGeneratedKeys) {
+				pipelinedBatchGeneratedKeys.add((Object[])resultBatch.results.get(0));
+			}
+			
+			if(pipelinedBatchExecuted == pipelinedBatchCounts.length) {
+				pipelinedBatchCounts = Arrays.copyOf(pipelinedBatchCounts, pipelinedBatchExecuted * 2);
+			}
+			
+			pipelinedBatchCounts[pipelinedBatchExecuted++] = (int)(long)resultBatch.rowsAffected;
 		}
 		
-		batchParameterTypes.add(new ArrayList<>(parameterTypes));
-		batchParameterValues.add(new ArrayList<>(parameterValues));
 	}
 
 	@Override
 	public void clearBatch() throws SQLException {
 		checkClosed();
 		
-		batchParameterValues = null;
+		batch = null;
+		
+		// Rows already flushed have been executed; their counts are kept
+		// and reported by the next executeBatch
+		if(pipelinedBatch != null) {
+			pipelinedBatch.clear();
+		}
 	}
 
 	@Override
 	public int[] executeBatch() throws SQLException {
 		checkClosed();
 		
+		if(pipelinedBatch != null) {
+			
+			try {
+				
+				flushPipelinedBatch();
+				
+				generatedKeysResultSet = createResultSet(resultFields, pipelinedBatchGeneratedKeys);
+				
+				return Arrays.copyOf(pipelinedBatchCounts, pipelinedBatchExecuted);
+			}
+			finally {
+				pipelinedBatch = null;
+			}
+			
+		}
+		
 		try {
 			
-			if(batchParameterValues == null || batchParameterValues.isEmpty()) {
+			if(batch == null || batch.size() == 0) {
 				return new int[0];
 			}
 			
-			int[] counts = new int[batchParameterValues.size()];
+			if(multiRowInsert != null) {
+				return executeMultiRowInsertBatch();
+			}
+			
+			int[] counts = new int[batch.size()];
 			Arrays.fill(counts, SUCCESS_NO_INFO);
 			
 			List<Object[]> generatedKeys = new ArrayList<>();
@@ -253,9 +763,9 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 			List<Type> lastParameterTypes = null;
 			List<ResultField> lastResultFields = null;
 
-			for(int c=0, sz=batchParameterValues.size(); c < sz; ++c) {
+			for(int c=0, sz=batch.size(); c < sz; ++c) {
 				
-				List<Type> parameterTypes = mergeTypes(batchParameterTypes.get(c), lastParameterTypes);
+				List<Type> parameterTypes = batch.getTypes(c);
 				
 				if(lastParameterTypes == null || lastParameterTypes.equals(parameterTypes) == false) {
 				
@@ -263,15 +773,12 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 					
 					connection.execute(prep, true);
 					
-					parameterTypes = prep.getDescribedParameterTypes();
 					lastParameterTypes = parameterTypes;
 					lastResultFields = prep.getDescribedResultFields();
 				}
 				
-				List<Object> parameterValues = batchParameterValues.get(c);
-				
 				command.setParameterTypes(parameterTypes);
-				command.setParameterValues(parameterValues);
+				command.setEncodedParameterValues(batch.getValues(c));
 				
 				SQLWarning warnings = connection.execute(command, true);
 				
@@ -300,27 +807,85 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 			
 		}
 		finally {
-			batchParameterTypes = null;
-			batchParameterValues = null;
+			batch = null;
 		}
 
 	}
 
-	private List<Type> mergeTypes(List<Type> list, List<Type> defaultTypes) {
+	/**
+	 * Executes the batch by rewriting it into multi-row INSERT statements,
+	 * each inserting as many rows (with identical parameter types) as the
+	 * parameter limit allows.
+	 * 
+	 * Update counts are reported per row when each statement inserts one
+	 * row per batch row; otherwise (e.g. when rows are skipped by an ON
+	 * CONFLICT clause) they are reported as SUCCESS_NO_INFO.
+	 * 
+	 * @return Update counts of the rows
+	 * @throws SQLException If execution fails
+	 */
+	int[] executeMultiRowInsertBatch() throws SQLException {
+		
+		int[] counts = new int[batch.size()];
+		Arrays.fill(counts, SUCCESS_NO_INFO);
 		
-		if(defaultTypes == null)
-			return list;
+		List<Object[]> generatedKeys = new ArrayList<>();
+		List<ResultField> lastResultFields = null;
 		
-		for(int c=0, sz=list.size(); c < sz; ++c) {
+		int maxRows = multiRowInsert.getMaxRows();
+		
+		for(int start=0, sz=batch.size(); start < sz;) {
+			
+			List<Type> rowTypes = batch.getTypes(start);
+			
+			int end = start + 1;
+			while(end < sz && end - start < maxRows && batch.getTypes(end).equals(rowTypes)) {
+				end++;
+			}
+			
+			int rows = end - start;
+			
+			List<Type> chunkTypes = new ArrayList<>(rows * rowTypes.size());
+			for(int c=0; c < rows; ++c) {
+				chunkTypes.addAll(rowTypes);
+			}
+			
+			PrepareCommand prep = connection.getProtocol().createPrepare(null, multiRowInsert.build(rows), chunkTypes);
+			
+			connection.execute(prep, true);
+			
+			lastResultFields = prep.getDescribedResultFields();
+			
+			BindExecCommand command = connection.getProtocol().createBindExec(null, null, chunkTypes, Collections.emptyList(), lastResultFields, Object[].class);
+			command.setEncodedParameterValues(batch.getValues(start, end));
+			
+			SQLWarning warnings = connection.execute(command, true);
 			
-			Type type = list.get(c);
-			if(type == null)
-				type = defaultTypes.get(c);
+			warningChain = chainWarnings(warningChain, warnings);
 			
-			list.set(c, type);
+			List<QueryCommand.ResultBatch> resultBatches = command.getResultBatches();
+			if(resultBatches.size() != 1 || resultBatches.get(0).rowsAffected == null) {
+				throw new BatchUpdateException(Arrays.copyOf(counts, start));
+			}
+			
+			QueryCommand.ResultBatch resultBatch = resultBatches.get(0);
+			
+			if(resultBatch.rowsAffected == rows) {
+				Arrays.fill(counts, start, end, 1);
+			}
+			
+			if(wantsGeneratedKeys) {
+				for(Object generatedKey : resultBatch.results) {
+					generatedKeys.add((Object[])generatedKey);
+				}
+			}
+			
+			start = end;
 		}
 		
-		return list;
+		generatedKeysResultSet = createResultSet(lastResultFields, generatedKeys);
+		
+		return counts;
 	}
 
 	@Override
@@ -333,6 +898,15 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		
 		}
 		
+		if(inListValues != null) {
+			
+			for(Object[] listValues : inListValues) {
+				if(listValues != null) {
+					Arrays.fill(listValues, UNSET_LIST_ELEMENT);
+				}
+			}
+		}
+		
 	}
 
 	@Override
@@ -341,7 +915,26 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 		
 		parseIfNeeded();
 		
-		return new PGParameterMetaData(parameterTypes, connection.getTypeMap());
+		List<Type> types = parameterTypes;
+		
+		// Report each list element with the element type of its list
+		if(inListRewrite != null) {
+			
+			types = new ArrayList<>(inListRewrite.getParameterCount());
+			
+			for(int c=0; c < inListRewrite.getParameterCount(); ++c) {
+				
+				Type type = parameterTypes.get(inListRewrite.getNativeIndex(c));
+				
+				if(inListRewrite.getElementIndex(c) != -1 && type instanceof ArrayType) {
+					type = ((ArrayType) type).getElementType();
+				}
+				
+				types.add(type);
+			}
+		}
+		
+		return new PGParameterMetaData(types, connection.getTypeMap());
 	}
 
 	@Override
@@ -360,37 +953,72 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 
 	@Override
 	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setBoolean(valueIdx, x);
 	}
 
 	@Override
 	public void setByte(int parameterIndex, byte x) throws SQLException {
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setByte(valueIdx, x);
 	}
 
 	@Override
 	public void setShort(int parameterIndex, short x) throws SQLException {
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setShort(valueIdx, x);
 	}
 
 	@Override
 	public void setInt(int parameterIndex, int x) throws SQLException {
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setInt(valueIdx, x);
 	}
 
 	@Override
 	public void setLong(int parameterIndex, long x) throws SQLException {		
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setLong(valueIdx, x);
 	}
 
 	@Override
 	public void setFloat(int parameterIndex, float x) throws SQLException {		
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setFloat(valueIdx, x);
 	}
 
 	@Override
 	public void setDouble(int parameterIndex, double x) throws SQLException {		
-		set(parameterIndex, x);
+		int valueIdx = checkSet(parameterIndex);
+		if(valueIdx == -1) {
+			setInListElement(parameterIndex, x);
+			return;
+		}
+		parameterValues.setDouble(valueIdx, x);
 	}
 
 	@Override
@@ -498,6 +1126,11 @@ class PGPreparedStatement extends PGStatement implements PreparedStatement {
 			
 			set(parameterIndex, null);
 		}
+		else if(length != -1 && connection.parameterStreamThreshold > 0 && length >= connection.parameterStreamThreshold && length <= MAX_STREAM_LENGTH) {
+			
+			// Data is streamed directly from the stream when executed
+			set(parameterIndex, new ParameterStream(x, (int) length));
+		}
 		else {
 			
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -7,6 +7,7 @@ import static com.impossibl.postgres.jdbc.Exceptions.ILLEGAL_ARGUMENT;
 import static com.impossibl.postgres.jdbc.Exceptions.INVALID_COLUMN_NAME;
 import static com.impossibl.postgres.jdbc.Exceptions.NOT_IMPLEMENTED;
 import static com.impossibl.postgres.jdbc.Exceptions.NOT_SUPPORTED;
+import static com.impossibl.postgres.jdbc.Exceptions.RESULT_SET_NOT_COLUMNAR;
 import static com.impossibl.postgres.jdbc.Exceptions.ROW_INDEX_OUT_OF_BOUNDS;
 import static com.impossibl.postgres.jdbc.Exceptions.UNWRAP_ERROR;
 import static com.impossibl.postgres.jdbc.SQLTypeUtils.coerce;
@@ -46,7 +47,6 @@ import java.sql.Clob;
 import java.sql.Date;
 import java.sql.NClob;
 import java.sql.Ref;
-import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.RowId;
 import java.sql.SQLException;
@@ -60,6 +60,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferInputStream;
+
+import com.impossibl.postgres.protocol.ColumnVector;
+import com.impossibl.postgres.protocol.ColumnarResults;
 import com.impossibl.postgres.protocol.QueryCommand;
 import com.impossibl.postgres.protocol.ResultField;
 import com.impossibl.postgres.types.ArrayType;
@@ -67,7 +72,7 @@ import com.impossibl.postgres.types.Type;
 
 
 
-class PGResultSet implements ResultSet {
+class PGResultSet implements ColumnarResultSet {
 
 	
 	
@@ -83,6 +88,7 @@ class PGResultSet implements ResultSet {
 	SQLWarning warningChain;
 	List<ResultField> resultFields;
 	List<Object[]> results;
+	ColumnVector[] columns;
 	Boolean nullFlag;
 	Map<String, Class<?>> typeMap;
 
@@ -97,7 +103,6 @@ class PGResultSet implements ResultSet {
 		this(statement, type, concurrency, resultFields, results, statement.connection.getTypeMap());
 	}
 	
-	@SuppressWarnings("unchecked")
 	PGResultSet(PGStatement statement, int type, int concurrency, List<ResultField> resultFields, List<?> results, Map<String, Class<?>> typeMap) {
 		this.type = type;
 		this.concurrency = concurrency;
@@ -107,8 +112,20 @@ class PGResultSet implements ResultSet {
 		this.resultsIndexOffset = 0;
 		this.currentRowIndex = -1;
 		this.resultFields = resultFields;
-		this.results = (List<Object[]>)results;
 		this.typeMap = typeMap;
+		setResults(results);
+	}
+	
+	/**
+	 * Sets the current batch of results, unpacking the column vectors
+	 * when the results are columnar
+	 * 
+	 * @param results Result rows
+	 */
+	@SuppressWarnings("unchecked")
+	void setResults(List<?> results) {
+		this.results = (List<Object[]>)results;
+		this.columns = results instanceof ColumnarResults ? ((ColumnarResults) results).getColumns() : null;
 	}
 	
 	protected void finalize() throws SQLException {
@@ -181,6 +198,14 @@ class PGResultSet implements ResultSet {
 	 * @return Column value as Object
 	 */
 	Object get(int columnIndex) {
+		
+		if(columns != null) {
+			ColumnVector column = columns[columnIndex-1];
+			Object val = column.get(currentRowIndex);
+			nullFlag = val == null;
+			return val;
+		}
+		
 		Object val = results.get(currentRowIndex)[columnIndex-1];
 		nullFlag = val == null;
 		return val;
@@ -342,7 +367,6 @@ class PGResultSet implements ResultSet {
 		return isValidRow();
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public boolean next() throws SQLException {
 		checkClosed();
@@ -364,7 +388,7 @@ class PGResultSet implements ResultSet {
 				QueryCommand.ResultBatch resultBatch = resultBatches.get(0);
 				
 				resultFields = resultBatch.fields;
-				results = (List<Object[]>) resultBatch.results;
+				setResults(resultBatch.results);
 				
 				resultsIndexOffset = currentRowIndex;				
 				currentRowIndex = -1;
@@ -474,6 +498,7 @@ class PGResultSet implements ResultSet {
 		statement = null;
 		command = null;
 		results = null;
+		columns = null;
 		resultFields = null;
 	}
 
@@ -541,6 +566,12 @@ class PGResultSet implements ResultSet {
 		checkRow();
 		checkColumnIndex(columnIndex);
 		
+		if(columns != null && columns[columnIndex-1] instanceof ColumnVector.Ints) {
+			ColumnVector.Ints column = (ColumnVector.Ints) columns[columnIndex-1];
+			nullFlag = column.isNull(currentRowIndex);
+			return column.getInt(currentRowIndex);
+		}
+		
 		return coerceToInt(get(columnIndex));
 	}
 
@@ -550,6 +581,21 @@ class PGResultSet implements ResultSet {
 		checkRow();
 		checkColumnIndex(columnIndex);
 		
+		if(columns != null) {
+			
+			ColumnVector column = columns[columnIndex-1];
+			
+			if(column instanceof ColumnVector.Longs) {
+				nullFlag = column.isNull(currentRowIndex);
+				return ((ColumnVector.Longs) column).getLong(currentRowIndex);
+			}
+			else if(column instanceof ColumnVector.Ints) {
+				nullFlag = column.isNull(currentRowIndex);
+				return ((ColumnVector.Ints) column).getInt(currentRowIndex);
+			}
+			
+		}
+		
 		return coerceToLong(get(columnIndex));
 	}
 
@@ -568,6 +614,25 @@ class PGResultSet implements ResultSet {
 		checkRow();
 		checkColumnIndex(columnIndex);
 		
+		if(columns != null) {
+			
+			ColumnVector column = columns[columnIndex-1];
+			
+			if(column instanceof ColumnVector.Doubles) {
+				nullFlag = column.isNull(currentRowIndex);
+				return ((ColumnVector.Doubles) column).getDouble(currentRowIndex);
+			}
+			else if(column instanceof ColumnVector.Longs) {
+				nullFlag = column.isNull(currentRowIndex);
+				return ((ColumnVector.Longs) column).getLong(currentRowIndex);
+			}
+			else if(column instanceof ColumnVector.Ints) {
+				nullFlag = column.isNull(currentRowIndex);
+				return ((ColumnVector.Ints) column).getInt(currentRowIndex);
+			}
+			
+		}
+		
 		return coerceToDouble(get(columnIndex));
 	}
 
@@ -711,8 +776,18 @@ class PGResultSet implements ResultSet {
 
 	@Override
 	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		checkClosed();
+		checkRow();
+		checkColumnIndex(columnIndex);
+
+		Object val = get(columnIndex);
+		
+		// Streamed values are read directly from the received data
+		if(val instanceof ChannelBuffer) {
+			return new ChannelBufferInputStream(((ChannelBuffer) val).duplicate());
+		}
 
-		byte[] data = getBytes(columnIndex);
+		byte[] data = coerceToBytes(val, getType(columnIndex), statement.connection);
 		if(data == null)
 			return null;
 		
@@ -1401,6 +1476,24 @@ class PGResultSet implements ResultSet {
 		warningChain = null;
 	}
 
+	@Override
+	public boolean isColumnar() throws SQLException {
+		checkClosed();
+		
+		return columns != null;
+	}
+
+	@Override
+	public ColumnVector getColumnVector(int columnIndex) throws SQLException {
+		checkClosed();
+		checkColumnIndex(columnIndex);
+		
+		if(columns == null)
+			throw RESULT_SET_NOT_COLUMNAR;
+		
+		return columns[columnIndex-1];
+	}
+
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
 		if(!iface.isAssignableFrom(getClass())) {
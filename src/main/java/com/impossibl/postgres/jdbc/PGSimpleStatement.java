@@ -28,9 +28,9 @@ class PGSimpleStatement extends PGStatement {
 		super(connection, type, concurrency, holdability, null, null);
 	}
 
-	SQLWarning prepare(SQLText sqlText) throws SQLException {
+	SQLWarning prepare(String nativeSQL) throws SQLException {
 
-		PrepareCommand prep = connection.getProtocol().createPrepare(null, sqlText.toString(), Collections.<Type>emptyList());
+		PrepareCommand prep = connection.getProtocol().createPrepare(null, nativeSQL, Collections.<Type>emptyList());
 		
 		SQLWarning warningChain = connection.execute(prep, true);
 		
@@ -45,14 +45,19 @@ class PGSimpleStatement extends PGStatement {
 			SQLTextEscapes.processEscapes(sqlText, connection);
 		}
 		
-		if(sqlText.getStatementCount() > 1) {
+		return executeNative(sqlText.toString(), sqlText.getStatementCount());
+	}
+	
+	boolean executeNative(String nativeSQL, int statementCount) throws SQLException {
+		
+		if(statementCount > 1) {
 			
-			return executeSimple(sqlText.toString());
+			return executeSimple(nativeSQL);
 			
 		}
 		else {
 						
-			SQLWarning prepWarningChain = prepare(sqlText);
+			SQLWarning prepWarningChain = prepare(nativeSQL);
 				
 			boolean res = executeStatement(null, Collections.<Type>emptyList(), Collections.<Object>emptyList());
 		
@@ -66,6 +71,13 @@ class PGSimpleStatement extends PGStatement {
 	@Override
 	public boolean execute(String sql) throws SQLException {
 		checkClosed();
+		
+		if(processEscapes) {
+			
+			SQLTextCache.Entry translated = connection.translateSQL(sql);
+			
+			return executeNative(translated.nativeSQL, translated.statementCount);
+		}
 
 		SQLText sqlText = connection.parseSQL(sql);
 		
@@ -76,12 +88,12 @@ class PGSimpleStatement extends PGStatement {
 	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
 		checkClosed();
 		
-		SQLText sqlText = connection.parseSQL(sql);
-		
 		if(autoGeneratedKeys != RETURN_GENERATED_KEYS) {
-			return execute(sqlText);
+			return execute(sql);
 		}
 		
+		SQLText sqlText = connection.parseSQL(sql);
+		
 		if(appendReturningClause(sqlText) == false) {
 			throw INVALID_COMMAND_FOR_GENERATED_KEYS;
 		}
@@ -227,6 +227,25 @@ abstract class PGStatement implements Statement {
 	 */
 	public boolean executeStatement(String statementName, List<Type> parameterTypes, List<Object> parameterValues) throws SQLException {
 		
+		return executeStatement(null, statementName, parameterTypes, parameterValues);
+	}
+	
+	/**
+	 * Parse & execute the named statement in a single round trip. The
+	 * parameter types must be complete and the expected result fields
+	 * known; see {@link #executeStatement(String, List, List)}.
+	 * 
+	 * @param sqlText SQL text to parse into the statement or null if the
+	 * 					statement has previously been parsed
+	 * @param statementName Name of backend statement to execute or null
+	 * @param parameterTypes List of parameter types
+	 * @param parameterValues List of parmaeter values
+	 * @return true if command returned results or false if not
+	 * @throws SQLException
+	 * 					If an error occurred durring statement execution
+	 */
+	boolean executeStatement(String sqlText, String statementName, List<Type> parameterTypes, List<Object> parameterValues) throws SQLException {
+		
 		closeResultSets();
 
 		String portalName = null;
@@ -235,13 +254,23 @@ abstract class PGStatement implements Statement {
 			portalName = connection.getNextPortalName();
 		}
 
-		BindExecCommand command = connection.getProtocol().createBindExec(portalName, statementName, parameterTypes, parameterValues, resultFields, Object[].class);
+		BindExecCommand command;
+		if(sqlText != null) {
+			command = connection.getProtocol().createParseBindExec(portalName, statementName, sqlText, parameterTypes, parameterValues, resultFields, Object[].class);
+		}
+		else {
+			command = connection.getProtocol().createBindExec(portalName, statementName, parameterTypes, parameterValues, resultFields, Object[].class);
+		}
 
 		if(fetchSize != null)
 			command.setMaxRows(fetchSize);
 		
 		if(maxFieldSize != null)
 			command.setMaxFieldLength(maxFieldSize);
+		
+		command.setBinaryStreamThreshold(connection.binaryStreamThreshold);
+		
+		command.setColumnar(connection.columnarResults);
 
 		this.warningChain = connection.execute(command, true);
 		
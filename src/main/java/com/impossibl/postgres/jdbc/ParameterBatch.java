@@ -0,0 +1,142 @@
+package com.impossibl.postgres.jdbc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.types.Type;
+
+
+
+/**
+ * Parameter values of a statement batch, encoded in their wire format
+ * as each row is added. Rows are stored back to back in a single buffer
+ * so executing the batch only requires copying each row's bytes into
+ * its bind message.
+ */
+class ParameterBatch {
+
+	private ChannelBuffer values;
+	private int[] rowEnds;
+	private List<List<Type>> rowTypes;
+
+	ParameterBatch() {
+		values = ChannelBuffers.dynamicBuffer();
+		rowEnds = new int[16];
+		rowTypes = new ArrayList<>();
+	}
+
+	int size() {
+		return rowTypes.size();
+	}
+
+	/**
+	 * Encodes & appends a row of parameter values
+	 *
+	 * @param types Complete (i.e. described) parameter types; rows added
+	 * 					with the same types share a single copy
+	 * @param parameterValues Parameter values, coerced for their types
+	 * @param context Context used for encoding
+	 * @throws IOException If a value cannot be encoded
+	 */
+	void add(List<Type> types, ParameterValues parameterValues, Context context) throws IOException {
+
+		int rowStart = values.writerIndex();
+
+		try {
+			encode(types, parameterValues, values, context);
+		}
+		catch(IOException | RuntimeException e) {
+
+			// Discard the partially encoded row
+			values.writerIndex(rowStart);
+			throw e;
+		}
+
+		int row = rowTypes.size();
+		if(row == rowEnds.length) {
+			rowEnds = Arrays.copyOf(rowEnds, row * 2);
+		}
+
+		rowEnds[row] = values.writerIndex();
+
+		// Share the previous row's types when unchanged
+		if(row > 0 && rowTypes.get(row - 1).equals(types)) {
+			types = rowTypes.get(row - 1);
+		}
+		else {
+			types = new ArrayList<>(types);
+		}
+
+		rowTypes.add(types);
+	}
+
+	/**
+	 * Encodes a row of parameter values in their wire format
+	 *
+	 * @param types Complete (i.e. described) parameter types
+	 * @param parameterValues Parameter values, coerced for their types
+	 * @param buffer Buffer to write the length & data of each value to
+	 * @param context Context used for encoding
+	 * @throws IOException If a value cannot be encoded
+	 */
+	static void encode(List<Type> types, ParameterValues parameterValues, ChannelBuffer buffer, Context context) throws IOException {
+
+		for(int c=0, sz=types.size(); c < sz; ++c) {
+
+			Type type = types.get(c);
+
+			if(parameterValues.encodePrimitive(c, type, buffer)) {
+				continue;
+			}
+
+			Type.Codec codec = type.getCodec(type.getParameterFormat());
+			codec.encoder.encode(type, buffer, parameterValues.get(c), context);
+		}
+
+	}
+
+	/**
+	 * Retrieves the parameter types of a row
+	 *
+	 * @param row Row index
+	 * @return Parameter types the row was encoded with
+	 */
+	List<Type> getTypes(int row) {
+		return rowTypes.get(row);
+	}
+
+	/**
+	 * Retrieves the encoded parameter values of a row
+	 *
+	 * @param row Row index
+	 * @return Buffer containing the length & data of each parameter value
+	 */
+	ChannelBuffer getValues(int row) {
+
+		int rowStart = row > 0 ? rowEnds[row - 1] : 0;
+
+		return values.slice(rowStart, rowEnds[row] - rowStart);
+	}
+
+	/**
+	 * Retrieves the encoded parameter values of a range of rows
+	 *
+	 * @param fromRow Index of first row (inclusive)
+	 * @param toRow Index of last row (exclusive)
+	 * @return Buffer containing the length & data of each parameter value
+	 * 					of each row, in order
+	 */
+	ChannelBuffer getValues(int fromRow, int toRow) {
+
+		int rangeStart = fromRow > 0 ? rowEnds[fromRow - 1] : 0;
+
+		return values.slice(rangeStart, rowEnds[toRow - 1] - rangeStart);
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.impossibl.postgres.jdbc;
+
+import java.util.AbstractList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.protocol.ResultField.Format;
+import com.impossibl.postgres.types.Type;
+
+
+
+/**
+ * Parameter values of a prepared statement. Primitive values are stored
+ * unboxed, along with the kind of primitive in each slot; they are only
+ * boxed when accessed as objects (i.e. through the List interface).
+ */
+class ParameterValues extends AbstractList<Object> {
+
+	private static final byte OBJECT = 0;
+	private static final byte BOOLEAN = 1;
+	private static final byte BYTE = 2;
+	private static final byte SHORT = 3;
+	private static final byte INT = 4;
+	private static final byte LONG = 5;
+	private static final byte FLOAT = 6;
+	private static final byte DOUBLE = 7;
+
+	private byte[] kinds;
+	private Object[] objects;
+	private long[] longs;
+	private double[] doubles;
+
+	ParameterValues(int count) {
+		kinds = new byte[count];
+		objects = new Object[count];
+		longs = new long[count];
+		doubles = new double[count];
+	}
+
+	@Override
+	public int size() {
+		return kinds.length;
+	}
+
+	@Override
+	public Object get(int idx) {
+
+		switch(kinds[idx]) {
+		case BOOLEAN:
+			return longs[idx] != 0;
+		case BYTE:
+			return (byte) longs[idx];
+		case SHORT:
+			return (short) longs[idx];
+		case INT:
+			return (int) longs[idx];
+		case LONG:
+			return longs[idx];
+		case FLOAT:
+			return (float) doubles[idx];
+		case DOUBLE:
+			return doubles[idx];
+		default:
+			return objects[idx];
+		}
+	}
+
+	@Override
+	public Object set(int idx, Object val) {
+
+		Object prev = get(idx);
+
+		kinds[idx] = OBJECT;
+		objects[idx] = val;
+
+		return prev;
+	}
+
+	void setBoolean(int idx, boolean val) {
+		setLong(idx, val ? 1 : 0, BOOLEAN);
+	}
+
+	void setByte(int idx, byte val) {
+		setLong(idx, val, BYTE);
+	}
+
+	void setShort(int idx, short val) {
+		setLong(idx, val, SHORT);
+	}
+
+	void setInt(int idx, int val) {
+		setLong(idx, val, INT);
+	}
+
+	void setLong(int idx, long val) {
+		setLong(idx, val, LONG);
+	}
+
+	void setFloat(int idx, float val) {
+		setDouble(idx, val, FLOAT);
+	}
+
+	void setDouble(int idx, double val) {
+		setDouble(idx, val, DOUBLE);
+	}
+
+	private void setLong(int idx, long val, byte kind) {
+		kinds[idx] = kind;
+		objects[idx] = null;
+		longs[idx] = val;
+	}
+
+	private void setDouble(int idx, double val, byte kind) {
+		kinds[idx] = kind;
+		objects[idx] = null;
+		doubles[idx] = val;
+	}
+
+	/**
+	 * Retrieves the class of a value, without boxing primitives
+	 *
+	 * @param idx Index of the value
+	 * @return Class of the (boxed) value or null if the value is null
+	 */
+	Class<?> getValueClass(int idx) {
+
+		switch(kinds[idx]) {
+		case BOOLEAN:
+			return Boolean.class;
+		case BYTE:
+			return Byte.class;
+		case SHORT:
+			return Short.class;
+		case INT:
+			return Integer.class;
+		case LONG:
+			return Long.class;
+		case FLOAT:
+			return Float.class;
+		case DOUBLE:
+			return Double.class;
+		default:
+			return objects[idx] != null ? objects[idx].getClass() : null;
+		}
+	}
+
+	/**
+	 * Encodes a primitive value directly in the binary format of the
+	 * given type, when the value can be represented exactly.
+	 *
+	 * @param idx Index of the value
+	 * @param type Parameter type to encode the value as
+	 * @param buffer Buffer to write the encoded value (length & data) to
+	 * @return True if the value was encoded, false if it is not a
+	 * 					primitive that is directly encodable as the type
+	 */
+	boolean encodePrimitive(int idx, Type type, ChannelBuffer buffer) {
+
+		byte kind = kinds[idx];
+		if(kind == OBJECT || type.getParameterFormat() != Format.Binary) {
+			return false;
+		}
+
+		switch(type.getBinaryCodec().encoder.getOutputPrimitiveType()) {
+		case Bool:
+			if(kind == BOOLEAN) {
+				buffer.writeInt(1);
+				buffer.writeByte((int) longs[idx]);
+				return true;
+			}
+			break;
+
+		case Int2:
+			if(kind == BYTE || kind == SHORT) {
+				buffer.writeInt(2);
+				buffer.writeShort((short) longs[idx]);
+				return true;
+			}
+			break;
+
+		case Int4:
+			if(kind == BYTE || kind == SHORT || kind == INT) {
+				buffer.writeInt(4);
+				buffer.writeInt((int) longs[idx]);
+				return true;
+			}
+			break;
+
+		case Int8:
+			if(kind == BYTE || kind == SHORT || kind == INT || kind == LONG) {
+				buffer.writeInt(8);
+				buffer.writeLong(longs[idx]);
+				return true;
+			}
+			break;
+
+		case Float:
+			if(kind == FLOAT) {
+				buffer.writeInt(4);
+				buffer.writeFloat((float) doubles[idx]);
+				return true;
+			}
+			break;
+
+		case Double:
+			if(kind == FLOAT || kind == DOUBLE) {
+				buffer.writeInt(8);
+				buffer.writeDouble(doubles[idx]);
+				return true;
+			}
+			break;
+
+		default:
+			break;
+		}
+
+		return false;
+	}
+
+}
@@ -3,8 +3,6 @@ package com.impossibl.postgres.jdbc;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.impossibl.postgres.jdbc.SQLTextTree.CommentPiece;
 import com.impossibl.postgres.jdbc.SQLTextTree.CompositeNode;
@@ -61,148 +59,197 @@ public class SQLText {
 	}
 	
 	/*
-	 * Lexical pattern for the parser that finds these things:
+	 * Single pass scanner for the parser that finds these things:
 	 *  > SQL identifier
-	 * 	> SQL quoted identifier (ignoring escaped double quotes)
-	 * 	> Single quoted strings (ignoring escaped single quotes)
+	 * 	> SQL quoted identifier
+	 * 	> Single quoted strings
+	 * 	> Dollar quoted strings
 	 * 	> SQL comments... from "--" to end of line
 	 *  > C-Style comments (including nested sections)
+	 *  > Numeric literals
 	 *  > ? Parameter placeholders
 	 *  > ; Statement breaks
+	 *  > { } Escapes, ( ) groups & , separators
+	 *  
+	 * Anything else is collected, as is, into grammar pieces.
 	 */
-	private static final Pattern LEXER = Pattern
-			.compile(
-					"(?:\"((?:[^\"\"]|\\\\.)*)\")|" +										/* Quoted identifier */
-					"(?:'((?:[^\'\']|\\\\.)*)')|" +											/* String literal */
-					"((?:\\-\\-.*$)|(?:/\\*(?:(?:.|\\n)*)\\*/))|" +			/* Comments */
-					"(\\?)|" +																					/* Parameter marker */
-					"(;)|" +																						/* Statement break */
-					"(\\{|\\})|" +																			/* Escape open/close */
-					"([a-zA-Z_][\\w_]*)|" +															/* Unquoted identifier */
-					"((?:[+-]?(?:\\d+)?(?:\\.\\d+(?:[eE][+-]?\\d+)?))|(?:[+-]?\\d+))|" + /* Numeric literal */
-					"(\\(|\\))|" +																			/* Parens (grouping) */
-					"(,)|" +																						/* Comma (breaking) */
-					"(\\s+)|" +																					/* Whitespace */
-					"(\\$\\w*\\$)",																			/* Dollar quote */
-					Pattern.MULTILINE);
-	
 	public static MultiStatementNode parse(String sql) throws ParseException {
 		
 		Stack<CompositeNode> parents = new Stack<CompositeNode>();
 		
 		parents.push(new MultiStatementNode(0));
 		parents.push(new StatementNode(0));
-
-		Matcher matcher = LEXER.matcher(sql);
-
+		
 		int paramId = 1;
-		int startIdx = 0;
+		int grammarStart = -1;
+		int pos = 0;
+		int len = sql.length();
 		
-		try {
-
-			while(matcher.find(startIdx)) {
+		while(pos < len) {
+			
+			char ch = sql.charAt(pos);
+			int end = -1;
+			
+			switch(ch) {
+			case '"':
 				
-				//Add the unmatched region as grammar...
-				if(startIdx != matcher.start()) {
-					String txt = sql.substring(startIdx, matcher.start()).trim();
-					parents.peek().add(new GrammarPiece(txt, matcher.start()));
-				}
-	
-				startIdx = matcher.end();
-
-				//Add whatever we matched...
-				String val;
-				if((val = matcher.group(1)) != null) {
-					
-					parents.peek().add(new QuotedIdentifierPiece(val, matcher.start()));
-				}
-				else if((val = matcher.group(2)) != null) {
+				end = sql.indexOf('"', pos + 1);
+				if(end != -1) {
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
 					
-					parents.peek().add(new StringLiteralPiece(val, matcher.start()));
+					parents.peek().add(new QuotedIdentifierPiece(sql.substring(pos + 1, end), pos));
+					pos = end + 1;
+					continue;
 				}
-				else if((val = matcher.group(3)) != null) {
+				break;
+				
+			case '\'':
+				
+				end = sql.indexOf('\'', pos + 1);
+				if(end != -1) {
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
 					
-					parents.peek().add(new CommentPiece(val, matcher.start()));
+					parents.peek().add(new StringLiteralPiece(sql.substring(pos + 1, end), pos));
+					pos = end + 1;
+					continue;
 				}
-				else if((val = matcher.group(4)) != null) {
+				break;
+				
+			case '-':
+				
+				if(pos + 1 < len && sql.charAt(pos + 1) == '-') {
+					end = findLineEnd(sql, pos + 2);
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
 					
-					parents.peek().add(new ParameterPiece(paramId++, matcher.start()));
+					parents.peek().add(new CommentPiece(sql.substring(pos, end), pos));
+					pos = end;
+					continue;
 				}
-				else if((val = matcher.group(5)) != null) {
-					
-					if(parents.size() == 2) {
-						
-						paramId = 1;
-						
-						CompositeNode comp = parents.pop();
-						comp.setEndPos(matcher.end());
-						parents.peek().add(comp);					
-						parents.push(new StatementNode(matcher.start()));
-					}
-					else {
+				end = findNumericEnd(sql, pos);
+				break;
+				
+			case '/':
+				
+				if(pos + 1 < len && sql.charAt(pos + 1) == '*') {
+					end = findBlockCommentEnd(sql, pos);
+					if(end != -1) {
+						addGrammar(parents, sql, grammarStart, pos);
+						grammarStart = -1;
 						
-						parents.peek().add(new GrammarPiece(val, matcher.start()));
+						parents.peek().add(new CommentPiece(sql.substring(pos, end), pos));
+						pos = end;
+						continue;
 					}
-					
 				}
-				else if((val = matcher.group(6)) != null) {
+				break;
+				
+			case '?':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				parents.peek().add(new ParameterPiece(paramId++, pos));
+				pos += 1;
+				continue;
+				
+			case ';':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				if(parents.size() == 2) {
 					
-					if(val.equals("{")) {
-						parents.push(new EscapeNode(matcher.start()));
-					}
-					else {
-						
-						if(parents.peek() instanceof EscapeNode) {
-							
-							EscapeNode tmp = (EscapeNode) parents.pop();
-							tmp.setEndPos(matcher.end());
-							parents.peek().add(tmp);
-						}
-						else {
-							
-							throw new ParseException("Mismatched curly brace", matcher.start());
-						}
-					}
+					paramId = 1;
+					
+					CompositeNode comp = parents.pop();
+					comp.setEndPos(pos + 1);
+					parents.peek().add(comp);
+					parents.push(new StatementNode(pos));
 				}
-				else if((val = matcher.group(7)) != null) {
-	
-					parents.peek().add(new UnquotedIdentifierPiece(val, matcher.start()));
+				else {
+					
+					parents.peek().add(new GrammarPiece(";", pos));
 				}
-				else if((val = matcher.group(8)) != null) {
-	
-					parents.peek().add(new NumericLiteralPiece(val, matcher.start()));
+				pos += 1;
+				continue;
+				
+			case '{':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				parents.push(new EscapeNode(pos));
+				pos += 1;
+				continue;
+				
+			case '}':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				if(parents.peek() instanceof EscapeNode) {
+					
+					EscapeNode tmp = (EscapeNode) parents.pop();
+					tmp.setEndPos(pos + 1);
+					parents.peek().add(tmp);
 				}
-				else if((val = matcher.group(9)) != null) {
-	
-					if(val.equals("(")) {
-						parents.push(new ParenGroupNode(matcher.start()));
-					}
-					else {
-
-						if(parents.peek() instanceof ParenGroupNode) {
-							
-							ParenGroupNode tmp = (ParenGroupNode) parents.pop();
-							tmp.setEndPos(matcher.end());
-							parents.peek().add(tmp);
-						}
-						else {
-							
-							throw new ParseException("Mismmatched parenthesis", matcher.start());
-						}
-					}
+				else {
+					
+					throw new ParseException("Mismatched curly brace", pos);
 				}
-				else if((val = matcher.group(10)) != null) {
-	
-					parents.peek().add(new GrammarPiece(",", matcher.start()));
+				pos += 1;
+				continue;
+				
+			case '(':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				parents.push(new ParenGroupNode(pos));
+				pos += 1;
+				continue;
+				
+			case ')':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				if(parents.peek() instanceof ParenGroupNode) {
+					
+					ParenGroupNode tmp = (ParenGroupNode) parents.pop();
+					tmp.setEndPos(pos + 1);
+					parents.peek().add(tmp);
 				}
-				else if((val = matcher.group(11)) != null) {
-	
-					parents.peek().add(new WhitespacePiece(val, matcher.start()));
+				else {
+					
+					throw new ParseException("Mismmatched parenthesis", pos);
 				}
-				else if((val = matcher.group(12)) != null) {
-
+				pos += 1;
+				continue;
+				
+			case ',':
+				
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
+				
+				parents.peek().add(new GrammarPiece(",", pos));
+				pos += 1;
+				continue;
+				
+			case '$':
+				
+				end = findDollarTagEnd(sql, pos);
+				if(end != -1) {
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
+					
+					String tag = sql.substring(pos, end);
+					
 					//Find the end of the $$ quoted block
-					int pos = sql.indexOf(val, matcher.end());
+					int closePos = sql.indexOf(tag, end);
 					
 					//Is this part of an identifier?
 					boolean ident = parents.peek().getLastNode() instanceof UnquotedIdentifierPiece;
@@ -211,58 +258,263 @@ public class SQLText {
 					//	a) need to be closed
 					//	b) must not be adjacent to an identifier
 					
-					if(!ident && pos != -1) {
-
-						String quotedText = sql.substring(matcher.end(), pos);
-						
-						parents.peek().add(new StringLiteralPiece(quotedText, val, matcher.start()));
-						
-						startIdx = pos + val.length();
+					if(!ident && closePos != -1) {
 						
+						parents.peek().add(new StringLiteralPiece(sql.substring(end, closePos), tag, pos));
+						pos = closePos + tag.length();
 					}
 					else {
-					
+						
 						//No end found... treat it as grammar
-						parents.peek().add(new GrammarPiece(val, matcher.start()));
+						parents.peek().add(new GrammarPiece(tag, pos));
+						pos = end;
 					}
+					continue;
+				}
+				break;
+				
+			case '+':
+			case '.':
+			case '0': case '1': case '2': case '3': case '4':
+			case '5': case '6': case '7': case '8': case '9':
+				
+				end = findNumericEnd(sql, pos);
+				break;
+				
+			default:
+				
+				if(isIdentifierStart(ch)) {
 					
+					end = pos + 1;
+					while(end < len && isIdentifierPart(sql.charAt(end))) {
+						end++;
+					}
+					
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
+					
+					parents.peek().add(new UnquotedIdentifierPiece(sql.substring(pos, end), pos));
+					pos = end;
+					continue;
+				}
+				else if(isWhitespace(ch)) {
+					
+					end = pos + 1;
+					while(end < len && isWhitespace(sql.charAt(end))) {
+						end++;
+					}
+					
+					addGrammar(parents, sql, grammarStart, pos);
+					grammarStart = -1;
+					
+					parents.peek().add(new WhitespacePiece(sql.substring(pos, end), pos));
+					pos = end;
+					continue;
 				}
 				
 			}
 			
-			//Add last grammar node
-			if(startIdx != sql.length()) {
-				parents.peek().add(new GrammarPiece(sql.substring(startIdx), startIdx));
-			}
-			
-			//Auto close last statement
-			if(parents.peek() instanceof StatementNode) {
-				
-				StatementNode stmt = (StatementNode) parents.peek();
+			//Numeric literal (found above for sign, dot & digit characters)
+			if(end != -1) {
 				
-				stmt.trim();
+				addGrammar(parents, sql, grammarStart, pos);
+				grammarStart = -1;
 				
-				if(stmt.getNodeCount() > 0) {
-					CompositeNode tmp = parents.pop();
-					tmp.setEndPos(startIdx);
-					parents.peek().add(tmp);
-				}
+				parents.peek().add(new NumericLiteralPiece(sql.substring(pos, end), pos));
+				pos = end;
+				continue;
 			}
 			
-			return (MultiStatementNode)parents.get(0);
+			//Nothing recognized... accumulate as grammar
+			if(grammarStart == -1) {
+				grammarStart = pos;
+			}
+			pos += 1;
+		}
+		
+		//Add last grammar node
+		if(grammarStart != -1) {
+			parents.peek().add(new GrammarPiece(sql.substring(grammarStart), grammarStart));
+		}
+		
+		//Auto close last statement
+		if(parents.peek() instanceof StatementNode) {
+			
+			StatementNode stmt = (StatementNode) parents.peek();
 			
+			stmt.trim();
+			
+			if(stmt.getNodeCount() > 0) {
+				CompositeNode tmp = parents.pop();
+				tmp.setEndPos(len);
+				parents.peek().add(tmp);
+			}
 		}
-		catch(ParseException e) {
-			throw e;
+		else if(parents.peek() instanceof EscapeNode) {
+			
+			throw new ParseException("Mismatched curly brace", parents.peek().getStartPos());
 		}
-		catch(Exception e) {
+		else {
 			
-			//Grab about 10 characters to report context of error
-			String errorTxt = sql.substring(startIdx, Math.min(sql.length(), startIdx+10));
+			throw new ParseException("Mismmatched parenthesis", parents.peek().getStartPos());
+		}
+		
+		return (MultiStatementNode)parents.get(0);
+	}
+	
+	/**
+	 * Adds the unrecognized text between start & end (if any) as grammar
+	 */
+	private static void addGrammar(Stack<CompositeNode> parents, String sql, int start, int end) {
+		
+		if(start == -1 || start == end)
+			return;
+		
+		parents.peek().add(new GrammarPiece(sql.substring(start, end).trim(), start));
+	}
+	
+	private static boolean isIdentifierStart(char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_';
+	}
+	
+	private static boolean isIdentifierPart(char ch) {
+		return isIdentifierStart(ch) || isDigit(ch);
+	}
+	
+	private static boolean isDigit(char ch) {
+		return ch >= '0' && ch <= '9';
+	}
+	
+	private static boolean isWhitespace(char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f' || ch == '\u000B';
+	}
+	
+	private static boolean isLineTerminator(char ch) {
+		return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+	}
+	
+	/**
+	 * Finds the end of a line comment; the line terminator is not included
+	 */
+	private static int findLineEnd(String sql, int pos) {
+		
+		int len = sql.length();
+		while(pos < len && !isLineTerminator(sql.charAt(pos))) {
+			pos++;
+		}
+		
+		return pos;
+	}
+	
+	/**
+	 * Finds the end of a (possibly nested) block comment starting at pos
+	 * 
+	 * @return Position after the comment or -1 if the comment is unterminated
+	 */
+	private static int findBlockCommentEnd(String sql, int pos) {
+		
+		int len = sql.length();
+		int depth = 1;
+		
+		pos += 2;
+		
+		while(pos < len - 1) {
+			
+			char ch = sql.charAt(pos);
+			char next = sql.charAt(pos + 1);
+			
+			if(ch == '/' && next == '*') {
+				depth++;
+				pos += 2;
+			}
+			else if(ch == '*' && next == '/') {
+				pos += 2;
+				if(--depth == 0) {
+					return pos;
+				}
+			}
+			else {
+				pos++;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Finds the end of a dollar quote tag (e.g. $$ or $tag$) starting at pos
+	 * 
+	 * @return Position after the tag or -1 if pos does not start a tag
+	 */
+	private static int findDollarTagEnd(String sql, int pos) {
+		
+		int len = sql.length();
+		
+		pos += 1;
+		while(pos < len && isIdentifierPart(sql.charAt(pos))) {
+			pos++;
+		}
+		
+		if(pos < len && sql.charAt(pos) == '$') {
+			return pos + 1;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Finds the end of a numeric literal (e.g. 10, -1.5, .5e-10) starting
+	 * at pos
+	 * 
+	 * @return Position after the literal or -1 if pos does not start a literal
+	 */
+	private static int findNumericEnd(String sql, int pos) {
+		
+		int len = sql.length();
+		
+		if(pos < len && (sql.charAt(pos) == '+' || sql.charAt(pos) == '-')) {
+			pos++;
+		}
+		
+		int intStart = pos;
+		while(pos < len && isDigit(sql.charAt(pos))) {
+			pos++;
+		}
+		int intEnd = pos;
+		
+		//Fraction (and optional exponent)
+		if(pos + 1 < len && sql.charAt(pos) == '.' && isDigit(sql.charAt(pos + 1))) {
 			
-			throw new ParseException("Error near: " + errorTxt, startIdx);
+			pos += 2;
+			while(pos < len && isDigit(sql.charAt(pos))) {
+				pos++;
+			}
+			
+			if(pos < len && (sql.charAt(pos) == 'e' || sql.charAt(pos) == 'E')) {
+				
+				int expPos = pos + 1;
+				if(expPos < len && (sql.charAt(expPos) == '+' || sql.charAt(expPos) == '-')) {
+					expPos++;
+				}
+				
+				if(expPos < len && isDigit(sql.charAt(expPos))) {
+					
+					while(expPos < len && isDigit(sql.charAt(expPos))) {
+						expPos++;
+					}
+					
+					pos = expPos;
+				}
+			}
+			
+			return pos;
+		}
+		
+		if(intEnd != intStart) {
+			return intEnd;
 		}
 		
+		return -1;
 	}
 
 }
@@ -0,0 +1,133 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.SQLException;
+import java.text.ParseException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.impossibl.postgres.jdbc.SQLTextTree.Node;
+import com.impossibl.postgres.jdbc.SQLTextTree.ParameterPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.Processor;
+import com.impossibl.postgres.system.Context;
+
+
+
+/**
+ * Cache of JDBC SQL text translated into native (PostgreSQL) SQL text.
+ *
+ * Translation (parsing, parameter placeholder rewriting & escape
+ * processing) depends on nothing but the SQL text itself so a single
+ * cache is shared by all connections.
+ */
+class SQLTextCache {
+
+	/**
+	 * Result of translating a single SQL string
+	 */
+	static class Entry {
+
+		final String nativeSQL;
+		final int parameterCount;
+		final int statementCount;
+		final MultiRowInsert multiRowInsert;
+		final InListRewrite inListRewrite;
+
+		Entry(String nativeSQL, int parameterCount, int statementCount, MultiRowInsert multiRowInsert, InListRewrite inListRewrite) {
+			this.nativeSQL = nativeSQL;
+			this.parameterCount = parameterCount;
+			this.statementCount = statementCount;
+			this.multiRowInsert = multiRowInsert;
+			this.inListRewrite = inListRewrite;
+		}
+
+	}
+
+	/**
+	 * Maximum total size (in characters of source and native text) of
+	 * all cached entries
+	 */
+	private static final long MAX_WEIGHT = 4 * 1024 * 1024;
+
+	private static final Cache<String, Entry> cache = CacheBuilder.newBuilder()
+			.maximumWeight(MAX_WEIGHT)
+			.weigher(new Weigher<String, Entry>() {
+
+				@Override
+				public int weigh(String key, Entry value) {
+					return key.length() + value.nativeSQL.length();
+				}
+
+			})
+			.build();
+
+	/**
+	 * Retrieves the translation of the given SQL text, translating &
+	 * caching it if it has not been seen before.
+	 *
+	 * @param sql JDBC SQL text
+	 * @param context Context used for escape processing
+	 * @return Translated SQL
+	 * @throws SQLException If the SQL cannot be parsed or contains invalid escapes
+	 */
+	static Entry get(String sql, Context context) throws SQLException {
+
+		Entry entry = cache.getIfPresent(sql);
+		if(entry == null) {
+
+			entry = translate(parse(sql), context);
+
+			cache.put(sql, entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Parses SQL text, without caching
+	 *
+	 * @param sql SQL text to parse
+	 * @return Parsed SQL text
+	 * @throws SQLException If the SQL cannot be parsed
+	 */
+	static SQLText parse(String sql) throws SQLException {
+		try {
+			return new SQLText(sql);
+		}
+		catch(ParseException e) {
+
+			throw new SQLException("Error parsing SQL at position " + e.getErrorOffset());
+		}
+	}
+
+	/**
+	 * Translates already parsed SQL text, without caching
+	 *
+	 * @param sqlText Parsed SQL text; escapes are processed in place
+	 * @param context Context used for escape processing
+	 * @return Translated SQL
+	 * @throws SQLException If the SQL text contains invalid escapes
+	 */
+	static Entry translate(SQLText sqlText, Context context) throws SQLException {
+
+		SQLTextEscapes.processEscapes(sqlText, context);
+
+		final int[] parameterCount = new int[1];
+		sqlText.process(new Processor() {
+
+			@Override
+			public Node process(Node node) throws SQLException {
+				if(node instanceof ParameterPiece)
+					parameterCount[0] += 1;
+				return node;
+			}
+
+		}, true);
+
+		MultiRowInsert multiRowInsert = MultiRowInsert.analyze(sqlText, parameterCount[0]);
+		InListRewrite inListRewrite = InListRewrite.analyze(sqlText, parameterCount[0]);
+
+		return new Entry(sqlText.toString(), parameterCount[0], sqlText.getStatementCount(), multiRowInsert, inListRewrite);
+	}
+
+}
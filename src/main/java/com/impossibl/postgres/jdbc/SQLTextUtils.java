@@ -8,8 +8,13 @@ import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
 import java.util.Iterator;
 import java.util.List;
 
+import com.impossibl.postgres.jdbc.SQLTextTree.CommentPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.CompositeNode;
 import com.impossibl.postgres.jdbc.SQLTextTree.GrammarPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.Node;
 import com.impossibl.postgres.jdbc.SQLTextTree.StatementNode;
+import com.impossibl.postgres.jdbc.SQLTextTree.UnquotedIdentifierPiece;
+import com.impossibl.postgres.jdbc.SQLTextTree.WhitespacePiece;
 
 
 /**
@@ -257,4 +262,47 @@ class SQLTextUtils {
 		return sb.toString();
 	}
 
+	/**
+	 * Finds the next node that is not whitespace or a comment
+	 * 
+	 * @param composite Composite node to search
+	 * @param idx Index of the node to start searching at
+	 * @return Index of the node found or the node count if there is none
+	 */
+	public static int nextSignificant(CompositeNode composite, int idx) {
+		
+		while(idx < composite.getNodeCount()) {
+			Node node = composite.get(idx);
+			if(!(node instanceof WhitespacePiece || node instanceof CommentPiece)) {
+				break;
+			}
+			idx++;
+		}
+		
+		return idx;
+	}
+	
+	/**
+	 * Tests if a node is the given (unquoted) keyword
+	 * 
+	 * @param node Node to test
+	 * @param keyword Keyword to test for, case is ignored
+	 * @return true if the node is the keyword
+	 */
+	public static boolean isKeyword(Node node, String keyword) {
+		return node instanceof UnquotedIdentifierPiece && ((UnquotedIdentifierPiece) node).getText().equalsIgnoreCase(keyword);
+	}
+	
+	/**
+	 * Tests if the node at an index is the given (unquoted) keyword
+	 * 
+	 * @param composite Composite node containing the node to test
+	 * @param idx Index of the node to test
+	 * @param keyword Keyword to test for, case is ignored
+	 * @return true if the node exists and is the keyword
+	 */
+	public static boolean isKeyword(CompositeNode composite, int idx, String keyword) {
+		return idx < composite.getNodeCount() && isKeyword(composite.get(idx), keyword);
+	}
+
 }
@@ -444,6 +444,9 @@ class SQLTypeUtils {
 		else if(val instanceof byte[]) {
 			return new String((byte[]) val, context.getCharset());
 		}
+		else if(val instanceof ChannelBuffer) {
+			return ((ChannelBuffer) val).toString(context.getCharset());
+		}
 		else {
 			return val.toString();
 		}
@@ -598,6 +601,12 @@ class SQLTypeUtils {
 		else if(val instanceof Blob) {
 			return (Blob) val;
 		}
+		else if(val instanceof ChannelBuffer) {
+			return new PGBufferBlob((ChannelBuffer) val);
+		}
+		else if(val instanceof byte[]) {
+			return new PGBufferBlob(ChannelBuffers.wrappedBuffer((byte[]) val));
+		}
 		else if(val instanceof Integer) {
 			return new PGBlob(connection, (int) val);
 		}
@@ -616,6 +625,12 @@ class SQLTypeUtils {
 		else if(val instanceof byte[]) {
 			return (byte[]) val;
 		}
+		else if(val instanceof ChannelBuffer) {
+			ChannelBuffer buffer = (ChannelBuffer) val;
+			byte[] bytes = new byte[buffer.readableBytes()];
+			buffer.getBytes(buffer.readerIndex(), bytes);
+			return bytes;
+		}
 		else if(val instanceof String) {
 			return ((String)val).getBytes(context.getCharset());
 		}
@@ -694,22 +709,20 @@ class SQLTypeUtils {
 					dst = Arrays.copyOfRange((Object[]) val, index, index + count);
 				}
 			}
-			else if(Array.get(val, 0) != null && elementClass.isAssignableFrom(Array.get(val, 0).getClass())) {
+			else {
 
 				dst = Array.newInstance(targetType.getComponentType(), count);
 
+				// Elements may be of mixed classes, only convert those that need it
 				for(int i = 0; i < count; ++i) {
-					Array.set(dst, i, Array.get(val, i));
-				}
-			}
-			else {
-
-				dst = Array.newInstance(targetType.getComponentType(), count);
 
-				for(int c = index, end = index + count; c < end; ++c) {
+					Object element = Array.get(val, index + i);
 
-					Array.set(dst, c, coerce(Array.get(val, c), type, elementClass, typeMap, connection));
+					if(element != null && !elementClass.isInstance(element)) {
+						element = coerce(element, type, elementClass, typeMap, connection);
+					}
 
+					Array.set(dst, i, element);
 				}
 
 			}
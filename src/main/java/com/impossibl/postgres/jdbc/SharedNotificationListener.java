@@ -0,0 +1,372 @@
+package com.impossibl.postgres.jdbc;
+
+import static com.impossibl.postgres.system.Settings.CREDENTIALS_USERNAME;
+import static com.impossibl.postgres.system.Settings.DATABASE_URL;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_SHARED_CHECK_INTERVAL;
+import static com.impossibl.postgres.system.Settings.NOTIFICATION_SHARED_CHECK_INTERVAL_DEFAULT;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.WARNING;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import com.impossibl.postgres.system.NotificationDispatcher;
+import com.impossibl.postgres.system.NotificationDispatcher.OverflowPolicy;
+import com.impossibl.postgres.system.NotificationDispatcher.Subscription;
+import com.impossibl.postgres.system.NotificationListener;
+import com.impossibl.postgres.system.NotificationSubscriber;
+
+
+
+/**
+ * Dedicated, driver managed, connection listening on behalf of all
+ * connections to the same database (and user) that enable the
+ * "notification.shared" setting. Subscriptions are independent of the
+ * connection they were made with, so pooled connections can be returned
+ * (or closed) while their subscriptions remain active.
+ *
+ * Each channel is listened to while it has at least one subscription;
+ * the connection itself is closed when no subscriptions remain. The
+ * connection is checked every "notification.shared.checkInterval"
+ * seconds and, when lost, is reopened and listens to all subscribed
+ * channels again. Notifications sent while disconnected are lost.
+ */
+class SharedNotificationListener implements NotificationListener {
+
+	private static Logger logger = Logger.getLogger(SharedNotificationListener.class.getName());
+
+	private static Map<String, SharedNotificationListener> listeners = new HashMap<>();
+	private static ScheduledExecutorService monitor;
+
+	String key;
+	PGDriver.ConnectionSpecifier connSpec;
+	Properties settings;
+	int checkInterval;
+	NotificationDispatcher dispatcher;
+	PGConnection connection;
+	ScheduledFuture<?> check;
+	boolean closed;
+
+	SharedNotificationListener(String key, PGDriver.ConnectionSpecifier connSpec, Properties settings) {
+		this.key = key;
+		this.connSpec = connSpec;
+		this.settings = settings;
+		this.dispatcher = new NotificationDispatcher();
+
+		try {
+			checkInterval = Integer.parseInt(settings.getProperty(NOTIFICATION_SHARED_CHECK_INTERVAL, Integer.toString(NOTIFICATION_SHARED_CHECK_INTERVAL_DEFAULT)));
+		}
+		catch(NumberFormatException e) {
+			checkInterval = NOTIFICATION_SHARED_CHECK_INTERVAL_DEFAULT;
+		}
+
+		checkInterval = max(checkInterval, 1);
+	}
+
+	/**
+	 * Subscribes to a channel via the shared listener of the database the
+	 * settings connect to
+	 *
+	 * @param settings Settings of the subscribing connection
+	 * @param channelName Name of the channel
+	 * @param subscriber Receiver of the channel's notifications
+	 * @param executor Executor used to deliver notifications, or null to
+	 * 					use the listener's default notification thread
+	 * @return Subscription
+	 * @throws SQLException If connecting or listening fails
+	 */
+	static PGNotificationSubscription subscribe(Properties settings, String channelName, NotificationSubscriber subscriber, Executor executor, int queueCapacity, OverflowPolicy overflowPolicy, int maxBatchSize) throws SQLException {
+
+		String url = settings.getProperty(DATABASE_URL);
+		String key = url + "#" + settings.getProperty(CREDENTIALS_USERNAME, "");
+
+		while(true) {
+
+			// Only finding (or creating) the listener requires the registry
+			// lock; connecting is done while holding the listener's own lock
+			SharedNotificationListener listener;
+
+			synchronized(listeners) {
+
+				listener = listeners.get(key);
+				if(listener == null) {
+
+					PGDriver.ConnectionSpecifier connSpec = PGDriver.parseURL(url);
+					if(connSpec == null) {
+						throw new SQLException("Invalid database URL: " + url);
+					}
+
+					Properties listenerSettings = new Properties();
+					listenerSettings.putAll(settings);
+
+					listener = new SharedNotificationListener(key, connSpec, listenerSettings);
+					listeners.put(key, listener);
+				}
+
+			}
+
+			Subscription subscription = listener.add(channelName, subscriber, executor, queueCapacity, overflowPolicy, maxBatchSize);
+			if(subscription != null) {
+				return new PGNotificationSubscription(listener, subscription);
+			}
+
+			// Closed after it was found; retry with a new listener
+			listener.unregister();
+		}
+
+	}
+
+	/**
+	 * @return Number of databases with an active shared listener
+	 */
+	static int getListenerCount() {
+
+		synchronized(listeners) {
+			return listeners.size();
+		}
+
+	}
+
+	/**
+	 * Removes a subscription, unlistening from its channel when it was the
+	 * last one, and closing the listener when no subscriptions remain
+	 *
+	 * @param subscription Subscription to remove
+	 * @throws SQLException If unlistening fails
+	 */
+	void unsubscribe(Subscription subscription) throws SQLException {
+
+		synchronized(this) {
+
+			if(!dispatcher.remove(subscription)) {
+				return;
+			}
+
+			if(!dispatcher.getChannelNames().isEmpty()) {
+
+				if(connection != null) {
+					connection.execute("UNLISTEN " + Identifiers.escape(subscription.getChannelName()), false);
+				}
+
+				return;
+			}
+
+			close();
+		}
+
+		unregister();
+	}
+
+	/**
+	 * Adds a subscription, connecting and/or listening to its channel as
+	 * required
+	 *
+	 * @return Subscription or null if the listener has been closed and
+	 * 					cannot be used
+	 * @throws SQLException If connecting or listening fails
+	 */
+	private Subscription add(String channelName, NotificationSubscriber subscriber, Executor executor, int queueCapacity, OverflowPolicy overflowPolicy, int maxBatchSize) throws SQLException {
+
+		Subscription subscription;
+		SQLException error;
+
+		synchronized(this) {
+
+			if(closed) {
+				return null;
+			}
+
+			if(executor == null) {
+				executor = dispatcher.getDefaultExecutor();
+			}
+
+			subscription = new Subscription(channelName, subscriber, executor, queueCapacity, overflowPolicy, maxBatchSize);
+
+			if(!dispatcher.add(subscription)) {
+				return subscription;
+			}
+
+			try {
+
+				if(connection == null) {
+					connect();
+				}
+
+				connection.execute("LISTEN " + Identifiers.escape(channelName), false);
+
+				return subscription;
+			}
+			catch(SQLException e) {
+				error = e;
+			}
+
+		}
+
+		unsubscribe(subscription);
+
+		throw error;
+	}
+
+	private void connect() throws SQLException {
+
+		connection = PGDriver.connect(connSpec, settings);
+		connection.addNotificationListener(this);
+
+		if(check == null) {
+			check = getMonitor().scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						check();
+					}
+					catch(RuntimeException e) {
+						// Keep monitoring; an exception would cancel the task
+						logger.log(WARNING, "Unable to check shared notification listener (" + key + ")", e);
+					}
+				}
+
+			}, checkInterval, checkInterval, SECONDS);
+		}
+
+	}
+
+	/**
+	 * Reopens the connection, and listens to all subscribed channels again,
+	 * if it has been lost. The connection is validated without holding the
+	 * listener's lock so subscribing is not blocked meanwhile.
+	 */
+	void check() {
+
+		PGConnection current;
+
+		synchronized(this) {
+
+			if(closed) {
+				return;
+			}
+
+			current = connection;
+		}
+
+		try {
+
+			if(current != null && current.isValid(checkInterval)) {
+				return;
+			}
+
+		}
+		catch(SQLException e) {
+			// Treated as lost
+		}
+
+		synchronized(this) {
+
+			// Closed, or already reconnected, meanwhile
+			if(closed || connection != current) {
+				return;
+			}
+
+			try {
+
+				disconnect();
+
+				connect();
+
+				for(String channelName : dispatcher.getChannelNames()) {
+					connection.execute("LISTEN " + Identifiers.escape(channelName), false);
+				}
+
+			}
+			catch(SQLException e) {
+
+				logger.log(WARNING, "Unable to reconnect shared notification listener (" + key + ")", e);
+
+				disconnect();
+			}
+
+		}
+
+	}
+
+	private void disconnect() {
+
+		if(connection == null) {
+			return;
+		}
+
+		try {
+			connection.internalClose();
+		}
+		catch(SQLException e) {
+			// Closing anyway...
+		}
+
+		connection = null;
+	}
+
+	/**
+	 * Closes the connection and stops monitoring it; must be called while
+	 * holding the listener's lock
+	 */
+	private void close() {
+
+		closed = true;
+
+		if(check != null) {
+			check.cancel(false);
+			check = null;
+		}
+
+		disconnect();
+
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * Removes the (closed) listener from the registry
+	 */
+	private void unregister() {
+
+		synchronized(listeners) {
+			if(listeners.get(key) == this) {
+				listeners.remove(key);
+			}
+		}
+
+	}
+
+	@Override
+	public void notification(int processId, String channelName, String payload) {
+
+		dispatcher.dispatch(processId, channelName, payload);
+	}
+
+	private static synchronized ScheduledExecutorService getMonitor() {
+
+		if(monitor == null) {
+			monitor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PG-JDBC Shared Notification Monitor");
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+		return monitor;
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.impossibl.postgres.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.impossibl.postgres.protocol.ResultField;
+import com.impossibl.postgres.types.Type;
+
+
+
+/**
+ * Cache of server provided statement descriptions (parameter types &
+ * result fields), keyed by native SQL text and the parameter types it
+ * was parsed with.
+ *
+ * With a known description a statement can be parsed, bound & executed
+ * in a single round trip. Descriptions depend on the connection's types
+ * and schema so each connection keeps its own cache.
+ */
+class StatementDescriptionCache {
+
+	/**
+	 * Server's description of a parsed statement
+	 */
+	static class Description {
+
+		final List<Type> parameterTypes;
+		final List<ResultField> resultFields;
+
+		Description(List<Type> parameterTypes, List<ResultField> resultFields) {
+			this.parameterTypes = Collections.unmodifiableList(new ArrayList<>(parameterTypes));
+			this.resultFields = resultFields;
+		}
+
+	}
+
+	private static class Key {
+
+		String sqlText;
+		List<Type> parameterTypes;
+
+		Key(String sqlText, List<Type> parameterTypes) {
+			this.sqlText = sqlText;
+			this.parameterTypes = parameterTypes;
+		}
+
+		@Override
+		public int hashCode() {
+			return sqlText.hashCode() * 31 + parameterTypes.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj)
+				return true;
+			if(obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return sqlText.equals(other.sqlText) && parameterTypes.equals(other.parameterTypes);
+		}
+
+	}
+
+	/**
+	 * Maximum number of cached descriptions
+	 */
+	private static final int MAX_SIZE = 256;
+
+	private Cache<Key, Description> cache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_SIZE)
+			.build();
+
+	/**
+	 * Retrieves the description of a statement
+	 *
+	 * @param sqlText Native SQL text of the statement
+	 * @param parameterTypes Parameter types the statement would be parsed
+	 * 					with; unknown types are null
+	 * @return Description or null if none is cached
+	 */
+	Description get(String sqlText, List<Type> parameterTypes) {
+		return cache.getIfPresent(new Key(sqlText, parameterTypes));
+	}
+
+	/**
+	 * Caches the description of a statement. It is stored for the types
+	 * the statement was parsed with as well as the described types, so
+	 * later lookups with either succeed.
+	 *
+	 * @param sqlText Native SQL text of the statement
+	 * @param parseParameterTypes Parameter types the statement was parsed with
+	 * @param describedParameterTypes Parameter types described by the server
+	 * @param resultFields Result fields described by the server
+	 */
+	void put(String sqlText, List<Type> parseParameterTypes, List<Type> describedParameterTypes, List<ResultField> resultFields) {
+
+		Description description = new Description(describedParameterTypes, resultFields);
+
+		cache.put(new Key(sqlText, new ArrayList<>(parseParameterTypes)), description);
+		cache.put(new Key(sqlText, description.parameterTypes), description);
+	}
+
+	/**
+	 * Removes the description of a statement (e.g. because it may be out
+	 * of date)
+	 *
+	 * @param sqlText Native SQL text of the statement
+	 * @param parameterTypes Parameter types the description was retrieved with
+	 */
+	void invalidate(String sqlText, List<Type> parameterTypes) {
+		cache.invalidate(new Key(sqlText, parameterTypes));
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.impossibl.postgres.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+
+
+/**
+ * Connection that can decode query results directly into application
+ * row objects, bypassing the ResultSet layer entirely. Available via
+ * {@link Connection#unwrap(Class)}.
+ *
+ * Rows are built with the same mapping rules used internally by the
+ * driver:
+ * <ul>
+ * <li>Object[] - values in column order</li>
+ * <li>List/Map implementations - values in column order/keyed by column
+ * name</li>
+ * <li>Beans - public, no-arg constructible classes whose properties or
+ * public fields are matched to column names</li>
+ * </ul>
+ * Values are assigned exactly as decoded from the server, without
+ * any JDBC style coercion; columns that do not match a property are
+ * ignored.
+ */
+public interface TypedQueryConnection extends Connection {
+
+	/**
+	 * Executes a query and decodes every row into a new instance of
+	 * the row type.
+	 *
+	 * @param sql SQL text of the query; parameters are referenced with
+	 * 					"?" placeholders as in a PreparedStatement
+	 * @param rowType Type of row object to create for each result row
+	 * @param parameters Parameter values in order
+	 * @return List of row objects, empty when the query returns no rows
+	 * @throws SQLException If the query fails or the parameters do not
+	 * 					match the query
+	 */
+	<T> List<T> query(String sql, Class<T> rowType, Object... parameters) throws SQLException;
+
+}
@@ -1,10 +1,16 @@
 package com.impossibl.postgres.mapper;
 
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 
 
 /**
- * PropertySetter for a bean using a reflection Field
+ * PropertySetter for a bean using a public field. The field is resolved
+ * to a setter MethodHandle once so each set is a direct field store
+ * instead of a reflective call.
  * 
  * @author kdubb
  *
@@ -12,20 +18,25 @@ import java.lang.reflect.Field;
 public class FieldPropertySetter implements PropertySetter {
 
 	Field field;
+	MethodHandle handle;
 
-	public FieldPropertySetter(Field field) {
+	public FieldPropertySetter(Field field) throws IllegalAccessException {
 		super();
 		this.field = field;
 		this.field.setAccessible(true);
+		this.handle = MethodHandles.lookup().unreflectSetter(field).asType(methodType(void.class, Object.class, Object.class));
 	}
 
 	@Override
 	public void set(Object instance, Object value) {
 
 		try {
-			field.set(instance, value);
+			handle.invokeExact(instance, value);
+		}
+		catch(Error e) {
+			throw e;
 		}
-		catch(IllegalArgumentException | IllegalAccessException e) {
+		catch(Throwable e) {
 			// Ignore mapping errors (they shouldn't happen)
 		}
 	}
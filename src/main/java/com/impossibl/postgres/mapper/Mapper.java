@@ -1,6 +1,7 @@
 package com.impossibl.postgres.mapper;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
@@ -9,7 +10,11 @@ import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.impossibl.postgres.protocol.ResultField;
 
 
@@ -22,14 +27,66 @@ import com.impossibl.postgres.protocol.ResultField;
  */
 public class Mapper {
 	
+	private static final int MAPPING_CACHE_SIZE = 32;
+	
+	/**
+	 * Mappings grouped by row type, each keyed by the names of the fields in
+	 * order. Row types are held weakly (and their mappings softly, as the
+	 * setters reference the row type) so cached mappings do not pin
+	 * application class loaders.
+	 */
+	private static final Cache<Class<?>, Cache<List<String>, List<PropertySetter>>> mappingCache =
+			CacheBuilder.newBuilder().weakKeys().softValues().build();
+	
+	/**
+	 * Builds a list of mapping setters for the row and fields. Mappings
+	 * are cached by row type and field names so repeated requests for
+	 * the same shape of result are cheap.
+	 * 
+	 * @param rowType Row type to map to
+	 * @param fields Result fields to map from
+	 * @return List of setters that can perform the mapping
+	 */
+	public static List<PropertySetter> buildMapping(final Class<?> rowType, final List<ResultField> fields) {
+		
+		String[] fieldNames = new String[fields.size()];
+		for(int c=0; c < fieldNames.length; ++c) {
+			fieldNames[c] = fields.get(c).name;
+		}
+		
+		try {
+			Cache<List<String>, List<PropertySetter>> rowTypeCache = mappingCache.get(rowType, new Callable<Cache<List<String>, List<PropertySetter>>>() {
+
+				@Override
+				public Cache<List<String>, List<PropertySetter>> call() {
+					return CacheBuilder.newBuilder().maximumSize(MAPPING_CACHE_SIZE).build();
+				}
+
+			});
+			
+			return rowTypeCache.get(asList(fieldNames), new Callable<List<PropertySetter>>() {
+
+				@Override
+				public List<PropertySetter> call() {
+					return createMapping(rowType, fields);
+				}
+				
+			});
+		}
+		catch(ExecutionException e) {
+			// createMapping throws no checked exceptions
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
 	/**
-	 * Builds a list of mapping setters for the row and fields.
+	 * Creates a new (uncached) list of mapping setters for the row and fields.
 	 * 
 	 * @param rowType Row type to map to
 	 * @param fields Result fields to map from
 	 * @return List of setters that can perform the mapping
 	 */
-	public static List<PropertySetter> buildMapping(Class<?> rowType, List<ResultField> fields) {
+	protected static List<PropertySetter> createMapping(Class<?> rowType, List<ResultField> fields) {
 
 		PropertySetter[] setters;
 		
@@ -46,7 +103,7 @@ public class Mapper {
 			setters = initBeanSetters(rowType, fields);
 		}
 		
-		return asList(setters);
+		return unmodifiableList(asList(setters));
 	}
 	
 	/**
@@ -126,16 +183,26 @@ public class Mapper {
 
 			//Look for a valid property to map to
 			PropertyDescriptor propDesc = findPropertyDescriptor(propDescs, fields.get(c).name);
-			if(propDesc != null) {
-				setters[c] = new MethodPropertySetter(propDesc.getWriteMethod());
-				continue;
+			if(propDesc != null && propDesc.getWriteMethod() != null) {
+				try {
+					setters[c] = new MethodPropertySetter(propDesc.getWriteMethod());
+					continue;
+				}
+				catch(IllegalAccessException | RuntimeException e) {
+					//Ignore...
+				}
 			}
 			
 			//Look for a valid field to map to
 			Field field = findField(instanceType, fields.get(c).name);
 			if(field != null) {
-				setters[c] = new FieldPropertySetter(field);
-				continue;
+				try {
+					setters[c] = new FieldPropertySetter(field);
+					continue;
+				}
+				catch(IllegalAccessException | RuntimeException e) {
+					//Ignore...
+				}
 			}
 			
 			//Can't find a valid property setter
@@ -1,11 +1,16 @@
 package com.impossibl.postgres.mapper;
 
-import java.lang.reflect.InvocationTargetException;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 
 
 /**
- * PropertySetter for a bean using a reflection Method
+ * PropertySetter for a bean using a setter method. The method is
+ * resolved to a MethodHandle once so each set is a direct invocation
+ * instead of a reflective call.
  * 
  * @author kdubb
  *
@@ -13,20 +18,25 @@ import java.lang.reflect.Method;
 public class MethodPropertySetter implements PropertySetter {
 
 	Method method;
+	MethodHandle handle;
 
-	public MethodPropertySetter(Method method) {
+	public MethodPropertySetter(Method method) throws IllegalAccessException {
 		super();
 		this.method = method;
 		this.method.setAccessible(true);
+		this.handle = MethodHandles.lookup().unreflect(method).asType(methodType(void.class, Object.class, Object.class));
 	}
 
 	@Override
 	public void set(Object instance, Object value) {
 
 		try {
-			method.invoke(instance, value);
+			handle.invokeExact(instance, value);
+		}
+		catch(Error e) {
+			throw e;
 		}
-		catch(IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
+		catch(Throwable e) {
 			// Ignore mapping errors (they shouldn't happen)
 		}
 	}
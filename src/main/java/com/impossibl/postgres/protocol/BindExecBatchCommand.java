@@ -0,0 +1,56 @@
+package com.impossibl.postgres.protocol;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.protocol.QueryCommand.ResultBatch;
+import com.impossibl.postgres.types.Type;
+
+/**
+ * Executes a statement once for each of a batch of parameter value rows,
+ * sending all rows in a single message flight. The parameter values of
+ * each row are encoded as the row is added; the protocol messages are
+ * only built when the batch is executed.
+ * 
+ * Rows are executed in a single implicit transaction (when no
+ * transaction is active); an error stops execution of the remaining
+ * rows.
+ */
+public interface BindExecBatchCommand extends Command {
+	
+	/**
+	 * Queues the execution of a row
+	 * 
+	 * @param parameterTypes Complete parameter types of the row
+	 * @param encodedParameterValues Parameter values encoded in their wire
+	 * 					format (the length & data of each value, in order)
+	 * @throws IOException If the row cannot be encoded
+	 */
+	void add(List<Type> parameterTypes, ChannelBuffer encodedParameterValues) throws IOException;
+	
+	/**
+	 * @return Number of rows queued for execution
+	 */
+	int getSize();
+	
+	/**
+	 * @return Size, in bytes, of the parameter values queued for execution
+	 */
+	int getMessageSize();
+	
+	/**
+	 * Discards the rows queued for execution
+	 */
+	void clear();
+	
+	/**
+	 * Retrieves the results of each executed row. The queued rows are
+	 * cleared after execution so the command can be reused.
+	 * 
+	 * @return Result batch of each executed row
+	 */
+	List<ResultBatch> getResultBatches();
+	
+}
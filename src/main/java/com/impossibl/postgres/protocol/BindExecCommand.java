@@ -2,6 +2,8 @@ package com.impossibl.postgres.protocol;
 
 import java.util.List;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+
 import com.impossibl.postgres.types.Type;
 
 public interface BindExecCommand extends QueryCommand {
@@ -15,4 +17,22 @@ public interface BindExecCommand extends QueryCommand {
 	List<Object> getParameterValues();
 	void setParameterValues(List<Object> values);
 	
+	/**
+	 * Sets parameter values that are already encoded in their wire
+	 * format (the length & data of each value, in order), in place of
+	 * the parameter values.
+	 * 
+	 * @param values Encoded values or null to use the parameter values
+	 */
+	void setEncodedParameterValues(ChannelBuffer values);
+	
+	/**
+	 * Sets the length at which binary (i.e. bytea) result values are
+	 * decoded as slices of the received data instead of byte arrays.
+	 * 
+	 * @param binaryStreamThreshold Threshold length; zero disables
+	 * 					slicing
+	 */
+	void setBinaryStreamThreshold(int binaryStreamThreshold);
+	
 }
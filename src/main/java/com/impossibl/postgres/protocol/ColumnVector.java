@@ -0,0 +1,520 @@
+package com.impossibl.postgres.protocol;
+
+import static java.util.Arrays.copyOf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.protocol.ResultField.Format;
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
+import com.impossibl.postgres.types.PrimitiveType;
+import com.impossibl.postgres.types.Type;
+
+
+
+/**
+ * Column oriented storage for the values of a single result field.
+ *
+ * Fixed width binary numeric fields are decoded directly into primitive
+ * arrays (through the field's decoder when decoding is timed, see
+ * {@link Metrics#isDecodeTimed(Context)}), textual fields are dictionary encoded and everything else
+ * falls back to the field's decoder. Nulls are tracked in a separate
+ * bitmap, so the primitive arrays hold zero for null rows.
+ */
+public abstract class ColumnVector {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	protected Type type;
+	protected long[] nulls;
+	protected int size;
+
+	protected ColumnVector(Type type) {
+		this.type = type;
+		this.nulls = new long[1];
+	}
+
+	/**
+	 * Creates a vector suitable for storing the values of the given field
+	 *
+	 * @param field Field the vector will store
+	 * @return Column vector for the field
+	 */
+	public static ColumnVector create(ResultField field) {
+
+		Type type = field.typeRef.get();
+		Type.Codec.Decoder decoder = type.getCodec(field.format).decoder;
+
+		PrimitiveType primitiveType = decoder.getInputPrimitiveType();
+		Class<?> outputType = decoder.getOutputType();
+
+		if(field.format == Format.Binary) {
+
+			if((primitiveType == PrimitiveType.Int2 && outputType == Short.class) ||
+					(primitiveType == PrimitiveType.Int4 && outputType == Integer.class) ||
+					(primitiveType == PrimitiveType.Oid && outputType == Integer.class)) {
+				return new Ints(type, decoder, primitiveType);
+			}
+
+			if(primitiveType == PrimitiveType.Int8 && outputType == Long.class) {
+				return new Longs(type, decoder);
+			}
+
+			if((primitiveType == PrimitiveType.Float && outputType == Float.class) ||
+					(primitiveType == PrimitiveType.Double && outputType == Double.class)) {
+				return new Doubles(type, decoder, primitiveType);
+			}
+
+		}
+
+		if(outputType == String.class) {
+			return new Strings(type, decoder);
+		}
+
+		return new Objects(type, decoder);
+	}
+
+	/**
+	 * Type of the values stored in this vector
+	 *
+	 * @return Value type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Number of rows stored in this vector
+	 *
+	 * @return Row count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks the null bitmap for the given row
+	 *
+	 * @param row Zero based row index
+	 * @return True if the row's value is null
+	 */
+	public boolean isNull(int row) {
+		return (nulls[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Retrieves the row's value as the object the field's decoder would
+	 * have produced
+	 *
+	 * @param row Zero based row index
+	 * @return Value of the row or null
+	 */
+	public abstract Object get(int row);
+
+	/**
+	 * Reads the next value of the column from the buffer and appends it
+	 *
+	 * @param buffer Buffer positioned at the value's length
+	 * @param context Context used for decoding
+	 * @throws IOException If the value cannot be decoded
+	 */
+	public abstract void read(ChannelBuffer buffer, Context context) throws IOException;
+
+	protected abstract void grow(int capacity);
+
+	protected abstract int capacity();
+
+	/**
+	 * Ensures room for one more row and returns its index
+	 */
+	protected int next() {
+
+		int row = size++;
+
+		if(row == capacity()) {
+			grow(Math.max(INITIAL_CAPACITY, row * 2));
+		}
+
+		if((row >>> 6) == nulls.length) {
+			nulls = copyOf(nulls, nulls.length * 2);
+		}
+
+		return row;
+	}
+
+	protected int nextNull() {
+
+		int row = next();
+
+		nulls[row >>> 6] |= 1L << row;
+
+		return row;
+	}
+
+	/**
+	 * Vector of int2, int4 & oid values
+	 */
+	public static class Ints extends ColumnVector {
+
+		private Type.Codec.Decoder decoder;
+		private PrimitiveType primitiveType;
+		private int[] values = new int[0];
+
+		Ints(Type type, Type.Codec.Decoder decoder, PrimitiveType primitiveType) {
+			super(type);
+			this.decoder = decoder;
+			this.primitiveType = primitiveType;
+		}
+
+		public int getInt(int row) {
+			return values[row];
+		}
+
+		public int[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+
+			if(isNull(row))
+				return null;
+
+			if(primitiveType == PrimitiveType.Int2)
+				return (short) values[row];
+
+			return values[row];
+		}
+
+		@Override
+		public void read(ChannelBuffer buffer, Context context) throws IOException {
+
+			// Timed decodes go through the field's decoder
+			if(Metrics.isDecodeTimed(context)) {
+
+				Number value = (Number) Metrics.decode(type, decoder, buffer, context);
+				if(value == null) {
+					nextNull();
+					return;
+				}
+
+				int row = next();
+				values[row] = value.intValue();
+				return;
+			}
+
+			int length = buffer.readInt();
+			if(length == -1) {
+				nextNull();
+				return;
+			}
+
+			int value;
+			if(length == 2 && primitiveType == PrimitiveType.Int2) {
+				value = buffer.readShort();
+			}
+			else if(length == 4 && primitiveType != PrimitiveType.Int2) {
+				value = buffer.readInt();
+			}
+			else {
+				throw new IOException("invalid length");
+			}
+
+			int row = next();
+			values[row] = value;
+		}
+
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+
+		@Override
+		protected void grow(int capacity) {
+			values = copyOf(values, capacity);
+		}
+
+	}
+
+	/**
+	 * Vector of int8 values
+	 */
+	public static class Longs extends ColumnVector {
+
+		private Type.Codec.Decoder decoder;
+		private long[] values = new long[0];
+
+		Longs(Type type, Type.Codec.Decoder decoder) {
+			super(type);
+			this.decoder = decoder;
+		}
+
+		public long getLong(int row) {
+			return values[row];
+		}
+
+		public long[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+
+			if(isNull(row))
+				return null;
+
+			return values[row];
+		}
+
+		@Override
+		public void read(ChannelBuffer buffer, Context context) throws IOException {
+
+			// Timed decodes go through the field's decoder
+			if(Metrics.isDecodeTimed(context)) {
+
+				Number value = (Number) Metrics.decode(type, decoder, buffer, context);
+				if(value == null) {
+					nextNull();
+					return;
+				}
+
+				int row = next();
+				values[row] = value.longValue();
+				return;
+			}
+
+			int length = buffer.readInt();
+			if(length == -1) {
+				nextNull();
+				return;
+			}
+			else if(length != 8) {
+				throw new IOException("invalid length");
+			}
+
+			long value = buffer.readLong();
+
+			int row = next();
+			values[row] = value;
+		}
+
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+
+		@Override
+		protected void grow(int capacity) {
+			values = copyOf(values, capacity);
+		}
+
+	}
+
+	/**
+	 * Vector of float4 & float8 values
+	 */
+	public static class Doubles extends ColumnVector {
+
+		private Type.Codec.Decoder decoder;
+		private PrimitiveType primitiveType;
+		private double[] values = new double[0];
+
+		Doubles(Type type, Type.Codec.Decoder decoder, PrimitiveType primitiveType) {
+			super(type);
+			this.decoder = decoder;
+			this.primitiveType = primitiveType;
+		}
+
+		public double getDouble(int row) {
+			return values[row];
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+
+			if(isNull(row))
+				return null;
+
+			if(primitiveType == PrimitiveType.Float)
+				return (float) values[row];
+
+			return values[row];
+		}
+
+		@Override
+		public void read(ChannelBuffer buffer, Context context) throws IOException {
+
+			// Timed decodes go through the field's decoder
+			if(Metrics.isDecodeTimed(context)) {
+
+				Number value = (Number) Metrics.decode(type, decoder, buffer, context);
+				if(value == null) {
+					nextNull();
+					return;
+				}
+
+				int row = next();
+				values[row] = value.doubleValue();
+				return;
+			}
+
+			int length = buffer.readInt();
+			if(length == -1) {
+				nextNull();
+				return;
+			}
+
+			double value;
+			if(length == 4 && primitiveType == PrimitiveType.Float) {
+				value = buffer.readFloat();
+			}
+			else if(length == 8 && primitiveType == PrimitiveType.Double) {
+				value = buffer.readDouble();
+			}
+			else {
+				throw new IOException("invalid length");
+			}
+
+			int row = next();
+			values[row] = value;
+		}
+
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+
+		@Override
+		protected void grow(int capacity) {
+			values = copyOf(values, capacity);
+		}
+
+	}
+
+	/**
+	 * Dictionary encoded vector of textual values. Each row stores a code
+	 * into the dictionary; repeated values share a single String instance.
+	 */
+	public static class Strings extends ColumnVector {
+
+		private Type.Codec.Decoder decoder;
+		private int[] codes = new int[0];
+		private List<String> dictionary = new ArrayList<>();
+		private Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+		Strings(Type type, Type.Codec.Decoder decoder) {
+			super(type);
+			this.decoder = decoder;
+		}
+
+		public String getString(int row) {
+
+			if(isNull(row))
+				return null;
+
+			return dictionary.get(codes[row]);
+		}
+
+		public int getCode(int row) {
+			return codes[row];
+		}
+
+		public int[] getCodes() {
+			return codes;
+		}
+
+		public List<String> getDictionary() {
+			return dictionary;
+		}
+
+		@Override
+		public Object get(int row) {
+			return getString(row);
+		}
+
+		@Override
+		public void read(ChannelBuffer buffer, Context context) throws IOException {
+
+			String value = (String) Metrics.decode(type, decoder, buffer, context);
+			if(value == null) {
+				nextNull();
+				return;
+			}
+
+			Integer code = dictionaryCodes.get(value);
+			if(code == null) {
+				code = dictionary.size();
+				dictionary.add(value);
+				dictionaryCodes.put(value, code);
+			}
+
+			int row = next();
+			codes[row] = code;
+		}
+
+		@Override
+		protected int capacity() {
+			return codes.length;
+		}
+
+		@Override
+		protected void grow(int capacity) {
+			codes = copyOf(codes, capacity);
+		}
+
+	}
+
+	/**
+	 * Vector of values for types with no specialized storage
+	 */
+	public static class Objects extends ColumnVector {
+
+		private Type.Codec.Decoder decoder;
+		private Object[] values = new Object[0];
+
+		Objects(Type type, Type.Codec.Decoder decoder) {
+			super(type);
+			this.decoder = decoder;
+		}
+
+		@Override
+		public Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		public void read(ChannelBuffer buffer, Context context) throws IOException {
+
+			Object value = Metrics.decode(type, decoder, buffer, context);
+			if(value == null) {
+				nextNull();
+				return;
+			}
+
+			int row = next();
+			values[row] = value;
+		}
+
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+
+		@Override
+		protected void grow(int capacity) {
+			values = copyOf(values, capacity);
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.impossibl.postgres.protocol;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.system.Context;
+
+
+
+/**
+ * Result rows stored as a set of column vectors. Presents itself as a
+ * list of Object[] rows so it can be used anywhere row oriented results
+ * are expected; rows are only materialized when accessed that way.
+ */
+public class ColumnarResults extends AbstractList<Object[]> {
+
+	private ColumnVector[] columns;
+	private int rowCount;
+
+	public ColumnarResults(List<ResultField> fields) {
+
+		columns = new ColumnVector[fields.size()];
+
+		for(int c = 0; c < columns.length; ++c) {
+			columns[c] = ColumnVector.create(fields.get(c));
+		}
+	}
+
+	public ColumnVector[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Retrieves the vector for a column
+	 *
+	 * @param columnIndex Zero based column index
+	 * @return Column's vector
+	 */
+	public ColumnVector getColumn(int columnIndex) {
+		return columns[columnIndex];
+	}
+
+	/**
+	 * Reads the values of a DataRow message into the column vectors
+	 *
+	 * @param buffer Buffer positioned at the row's value count
+	 * @param context Context used for decoding
+	 * @throws IOException If a value cannot be decoded
+	 */
+	public void readRow(ChannelBuffer buffer, Context context) throws IOException {
+
+		int itemCount = buffer.readShort();
+		if(itemCount != columns.length) {
+			throw new IOException("invalid row length");
+		}
+
+		for(int c = 0; c < itemCount; ++c) {
+			columns[c].read(buffer, context);
+		}
+
+		rowCount++;
+	}
+
+	@Override
+	public Object[] get(int row) {
+
+		if(row < 0 || row >= rowCount)
+			throw new IndexOutOfBoundsException();
+
+		Object[] values = new Object[columns.length];
+
+		for(int c = 0; c < columns.length; ++c) {
+			values[c] = columns[c].get(row);
+		}
+
+		return values;
+	}
+
+	@Override
+	public int size() {
+		return rowCount;
+	}
+
+}
@@ -9,6 +9,14 @@ public interface FunctionCallCommand extends Command {
 	String getFunctionName();
 	List<Type> getParameterTypes();
 	List<Object> getParameterValues();
+
+	/**
+	 * Retrieves the function's result, decoded as the result type the
+	 * command was created with. Without a result type the result is the
+	 * raw (length prefixed) binary value.
+	 *
+	 * @return Result of the function
+	 */
 	Object getResult();
 
 }
@@ -0,0 +1,42 @@
+package com.impossibl.postgres.protocol;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Calls a function a number of times, sending all calls in a single
+ * message flight. The message for each call is encoded as the call is
+ * added, so parameter values (e.g. slices of a caller's array) are not
+ * referenced after being added.
+ * 
+ * Each call is executed independently; an error in one call does not
+ * stop execution of the following calls.
+ */
+public interface FunctionCallPipelineCommand extends Command {
+	
+	String getFunctionName();
+	
+	/**
+	 * Encodes & queues a call of the function
+	 * 
+	 * @param parameterValues Parameter values of the call
+	 * @throws IOException If the call cannot be encoded
+	 */
+	void add(List<Object> parameterValues) throws IOException;
+	
+	/**
+	 * @return Number of calls queued for execution
+	 */
+	int getSize();
+	
+	/**
+	 * Retrieves the result of each executed call, decoded as the result
+	 * type the command was created with. Without a result type each
+	 * result is the raw (length prefixed) binary value. The queued calls
+	 * are cleared after execution so the command can be reused.
+	 * 
+	 * @return Result of each successfully executed call
+	 */
+	List<Object> getResults();
+	
+}
@@ -0,0 +1,82 @@
+package com.impossibl.postgres.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * Binary parameter value whose data is read from a stream as the
+ * message containing it is sent, rather than being encoded in memory
+ * first. The length of the data must be known up front, as it precedes
+ * the data in the message.
+ */
+public class ParameterStream {
+
+	private InputStream stream;
+	private int length;
+	private int read;
+
+	public ParameterStream(InputStream stream, int length) {
+		this.stream = stream;
+		this.length = length;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Determines if any data has been read from the stream; a stream can
+	 * only be sent once
+	 *
+	 * @return True if data has been read
+	 */
+	public boolean isConsumed() {
+		return read > 0;
+	}
+
+	/**
+	 * Reads the next section of data from the stream
+	 *
+	 * @param buffer Buffer to write the data to
+	 * @param count Number of bytes to read
+	 * @throws IOException If the stream fails or ends before the total
+	 * 					length has been read
+	 */
+	public void read(ChannelBuffer buffer, int count) throws IOException {
+
+		if(count > length - read) {
+			throw new IllegalArgumentException("count exceeds remaining length");
+		}
+
+		while(count > 0) {
+
+			int amount = buffer.writeBytes(stream, count);
+			if(amount == -1) {
+				throw new IOException("Not enough data in stream; expected " + length + " bytes but only " + read + " were available");
+			}
+
+			read += amount;
+			count -= amount;
+		}
+
+	}
+
+	/**
+	 * Reads all data of the stream into memory; used when the value cannot
+	 * be streamed (e.g. when it must be converted to another type)
+	 *
+	 * @return All data of the stream
+	 * @throws IOException If the stream fails or ends early
+	 */
+	public byte[] toByteArray() throws IOException {
+
+		ChannelBuffer buffer = ChannelBuffers.buffer(length - read);
+		read(buffer, buffer.writableBytes());
+
+		return buffer.array();
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.impossibl.postgres.protocol;
+
+public interface PingCommand extends Command {
+	
+	long getTimeout();
+	
+	boolean isComplete();
+
+}
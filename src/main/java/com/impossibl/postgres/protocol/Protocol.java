@@ -10,17 +10,26 @@ import com.impossibl.postgres.types.Type;
 public interface Protocol {
 	
 	TransactionStatus getTransactionStatus();
+	
+	void queueBegin(String beginText);
 
 	StartupCommand createStartup(Map<String,Object> parameters);
 	PrepareCommand createPrepare(String statementName, String sqlText, List<Type> parameterTypes);
 	BindExecCommand createBindExec(String portalName, String statementName, List<Type> parameterTypes, List<Object> parameterValues, List<ResultField> resultFields, Class<?> rowType);
+	BindExecCommand createParseBindExec(String portalName, String statementName, String sqlText, List<Type> parameterTypes, List<Object> parameterValues, List<ResultField> resultFields, Class<?> rowType);
+	BindExecBatchCommand createBindExecBatch(String sqlText, List<ResultField> resultFields);
 	QueryCommand createQuery(String sqlText);
-	FunctionCallCommand createFunctionCall(String functionName, List<Type> parameterTypes, List<Object> parameterValues);
+	FunctionCallCommand createFunctionCall(String functionName, List<Type> parameterTypes, List<Object> parameterValues, Type resultType);
+	FunctionCallPipelineCommand createFunctionCallPipeline(String functionName, List<Type> parameterTypes, Type resultType);
 	
 	CloseCommand createClose(ServerObjectType objectType, String objectName);
+	PingCommand createPing(long timeout);
 	
 	void execute(Command cmd) throws IOException;
 	
+	long getLastReceivedTime();
+	void setKeepaliveInterval(long interval);
+	
 	void shutdown();
 
 
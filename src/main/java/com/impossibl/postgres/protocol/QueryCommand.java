@@ -23,6 +23,9 @@ public interface QueryCommand extends Command {
 	int getMaxFieldLength();
 	public void setMaxFieldLength(int maxFieldLength);
 	
+	boolean isColumnar();
+	void setColumnar(boolean columnar);
+	
 	List<ResultBatch> getResultBatches();
 	
 	Status getStatus();
@@ -14,6 +14,18 @@ public class TypeRef {
 		return (Type) val;
 	}
 	
+	/**
+	 * Retrieves the id of the referenced type without resolving it
+	 * 
+	 * @return Type id or 0 if the type is not known
+	 */
+	public int getId() {
+		if(val instanceof Locator) {
+			return ((Locator) val).typeId;
+		}
+		return val != null ? ((Type) val).getId() : 0;
+	}
+	
 	private TypeRef(Object val) {
 		this.val = val;
 	}
@@ -48,7 +48,7 @@ public class BaseProtocolListener implements ProtocolListener {
 	}
 
 	@Override
-	public void functionResult(Object value) {
+	public void functionResult(Object value) throws IOException {
 	}
 
 	@Override
@@ -0,0 +1,244 @@
+package com.impossibl.postgres.protocol.v30;
+
+import static com.impossibl.postgres.protocol.v30.BindExecCommandImpl.getResultFieldFormats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.impossibl.postgres.protocol.BindExecBatchCommand;
+import com.impossibl.postgres.protocol.Notice;
+import com.impossibl.postgres.protocol.QueryCommand.ResultBatch;
+import com.impossibl.postgres.protocol.ResultField;
+import com.impossibl.postgres.protocol.ResultField.Format;
+import com.impossibl.postgres.protocol.TransactionStatus;
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
+import com.impossibl.postgres.types.Type;
+
+
+
+public class BindExecBatchCommandImpl extends CommandImpl implements BindExecBatchCommand {
+
+	class BindExecBatchListener extends BaseProtocolListener {
+
+		Context context;
+
+		public BindExecBatchListener(Context context) {
+			this.context = context;
+		}
+
+		@Override
+		public boolean isComplete() {
+			return ready;
+		}
+
+		@Override
+		public void parseComplete() {
+		}
+
+		@Override
+		public void bindComplete() {
+		}
+
+		@Override
+		public void rowData(ChannelBuffer buffer) throws IOException {
+
+			int itemCount = buffer.readShort();
+
+			Object[] rowInstance = new Object[itemCount];
+
+			for (int c = 0; c < itemCount; ++c) {
+
+				ResultField field = resultFields.get(c);
+
+				Type fieldType = field.typeRef.get();
+
+				Type.Codec.Decoder decoder = fieldType.getCodec(field.format).decoder;
+
+				rowInstance[c] = Metrics.decode(fieldType, decoder, buffer, context);
+			}
+
+			@SuppressWarnings("unchecked")
+			List<Object> res = (List<Object>) resultBatch.results;
+			res.add(rowInstance);
+		}
+
+		@Override
+		public void emptyQuery() {
+			completeRow(null, null, null);
+		}
+
+		@Override
+		public void commandComplete(String command, Long rowsAffected, Long oid) {
+			completeRow(command, rowsAffected, oid);
+		}
+
+		@Override
+		public void error(Notice error) {
+			BindExecBatchCommandImpl.this.error = error;
+		}
+
+		@Override
+		public void notice(Notice notice) {
+			addNotice(notice);
+		}
+
+		@Override
+		public synchronized void ready(TransactionStatus txStatus) {
+			ready = true;
+			notifyAll();
+		}
+
+	}
+
+	private String query;
+	private List<ResultField> resultFields;
+	private List<Format> resultFieldFormats;
+	private ChannelBuffer values;
+	private int[] rowEnds;
+	private List<List<Type>> rowTypes;
+	private List<ResultBatch> resultBatches;
+	private ResultBatch resultBatch;
+	private volatile boolean ready;
+
+
+
+	/**
+	 * Creates a batch for the given statement. The statement is parsed
+	 * (as the unnamed statement) at the start of each message flight and
+	 * whenever the parameter types change.
+	 * 
+	 * @param query Text of the statement
+	 * @param resultFields Described result fields of the statement
+	 */
+	public BindExecBatchCommandImpl(String query, List<ResultField> resultFields) {
+		this.query = query;
+		this.resultFields = resultFields != null ? resultFields : Collections.<ResultField>emptyList();
+		this.resultFieldFormats = getResultFieldFormats(this.resultFields);
+		this.values = ChannelBuffers.dynamicBuffer();
+		this.rowEnds = new int[16];
+		this.rowTypes = new ArrayList<>();
+		this.resultBatches = Collections.emptyList();
+	}
+
+	@Override
+	public void add(List<Type> parameterTypes, ChannelBuffer encodedParameterValues) throws IOException {
+
+		values.writeBytes(encodedParameterValues, encodedParameterValues.readerIndex(), encodedParameterValues.readableBytes());
+
+		int row = rowTypes.size();
+		if(row == rowEnds.length) {
+			rowEnds = Arrays.copyOf(rowEnds, row * 2);
+		}
+
+		rowEnds[row] = values.writerIndex();
+
+		// Share the previous row's types when unchanged
+		if(row > 0 && rowTypes.get(row - 1).equals(parameterTypes)) {
+			parameterTypes = rowTypes.get(row - 1);
+		}
+		else {
+			parameterTypes = new ArrayList<>(parameterTypes);
+		}
+
+		rowTypes.add(parameterTypes);
+	}
+
+	@Override
+	public int getSize() {
+		return rowTypes.size();
+	}
+
+	@Override
+	public int getMessageSize() {
+		return values.readableBytes();
+	}
+
+	@Override
+	public void clear() {
+		values.clear();
+		rowTypes.clear();
+	}
+
+	@Override
+	public List<ResultBatch> getResultBatches() {
+		return resultBatches;
+	}
+
+	void completeRow(String command, Long rowsAffected, Long oid) {
+
+		resultBatch.command = command;
+		resultBatch.rowsAffected = rowsAffected;
+		resultBatch.insertedOid = oid;
+
+		resultBatches.add(resultBatch);
+
+		resultBatch = newResultBatch();
+	}
+
+	ResultBatch newResultBatch() {
+
+		ResultBatch resultBatch = new ResultBatch();
+		resultBatch.fields = resultFields;
+		resultBatch.results = !resultFields.isEmpty() ? new ArrayList<>() : null;
+
+		return resultBatch;
+	}
+
+	@Override
+	public void execute(ProtocolImpl protocol) throws IOException {
+
+		resultBatches = new ArrayList<>(rowTypes.size());
+		resultBatch = newResultBatch();
+		ready = false;
+
+		BindExecBatchListener listener = new BindExecBatchListener(protocol.getContext());
+
+		protocol.setListener(listener);
+
+		try {
+
+			ChannelBuffer msg = ChannelBuffers.dynamicBuffer(values.readableBytes() + rowTypes.size() * 64);
+
+			List<Type> lastParameterTypes = null;
+
+			for(int row = 0, rowStart = 0; row < rowTypes.size(); rowStart = rowEnds[row++]) {
+
+				List<Type> parameterTypes = rowTypes.get(row);
+
+				// Rows with unchanged types share the same list
+				if(parameterTypes != lastParameterTypes) {
+
+					protocol.writeParse(msg, null, query, parameterTypes);
+
+					lastParameterTypes = parameterTypes;
+				}
+
+				protocol.writeBind(msg, null, null, parameterTypes, values.slice(rowStart, rowEnds[row] - rowStart), resultFieldFormats);
+
+				protocol.writeExecute(msg, null, 0);
+			}
+
+			protocol.writeSync(msg);
+
+			protocol.send(msg);
+
+			waitFor(listener);
+
+		}
+		finally {
+
+			// Queued rows are cleared so the command can be reused for the
+			// next flight
+			clear();
+		}
+
+	}
+
+}
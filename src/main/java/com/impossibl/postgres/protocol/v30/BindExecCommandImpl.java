@@ -2,6 +2,7 @@ package com.impossibl.postgres.protocol.v30;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.impossibl.postgres.protocol.ServerObjectType.Portal;
+import static com.impossibl.postgres.system.Settings.FIELD_BINARY_STREAM_LENGTH_MIN;
 import static com.impossibl.postgres.system.Settings.FIELD_VARYING_LENGTH_MAX;
 import static com.impossibl.postgres.utils.Factory.createInstance;
 
@@ -16,11 +17,13 @@ import org.jboss.netty.buffer.ChannelBuffers;
 import com.impossibl.postgres.mapper.Mapper;
 import com.impossibl.postgres.mapper.PropertySetter;
 import com.impossibl.postgres.protocol.BindExecCommand;
+import com.impossibl.postgres.protocol.ColumnarResults;
 import com.impossibl.postgres.protocol.Notice;
 import com.impossibl.postgres.protocol.ResultField;
 import com.impossibl.postgres.protocol.ResultField.Format;
 import com.impossibl.postgres.protocol.TransactionStatus;
 import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
 import com.impossibl.postgres.system.SettingsContext;
 import com.impossibl.postgres.types.Type;
 
@@ -41,17 +44,32 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 			return status != null || error != null;
 		}
 
+		@Override
+		public void parseComplete() {
+		}
+
 		@Override
 		public void bindComplete() {
 		}
 
 		@Override
 		public void rowDescription(List<ResultField> newResultFields) {
-			resultFields = newResultFields;
-			resultFieldFormats = getResultFieldFormats(newResultFields);
+			
+			// When parsing, the portal is described after binding with the
+			// expected fields' formats; the formats reported are the ones
+			// actually used for the rows
+			if(query == null) {
+				resultFields = newResultFields;
+			}
+			
 			resultBatch.fields = newResultFields;
-			resultBatch.results = !resultFields.isEmpty() ? new ArrayList<>() : null;
-			resultSetters = Mapper.buildMapping(rowType, newResultFields);
+			
+			// Rows for fields with types that are not loaded are decoded
+			// once the types have been loaded
+			deferredRows = DeferredRows.create(newResultFields, context.getRegistry());
+			if(deferredRows == null) {
+				describeResults(newResultFields);
+			}
 		}
 
 		@Override
@@ -64,6 +82,16 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		@Override
 		public void rowData(ChannelBuffer buffer) throws IOException {
 
+			if(deferredRows != null) {
+				deferredRows.add(buffer);
+				return;
+			}
+
+			if(resultBatch.results instanceof ColumnarResults) {
+				((ColumnarResults) resultBatch.results).readRow(buffer, context);
+				return;
+			}
+
 			int itemCount = buffer.readShort();
 
 			Object rowInstance = createInstance(rowType, itemCount);
@@ -76,9 +104,12 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 				
 				Type.Codec.Decoder decoder = fieldType.getCodec(field.format).decoder;
 				
-				Object fieldVal = decoder.decode(fieldType, buffer, context);
+				Object fieldVal = Metrics.decode(fieldType, decoder, buffer, context);
 
-				resultSetters.get(c).set(rowInstance, fieldVal);
+				PropertySetter setter = resultSetters.get(c);
+				if(setter != null) {
+					setter.set(rowInstance, fieldVal);
+				}
 			}
 
 			@SuppressWarnings("unchecked")
@@ -131,23 +162,50 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 
 	private String statementName;
 	private String portalName;
+	private String query;
 	private List<Type> parameterTypes;
 	private List<Object> parameterValues;
+	private ChannelBuffer encodedParameterValues;
 	private List<ResultField> resultFields;
 	private Class<?> rowType;
 	private List<PropertySetter> resultSetters;
 	private int maxRows;
 	private int maxFieldLength;
+	private int binaryStreamThreshold;
+	private boolean columnar;
 	private Status status;
 	private SettingsContext parsingContext;
 	private ResultBatch resultBatch;
 	private List<Format> resultFieldFormats;
+	private DeferredRows deferredRows;
 	
 	
 	
 	public BindExecCommandImpl(String portalName, String statementName, List<Type> parameterTypes, List<Object> parameterValues, List<ResultField> resultFields, Class<?> rowType) {
+		this(portalName, statementName, null, parameterTypes, parameterValues, resultFields, rowType);
+	}
+
+	/**
+	 * Creates a command that parses the statement in the same round trip
+	 * as binding & executing it. The parameter types must be complete
+	 * and the expected result fields known (e.g. from a previous
+	 * description of the same statement), since both are needed to
+	 * build the bind message before the server has described anything.
+	 * The portal is always described, so the fields delivered with the
+	 * results are those of the statement as actually parsed.
+	 * 
+	 * @param portalName Name of the portal to bind or null
+	 * @param statementName Name of the statement to parse or null
+	 * @param query Text of the statement to parse or null if already parsed
+	 * @param parameterTypes Complete parameter types
+	 * @param parameterValues Parameter values
+	 * @param resultFields Expected result fields
+	 * @param rowType Type of row objects to create
+	 */
+	public BindExecCommandImpl(String portalName, String statementName, String query, List<Type> parameterTypes, List<Object> parameterValues, List<ResultField> resultFields, Class<?> rowType) {
 
 		this.statementName = statementName;
+		this.query = query;
 		this.portalName = portalName;
 		this.parameterTypes = parameterTypes;
 		this.parameterValues = parameterValues;
@@ -169,9 +227,35 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 
 	public void reset() {
 		status = null;
+		deferredRows = null;
 		resultBatch = new ResultBatch();
 		resultBatch.fields = resultFields;
-		resultBatch.results = (resultFields != null && !resultFields.isEmpty()) ? new ArrayList<>() : null;
+		resultBatch.results = resultFields != null ? createResults(resultFields) : null;
+	}
+
+	void describeResults(List<ResultField> fields) {
+		
+		if(query == null) {
+			resultFieldFormats = getResultFieldFormats(fields);
+		}
+		
+		resultBatch.results = createResults(fields);
+		resultSetters = Mapper.buildMapping(rowType, fields);
+	}
+
+	List<?> createResults(List<ResultField> fields) {
+		
+		if(fields.isEmpty()) {
+			return null;
+		}
+		
+		// Columnar storage only applies to generic rows, mapped row
+		// types are always built row by row
+		if(columnar && rowType == Object[].class) {
+			return new ColumnarResults(fields);
+		}
+		
+		return new ArrayList<>();
 	}
 
 	@Override
@@ -209,6 +293,11 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		this.parameterValues = parameterValues;
 	}
 
+	@Override
+	public void setEncodedParameterValues(ChannelBuffer encodedParameterValues) {
+		this.encodedParameterValues = encodedParameterValues;
+	}
+
 	@Override
 	public int getMaxRows() {
 		return maxRows;
@@ -229,6 +318,21 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		this.maxFieldLength = maxFieldLength;
 	}
 
+	@Override
+	public void setBinaryStreamThreshold(int binaryStreamThreshold) {
+		this.binaryStreamThreshold = binaryStreamThreshold;
+	}
+
+	@Override
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	@Override
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
 	@Override
 	public List<ResultBatch> getResultBatches() {
 		return newArrayList(resultBatch);
@@ -240,6 +344,9 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		//
 		parsingContext = new SettingsContext(protocol.getContext());
 		parsingContext.setSetting(FIELD_VARYING_LENGTH_MAX, maxFieldLength);
+		if(binaryStreamThreshold > 0) {
+			parsingContext.setSetting(FIELD_BINARY_STREAM_LENGTH_MIN, binaryStreamThreshold);
+		}
 
 		BindExecCommandListener listener = new BindExecCommandListener(parsingContext);
 		
@@ -247,15 +354,26 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		
 		ChannelBuffer msg = ChannelBuffers.dynamicBuffer();
 
-		if(status != Status.Suspended) {
+		boolean bind = status != Status.Suspended;
+		
+		if(bind) {
 			
-			protocol.writeBind(msg, portalName, statementName, parameterTypes, parameterValues, resultFieldFormats);
+			if(query != null) {
+				protocol.writeParse(msg, statementName, query, parameterTypes);
+			}
+			
+			if(encodedParameterValues != null) {
+				protocol.writeBind(msg, portalName, statementName, parameterTypes, encodedParameterValues, resultFieldFormats);
+			}
+			else {
+				protocol.writeBind(msg, portalName, statementName, parameterTypes, parameterValues, resultFieldFormats);
+			}
 
 		}
 
 		reset();
 
-		if(resultFields == null) {
+		if(resultFields == null || (query != null && bind)) {
 
 			protocol.writeDescribe(msg, Portal, portalName);
 
@@ -263,7 +381,9 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 
 		protocol.writeExecute(msg, portalName, maxRows);
 
-		if(maxRows > 0 && protocol.getTransactionStatus() == TransactionStatus.Idle) {
+		// A queued begin makes the transaction active before the portal
+		// is executed, so the portal survives a Sync
+		if(maxRows > 0 && protocol.getTransactionStatus() == TransactionStatus.Idle && !protocol.isBeginQueued()) {
 			protocol.writeFlush(msg);			
 		}
 		else {
@@ -276,6 +396,28 @@ public class BindExecCommandImpl extends CommandImpl implements BindExecCommand
 		
 	}
 	
+	@Override
+	public void resolveTypes(Context context) throws IOException {
+		
+		if(deferredRows == null || error != null) {
+			return;
+		}
+		
+		DeferredRows rows = deferredRows;
+		deferredRows = null;
+		
+		rows.loadTypes(context.getRegistry());
+		
+		describeResults(resultBatch.fields);
+		
+		BindExecCommandListener listener = new BindExecCommandListener(parsingContext);
+		
+		for(ChannelBuffer row : rows.rows) {
+			listener.rowData(row);
+		}
+		
+	}
+
 	static List<Format> getResultFieldFormats(List<ResultField> resultFields) {
 		
 		List<Format> resultFieldFormats = new ArrayList<>();
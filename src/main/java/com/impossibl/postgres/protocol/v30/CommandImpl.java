@@ -4,9 +4,16 @@ import static java.util.Collections.emptyList;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.impossibl.postgres.protocol.Notice;
+import com.impossibl.postgres.protocol.ResultField;
+import com.impossibl.postgres.protocol.TypeRef;
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.types.Registry;
 
 
 
@@ -66,6 +73,90 @@ public abstract class CommandImpl {
 
 	}
 
+	/**
+	 * Waits for the listener to complete or the timeout to elapse
+	 * 
+	 * @param listener Listener to wait for
+	 * @param timeout Maximum time to wait in milliseconds
+	 * @return True if the listener completed, false if the wait timed out
+	 */
+	public boolean waitFor(ProtocolListener listener, long timeout) {
+
+		long deadline = System.currentTimeMillis() + timeout;
+
+		synchronized(listener) {
+
+			while(listener.isComplete() == false) {
+
+				long remaining = deadline - System.currentTimeMillis();
+				if(remaining <= 0) {
+					return false;
+				}
+
+				try {
+					listener.wait(remaining);
+				}
+				catch(InterruptedException e) {
+					// Ignore
+				}
+
+			}
+
+		}
+
+		return true;
+	}
+
 	public abstract void execute(ProtocolImpl protocol) throws IOException;
 
+	/**
+	 * Loads any types referenced by the command's results that were not
+	 * known when the results were received. Called after execution, once
+	 * the protocol is free to run the necessary catalog queries.
+	 * 
+	 * @param context Context to load types in
+	 * @throws IOException If the types cannot be loaded
+	 */
+	public void resolveTypes(Context context) throws IOException {
+	}
+
+	/**
+	 * Finds the referenced types that are not yet loaded
+	 * 
+	 * @param typeRefs Type references to check
+	 * @param registry Registry to check for loaded types
+	 * @return Ids of the types that are not loaded
+	 */
+	static Set<Integer> findUnloadedTypeIds(Collection<TypeRef> typeRefs, Registry registry) {
+		
+		Set<Integer> typeIds = new HashSet<>();
+		
+		for(TypeRef typeRef : typeRefs) {
+			
+			int typeId = typeRef.getId();
+			if(typeId != 0 && registry.lookupType(typeId) == null) {
+				typeIds.add(typeId);
+			}
+		}
+		
+		return typeIds;
+	}
+
+	/**
+	 * Retrieves the type references of result fields
+	 * 
+	 * @param fields Fields to retrieve type references for
+	 * @return Type reference of each field
+	 */
+	static List<TypeRef> getTypeRefs(List<ResultField> fields) {
+		
+		List<TypeRef> typeRefs = new ArrayList<>(fields.size());
+		
+		for(ResultField field : fields) {
+			typeRefs.add(field.typeRef);
+		}
+		
+		return typeRefs;
+	}
+
 }
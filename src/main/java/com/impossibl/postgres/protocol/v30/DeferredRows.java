@@ -0,0 +1,71 @@
+package com.impossibl.postgres.protocol.v30;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.protocol.ResultField;
+import com.impossibl.postgres.types.Registry;
+
+
+
+/**
+ * Data rows received for result fields whose types were not loaded when
+ * the fields were described. Loading types requires catalog queries,
+ * which cannot run while the protocol is delivering messages, so the
+ * rows are kept undecoded until the command has executed and all the
+ * missing types have been loaded together.
+ */
+class DeferredRows {
+
+	Set<Integer> typeIds;
+	List<ChannelBuffer> rows;
+
+	private DeferredRows(Set<Integer> typeIds) {
+		this.typeIds = typeIds;
+		this.rows = new ArrayList<>();
+	}
+
+	/**
+	 * Creates storage for deferred rows, if any of the fields' types are
+	 * not loaded
+	 * 
+	 * @param fields Described result fields
+	 * @param registry Registry to check for loaded types
+	 * @return Deferred row storage or null if all types are loaded
+	 */
+	static DeferredRows create(List<ResultField> fields, Registry registry) {
+
+		Set<Integer> typeIds = CommandImpl.findUnloadedTypeIds(CommandImpl.getTypeRefs(fields), registry);
+		if(typeIds.isEmpty()) {
+			return null;
+		}
+
+		return new DeferredRows(typeIds);
+	}
+
+	void add(ChannelBuffer row) {
+		rows.add(row);
+	}
+
+	/**
+	 * Loads the missing types
+	 * 
+	 * @param registry Registry to load types in
+	 * @throws IOException If any of the types do not exist
+	 */
+	void loadTypes(Registry registry) throws IOException {
+
+		registry.loadTypes(typeIds);
+
+		for(Integer typeId : typeIds) {
+			if(registry.lookupType(typeId) == null) {
+				throw new IOException("unknown type: " + typeId);
+			}
+		}
+	}
+
+}
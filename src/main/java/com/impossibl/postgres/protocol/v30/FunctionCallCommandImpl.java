@@ -9,6 +9,7 @@ import org.jboss.netty.buffer.ChannelBuffers;
 import com.impossibl.postgres.protocol.FunctionCallCommand;
 import com.impossibl.postgres.protocol.Notice;
 import com.impossibl.postgres.protocol.TransactionStatus;
+import com.impossibl.postgres.system.Context;
 import com.impossibl.postgres.types.Type;
 
 
@@ -18,17 +19,28 @@ public class FunctionCallCommandImpl extends CommandImpl implements FunctionCall
 	private String functionName;
 	private List<Type> parameterTypes;
 	private List<Object> parameterValues;
+	private Type resultType;
+	private Context context;
 	private Object result;
+	private volatile boolean ready;
 	private ProtocolListener listener = new BaseProtocolListener() {
 
 		@Override
 		public boolean isComplete() {
-			return result != null || error != null;
+			return ready;
 		}
 
 		@Override
-		public void functionResult(Object value) {
-			FunctionCallCommandImpl.this.result = value;
+		public void functionResult(Object value) throws IOException {
+
+			ChannelBuffer buffer = (ChannelBuffer) value;
+
+			if(resultType != null) {
+				FunctionCallCommandImpl.this.result = resultType.getBinaryCodec().decoder.decode(resultType, buffer, context);
+			}
+			else {
+				FunctionCallCommandImpl.this.result = buffer;
+			}
 		}
 
 		@Override
@@ -43,16 +55,18 @@ public class FunctionCallCommandImpl extends CommandImpl implements FunctionCall
 
 		@Override
 		public synchronized void ready(TransactionStatus txStatus) {
+			ready = true;
 			notifyAll();
 		}
 
 	};
 
-	public FunctionCallCommandImpl(String functionName, List<Type> parameterTypes, List<Object> parameterValues) {
+	public FunctionCallCommandImpl(String functionName, List<Type> parameterTypes, List<Object> parameterValues, Type resultType) {
 
 		this.functionName = functionName;
 		this.parameterTypes = parameterTypes;
 		this.parameterValues = parameterValues;
+		this.resultType = resultType;
 	}
 
 	@Override
@@ -77,15 +91,16 @@ public class FunctionCallCommandImpl extends CommandImpl implements FunctionCall
 
 		protocol.setListener(listener);
 
+		context = protocol.getContext();
+
 		int procId = protocol.getContext().getRegistry().lookupProcId(functionName);
 		if(procId == 0)
 			throw new IOException("invalid function name");
 
 		ChannelBuffer msg = ChannelBuffers.dynamicBuffer();
 		
+		// A function call is completed by its own ready (i.e. it needs no sync)
 		protocol.writeFunctionCall(msg, procId, parameterTypes, parameterValues);
-		
-		protocol.writeSync(msg);
 
 		protocol.send(msg);
 
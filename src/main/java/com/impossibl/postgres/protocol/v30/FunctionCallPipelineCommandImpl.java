@@ -0,0 +1,158 @@
+package com.impossibl.postgres.protocol.v30;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.impossibl.postgres.protocol.FunctionCallPipelineCommand;
+import com.impossibl.postgres.protocol.Notice;
+import com.impossibl.postgres.protocol.TransactionStatus;
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.types.Type;
+
+
+
+public class FunctionCallPipelineCommandImpl extends CommandImpl implements FunctionCallPipelineCommand {
+
+	class FunctionCallPipelineListener extends BaseProtocolListener {
+
+		Context context;
+		int pending;
+
+		public FunctionCallPipelineListener(Context context, int pending) {
+			this.context = context;
+			this.pending = pending;
+		}
+
+		@Override
+		public boolean isComplete() {
+			return pending == 0;
+		}
+
+		@Override
+		public void functionResult(Object value) throws IOException {
+
+			ChannelBuffer buffer = (ChannelBuffer) value;
+
+			if(resultType != null) {
+				results.add(resultType.getBinaryCodec().decoder.decode(resultType, buffer, context));
+			}
+			else {
+				results.add(buffer);
+			}
+		}
+
+		@Override
+		public void error(Notice error) {
+			if(FunctionCallPipelineCommandImpl.this.error == null) {
+				FunctionCallPipelineCommandImpl.this.error = error;
+			}
+		}
+
+		@Override
+		public void notice(Notice notice) {
+			addNotice(notice);
+		}
+
+		@Override
+		public synchronized void ready(TransactionStatus txStatus) {
+			// Each call completes with its own ready
+			pending--;
+			notifyAll();
+		}
+
+	}
+
+	private ProtocolImpl protocol;
+	private String functionName;
+	private List<Type> parameterTypes;
+	private Type resultType;
+	private int procId;
+	private ChannelBuffer messages;
+	private int size;
+	private List<Object> results;
+
+
+
+	/**
+	 * Creates a pipeline of calls to the given function
+	 * 
+	 * @param protocol Protocol used to encode messages
+	 * @param functionName Name of the function to call
+	 * @param parameterTypes Parameter types of the function
+	 * @param resultType Type to decode results as or null for raw results
+	 */
+	public FunctionCallPipelineCommandImpl(ProtocolImpl protocol, String functionName, List<Type> parameterTypes, Type resultType) {
+		this.protocol = protocol;
+		this.functionName = functionName;
+		this.parameterTypes = parameterTypes;
+		this.resultType = resultType;
+		this.messages = ChannelBuffers.dynamicBuffer();
+		this.results = Collections.emptyList();
+	}
+
+	@Override
+	public String getFunctionName() {
+		return functionName;
+	}
+
+	@Override
+	public void add(List<Object> parameterValues) throws IOException {
+
+		if(procId == 0) {
+
+			procId = protocol.getContext().getRegistry().lookupProcId(functionName);
+			if(procId == 0)
+				throw new IOException("invalid function name");
+		}
+
+		protocol.writeFunctionCall(messages, procId, parameterTypes, parameterValues);
+
+		size++;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public List<Object> getResults() {
+		return results;
+	}
+
+	@Override
+	public void execute(ProtocolImpl protocol) throws IOException {
+
+		results = new ArrayList<>(size);
+
+		if(size == 0) {
+			return;
+		}
+
+		FunctionCallPipelineListener listener = new FunctionCallPipelineListener(protocol.getContext(), size);
+
+		protocol.setListener(listener);
+
+		try {
+
+			protocol.send(messages);
+
+			waitFor(listener);
+
+		}
+		finally {
+
+			// Messages are completely sent once the response is received;
+			// the buffer is reused for the next flight
+			messages.clear();
+			size = 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.impossibl.postgres.protocol.v30;
+
+import java.io.IOException;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.impossibl.postgres.protocol.Notice;
+import com.impossibl.postgres.protocol.PingCommand;
+import com.impossibl.postgres.protocol.TransactionStatus;
+
+
+
+/**
+ * Liveness probe; sends a bare Sync which the server answers with
+ * ReadyForQuery without parsing or executing anything.
+ */
+public class PingCommandImpl extends CommandImpl implements PingCommand {
+
+	long timeout;
+	boolean complete;
+
+	private ProtocolListener listener = new BaseProtocolListener() {
+
+		@Override
+		public boolean isComplete() {
+			return complete || error != null;
+		}
+
+		@Override
+		public void error(Notice error) {
+			PingCommandImpl.this.error = error;
+		}
+
+		@Override
+		public void notice(Notice notice) {
+			addNotice(notice);
+		}
+
+		@Override
+		public synchronized void ready(TransactionStatus txStatus) {
+			complete = true;
+			notifyAll();
+		}
+
+	};
+
+	/**
+	 * @param timeout Maximum time to wait for the response, in
+	 * 					milliseconds; zero waits indefinitely
+	 */
+	public PingCommandImpl(long timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public long getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public void execute(ProtocolImpl protocol) throws IOException {
+
+		if(!protocol.isConnected()) {
+			error = new Notice("ERROR", Notice.CONNECTION_EXC_CLASS, "connection closed");
+			return;
+		}
+
+		// A Sync would close the suspended portal; its use proves liveness
+		// well enough
+		if(protocol.isSyncPending()) {
+			complete = true;
+			return;
+		}
+
+		protocol.setListener(listener);
+
+		ChannelBuffer msg = ChannelBuffers.dynamicBuffer();
+
+		protocol.writeSync(msg);
+
+		protocol.send(msg);
+
+		if(timeout > 0) {
+			waitFor(listener, timeout);
+		}
+		else {
+			waitFor(listener);
+		}
+
+	}
+
+}
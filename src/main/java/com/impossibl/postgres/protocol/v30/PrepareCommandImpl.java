@@ -5,7 +5,9 @@ import static com.impossibl.postgres.protocol.ServerObjectType.Statement;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -16,6 +18,8 @@ import com.impossibl.postgres.protocol.ResultField;
 import com.impossibl.postgres.protocol.ResultField.Format;
 import com.impossibl.postgres.protocol.TransactionStatus;
 import com.impossibl.postgres.protocol.TypeRef;
+import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.types.Registry;
 import com.impossibl.postgres.types.Type;
 
 
@@ -109,6 +113,27 @@ public class PrepareCommandImpl extends CommandImpl implements PrepareCommand {
 		return describedResultFields;
 	}
 
+	@Override
+	public void resolveTypes(Context context) throws IOException {
+		
+		Registry registry = context.getRegistry();
+		
+		Set<Integer> typeIds = new HashSet<>();
+		
+		if(describedParameterTypes != null) {
+			typeIds.addAll(findUnloadedTypeIds(describedParameterTypes, registry));
+		}
+		
+		if(describedResultFields != null) {
+			typeIds.addAll(findUnloadedTypeIds(getTypeRefs(describedResultFields), registry));
+		}
+		
+		if(!typeIds.isEmpty()) {
+			registry.loadTypes(typeIds);
+		}
+		
+	}
+
 	@Override
 	public void execute(ProtocolImpl protocol) throws IOException {
 
@@ -5,25 +5,38 @@ import static com.impossibl.postgres.protocol.TransactionStatus.Failed;
 import static com.impossibl.postgres.protocol.TransactionStatus.Idle;
 import static com.impossibl.postgres.utils.ChannelBuffers.readCString;
 import static com.impossibl.postgres.utils.ChannelBuffers.writeCString;
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static java.util.logging.Level.FINEST;
 import static java.util.logging.Level.SEVERE;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
 
+import com.impossibl.postgres.protocol.BindExecBatchCommand;
 import com.impossibl.postgres.protocol.BindExecCommand;
 import com.impossibl.postgres.protocol.CloseCommand;
 import com.impossibl.postgres.protocol.Command;
 import com.impossibl.postgres.protocol.FunctionCallCommand;
+import com.impossibl.postgres.protocol.FunctionCallPipelineCommand;
 import com.impossibl.postgres.protocol.Notice;
+import com.impossibl.postgres.protocol.ParameterStream;
+import com.impossibl.postgres.protocol.PingCommand;
 import com.impossibl.postgres.protocol.PrepareCommand;
 import com.impossibl.postgres.protocol.Protocol;
 import com.impossibl.postgres.protocol.QueryCommand;
@@ -35,6 +48,8 @@ import com.impossibl.postgres.protocol.TransactionStatus;
 import com.impossibl.postgres.protocol.TypeRef;
 import com.impossibl.postgres.system.BasicContext;
 import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
+import com.impossibl.postgres.types.PrimitiveType;
 import com.impossibl.postgres.types.Registry;
 import com.impossibl.postgres.types.Type;
 
@@ -77,17 +92,65 @@ public class ProtocolImpl implements Protocol {
 	private static final byte CLOSE_COMPLETE_MSG_ID = '3';
 	private static final byte FUNCTION_RESULT_MSG_ID = 'V';
 
+	// Size of each chunk written when sending a parameter stream
+	private static final int STREAM_CHUNK_SIZE = 32 * 1024;
+	private static final ChannelBuffer STREAM_PADDING = ChannelBuffers.wrappedBuffer(new byte[STREAM_CHUNK_SIZE]);
+
+	/**
+	 * Parameter stream encoded in a message buffer. Only the stream's
+	 * length is written to the buffer, its data is inserted when the
+	 * buffer is sent.
+	 */
+	static class MessageStream {
+
+		ChannelBuffer msg;
+		int offset;
+		int resultFormatsOffset = -1;
+		ParameterStream value;
+
+		MessageStream(ChannelBuffer msg, int offset, ParameterStream value) {
+			this.msg = msg;
+			this.offset = offset;
+			this.value = value;
+		}
+
+	}
+
 	ProtocolShared.Ref sharedRef;
 	Channel channel;
 	BasicContext context;
+	Metrics metrics;
 	TransactionStatus txStatus;
 	ProtocolListener listener;
+	String queuedBegin;
+	BeginState beginState;
+	Notice beginError;
+	ReentrantLock lock = new ReentrantLock();
+	volatile boolean executing;
+	volatile boolean syncPending;
+	AtomicInteger keepaliveSyncs = new AtomicInteger();
+	volatile long lastReceivedTime;
+	volatile long keepaliveInterval;
+	volatile Timeout keepaliveTimeout;
+	List<MessageStream> messageStreams = new ArrayList<>();
+	int messageStreamLength;
+	byte messageId;
+	
+	/**
+	 * Progress of a transaction begin sent ahead of a command
+	 */
+	enum BeginState {
+		Sent,
+		Completed
+	}
 
 	public ProtocolImpl(ProtocolShared.Ref sharedRef, Channel channel, BasicContext context) {
 		this.sharedRef = sharedRef;
 		this.channel = channel;
 		this.context = context;
+		this.metrics = context.getMetrics();
 		this.txStatus = Idle;
+		this.lastReceivedTime = System.currentTimeMillis();
 	}
 	
 	public Context getContext() {
@@ -97,6 +160,8 @@ public class ProtocolImpl implements Protocol {
 	@Override
 	public void shutdown() {
 		
+		setKeepaliveInterval(0);
+		
 		try {
 			ChannelBuffer msg = ChannelBuffers.dynamicBuffer();
 			writeTerminate(msg);
@@ -129,14 +194,29 @@ public class ProtocolImpl implements Protocol {
 		return new BindExecCommandImpl(portalName, statementName, parameterTypes, parameterValues, resultFields, rowType);
 	}
 
+	@Override
+	public BindExecCommand createParseBindExec(String portalName, String statementName, String sqlText, List<Type> parameterTypes, List<Object> parameterValues, List<ResultField> resultFields, Class<?> rowType) {
+		return new BindExecCommandImpl(portalName, statementName, sqlText, parameterTypes, parameterValues, resultFields, rowType);
+	}
+
+	@Override
+	public BindExecBatchCommand createBindExecBatch(String sqlText, List<ResultField> resultFields) {
+		return new BindExecBatchCommandImpl(sqlText, resultFields);
+	}
+
 	@Override
 	public QueryCommand createQuery(String sqlText) {
 		return new QueryCommandImpl(sqlText);
 	}
 
 	@Override
-	public FunctionCallCommand createFunctionCall(String functionName, List<Type> parameterTypes, List<Object> parameterValues) {
-		return new FunctionCallCommandImpl(functionName, parameterTypes, parameterValues);
+	public FunctionCallCommand createFunctionCall(String functionName, List<Type> parameterTypes, List<Object> parameterValues, Type resultType) {
+		return new FunctionCallCommandImpl(functionName, parameterTypes, parameterValues, resultType);
+	}
+
+	@Override
+	public FunctionCallPipelineCommand createFunctionCallPipeline(String functionName, List<Type> parameterTypes, Type resultType) {
+		return new FunctionCallPipelineCommandImpl(this, functionName, parameterTypes, resultType);
 	}
 
 	@Override
@@ -144,27 +224,188 @@ public class ProtocolImpl implements Protocol {
 		return new CloseCommandImpl(objectType, objectName);
 	}
 
-	public synchronized void execute(Command cmd) throws IOException {
+	@Override
+	public PingCommand createPing(long timeout) {
+		return new PingCommandImpl(timeout);
+	}
+
+	public void execute(Command cmd) throws IOException {
 		
 		if(cmd instanceof CommandImpl == false)
 			throw new IllegalArgumentException();
 		
+		lock.lock();
 		try {
 			
-			((CommandImpl)cmd).execute(this);
+			executing = true;
+			
+			if(metrics != null)
+				metrics.commandStarted();
+			
+			try {
+				
+				((CommandImpl)cmd).execute(this);
+				
+			}
+			finally {
+				
+				if(metrics != null)
+					metrics.commandFinished();
+				
+				executing = false;
+				
+				//Ensure listener is reset
+				listener = null;
+				
+				//Begin only applies to the command it was queued for
+				queuedBegin = null;
+			}
 			
 		}
 		finally {
-			
-			//Ensure listener is reset
-			listener = null;
+			lock.unlock();
 		}
+		
+		//Types unknown when results arrived are loaded (which may require
+		//executing catalog queries) only after the protocol is released
+		((CommandImpl)cmd).resolveTypes(context);
 	}
 
 	@Override
 	public TransactionStatus getTransactionStatus() {
 		return txStatus;
 	}
+	
+	/**
+	 * Determines if a transaction begin is queued to be sent with the
+	 * next message flight (see {@link #queueBegin(String)})
+	 * 
+	 * @return True if a begin is queued
+	 */
+	public boolean isBeginQueued() {
+		return queuedBegin != null;
+	}
+	
+	public boolean isConnected() {
+		return channel.isConnected();
+	}
+	
+	/**
+	 * Determines if the last message flight ended without a Sync (i.e. a
+	 * portal is suspended outside of a transaction). Sending a Sync in
+	 * this state would close the portal.
+	 * 
+	 * @return True if a Sync has not been sent since the last flush
+	 */
+	public boolean isSyncPending() {
+		return syncPending;
+	}
+
+	@Override
+	public long getLastReceivedTime() {
+		return lastReceivedTime;
+	}
+
+	/**
+	 * Starts (or stops) sending keepalive probes. When the server has not
+	 * been heard from for the given interval, and the connection is not
+	 * in use (i.e. the protocol lock is free), a bare Sync is sent on the
+	 * shared timer's thread; nothing waits for the response, it simply
+	 * refreshes the last received time. The ReadyForQuery it produces is
+	 * discarded on receipt so it cannot complete a later command.
+	 * 
+	 * @param interval Keepalive interval in milliseconds; zero disables
+	 * 					keepalive
+	 */
+	@Override
+	public void setKeepaliveInterval(long interval) {
+		
+		keepaliveInterval = interval;
+		
+		Timeout current = keepaliveTimeout;
+		if(current != null) {
+			current.cancel();
+		}
+		
+		keepaliveTimeout = null;
+		
+		if(interval > 0) {
+			scheduleKeepalive(interval);
+		}
+	}
+	
+	private void scheduleKeepalive(long delay) {
+		
+		keepaliveTimeout = sharedRef.get().getTimer().newTimeout(new TimerTask() {
+			
+			@Override
+			public void run(Timeout timeout) throws Exception {
+				
+				long interval = keepaliveInterval;
+				
+				if(timeout.isCancelled() || timeout != keepaliveTimeout || interval <= 0 || !channel.isConnected())
+					return;
+				
+				long idle = System.currentTimeMillis() - lastReceivedTime;
+				
+				if(idle < interval) {
+					scheduleKeepalive(interval - idle);
+					return;
+				}
+				
+				//Skip this probe if a command holds the protocol; it will
+				//refresh the last received time itself
+				if(lock.tryLock()) {
+					try {
+						
+						if(!executing && !syncPending) {
+							
+							ChannelBuffer msg = ChannelBuffers.dynamicBuffer();
+							
+							writeSync(msg);
+							
+							keepaliveSyncs.incrementAndGet();
+							
+							channel.write(msg);
+						}
+						
+					}
+					finally {
+						lock.unlock();
+					}
+				}
+				
+				scheduleKeepalive(interval);
+			}
+			
+		}, delay, TimeUnit.MILLISECONDS);
+		
+	}
+
+	/**
+	 * Queues a transaction begin to be sent in the same message flight
+	 * as the next command, saving the round trip a separate begin would
+	 * require. The begin's responses are consumed here and never reach
+	 * the command, except for an error which is reported as the
+	 * command's error.
+	 * 
+	 * The begin is sent as a simple query, which discards the unnamed
+	 * statement; the next command must not rely on a previously parsed
+	 * unnamed statement.
+	 * 
+	 * @param beginText SQL text that begins a transaction
+	 */
+	@Override
+	public void queueBegin(String beginText) {
+		
+		lock.lock();
+		try {
+			queuedBegin = beginText;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
 
 	public void writeStartup(ChannelBuffer msg, Map<String, Object> params) throws IOException {
 
@@ -243,12 +484,55 @@ public class ProtocolImpl implements Protocol {
 
 		loadParams(msg, parameterTypes, parameterValues);
 
+		// Allows the bind to be invalidated if one of its streams fails
+		for(MessageStream stream : messageStreams) {
+			if(stream.msg == msg && stream.resultFormatsOffset == -1) {
+				stream.resultFormatsOffset = msg.writerIndex() - msg.readerIndex();
+			}
+		}
+
+		writeResultFormats(msg, resultFieldFormats);
+
+		endMessage(msg);
+	}
+
+	/**
+	 * Writes a bind message using parameter values that are already
+	 * encoded (the length & data of each value, in order)
+	 */
+	public void writeBind(ChannelBuffer msg, String portalName, String stmtName, List<Type> parameterTypes, ChannelBuffer encodedParameterValues, List<Format> resultFieldFormats) throws IOException {
+
+		if(logger.isLoggable(FINEST))
+			logger.finest("BIND (" + portalName + "): " + parameterTypes.size());
+
+		beginMessage(msg, BIND_MSG_ID);
+
+		writeCString(msg, portalName != null ? portalName : "", context.getCharset());
+		writeCString(msg, stmtName != null ? stmtName : "", context.getCharset());
+
+		writeParamFormats(msg, parameterTypes);
+
+		msg.writeShort(parameterTypes.size());
+		msg.writeBytes(encodedParameterValues, encodedParameterValues.readerIndex(), encodedParameterValues.readableBytes());
+
+		writeResultFormats(msg, resultFieldFormats);
+
+		endMessage(msg);
+	}
+
+	private void writeResultFormats(ChannelBuffer msg, List<Format> resultFieldFormats) {
+
 		//Set format for results fields
 		if(resultFieldFormats.isEmpty()) {
 			//Request all binary
 			msg.writeShort(1);
 			msg.writeShort(1);
 		}
+		else if(resultFieldFormats.size() > 1 && isUniform(resultFieldFormats)) {
+			//Single format applies to all fields
+			msg.writeShort(1);
+			msg.writeShort(resultFieldFormats.get(0).ordinal());
+		}
 		else {
 			//Select result format for each
 			msg.writeShort(resultFieldFormats.size());
@@ -256,8 +540,17 @@ public class ProtocolImpl implements Protocol {
 				msg.writeShort(format.ordinal());
 			}
 		}
+	}
 
-		endMessage(msg);
+	private static boolean isUniform(List<Format> formats) {
+		
+		Format first = formats.get(0);
+		for(int c=1, sz=formats.size(); c < sz; ++c) {
+			if(formats.get(c) != first)
+				return false;
+		}
+		
+		return true;
 	}
 
 	public void writeDescribe(ChannelBuffer msg, ServerObjectType target, String targetName) throws IOException {
@@ -318,6 +611,8 @@ public class ProtocolImpl implements Protocol {
 			logger.finest("FLUSH");
 			
 		writeMessage(msg, FLUSH_MSG_ID);
+		
+		syncPending = true;
 	}
 
 	public void writeSync(ChannelBuffer msg) throws IOException {
@@ -326,6 +621,8 @@ public class ProtocolImpl implements Protocol {
 			logger.finest("SYNC");
 			
 		writeMessage(msg, SYNC_MSG_ID);
+		
+		syncPending = false;
 	}
 
 	public void writeTerminate(ChannelBuffer msg) throws IOException {
@@ -337,10 +634,165 @@ public class ProtocolImpl implements Protocol {
 	}
 	
 	public void send(ChannelBuffer msg) throws IOException {
+		
+		if(metrics != null)
+			metrics.roundTrip();
+		
+		List<MessageStream> streams = takeMessageStreams(msg);
+		int base = msg.readerIndex();
+		
+		if(queuedBegin != null) {
+			
+			ChannelBuffer beginMsg = ChannelBuffers.dynamicBuffer();
+			
+			writeQuery(beginMsg, queuedBegin);
+			
+			msg = ChannelBuffers.wrappedBuffer(beginMsg, msg);
+			base = beginMsg.readableBytes();
+			
+			queuedBegin = null;
+			beginState = BeginState.Sent;
+			beginError = null;
+			
+			// Transaction will be active by the time the command runs
+			txStatus = Active;
+		}
+		
+		if(!streams.isEmpty()) {
+			sendStreamed(msg, base, streams);
+			return;
+		}
+		
 		channel.write(msg);
 	}
 
-	protected void loadParams(ChannelBuffer buffer, List<Type> paramTypes, List<Object> paramValues) throws IOException {
+	private List<MessageStream> takeMessageStreams(ChannelBuffer msg) {
+		
+		if(messageStreams.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		List<MessageStream> streams = new ArrayList<>();
+		for(MessageStream stream : messageStreams) {
+			if(stream.msg == msg) {
+				streams.add(stream);
+			}
+		}
+		
+		// Streams of messages that were never sent are discarded as well
+		messageStreams.clear();
+		
+		return streams;
+	}
+
+	/**
+	 * Sends a message buffer, inserting the data of each parameter stream
+	 * at its position. Data is written in chunks, waiting for the channel
+	 * to drain whenever its write buffer is full, so memory use is bounded
+	 * regardless of the streams' lengths.
+	 * 
+	 * If a stream fails (or ends early) the remaining data is padded and
+	 * the message invalidated so the server rejects it; after waiting for
+	 * the server's response the stream's error is thrown.
+	 */
+	private void sendStreamed(ChannelBuffer msg, int base, List<MessageStream> streams) throws IOException {
+		
+		IOException streamError = null;
+		int pos = msg.readerIndex();
+		
+		for(MessageStream stream : streams) {
+			
+			int offset = base + stream.offset;
+			
+			channel.write(msg.slice(pos, offset - pos));
+			pos = offset;
+			
+			IOException error = writeStream(stream.value);
+			if(error != null && streamError == null) {
+				
+				if(stream.resultFormatsOffset == -1) {
+					// Message cannot be invalidated; the connection is unusable
+					channel.close();
+					throw error;
+				}
+				
+				// An impossible number of result formats makes the server
+				// reject the bind after reading the complete message
+				msg.setShort(base + stream.resultFormatsOffset, Short.MAX_VALUE);
+				
+				streamError = error;
+			}
+		}
+		
+		channel.write(msg.slice(pos, msg.writerIndex() - pos));
+		
+		if(streamError != null) {
+			
+			// Ensure the responses to the failed message are not seen by
+			// the next command
+			ProtocolListener listener = this.listener;
+			synchronized(listener) {
+				while(!listener.isComplete()) {
+					try {
+						listener.wait();
+					}
+					catch(InterruptedException e) {
+						// Ignore
+					}
+				}
+			}
+			
+			throw streamError;
+		}
+	}
+
+	private IOException writeStream(ParameterStream stream) throws IOException {
+		
+		IOException error = null;
+		
+		for(int left = stream.getLength(); left > 0;) {
+			
+			int size = min(left, STREAM_CHUNK_SIZE);
+			
+			ChannelBuffer chunk;
+			
+			if(error == null) {
+				
+				chunk = ChannelBuffers.buffer(size);
+				
+				try {
+					stream.read(chunk, size);
+				}
+				catch(IOException e) {
+					error = e;
+					// Zero pad the partially read chunk
+					chunk.writerIndex(size);
+				}
+			}
+			else {
+				
+				chunk = STREAM_PADDING.slice(0, size);
+			}
+			
+			left -= size;
+			
+			ChannelFuture future = channel.write(chunk);
+			
+			// Backpressure; wait for queued chunks to be written
+			if(!channel.isWritable()) {
+				
+				future.awaitUninterruptibly();
+				
+				if(!future.isSuccess()) {
+					throw new IOException(future.getCause());
+				}
+			}
+		}
+		
+		return error;
+	}
+
+	private void writeParamFormats(ChannelBuffer buffer, List<Type> paramTypes) {
 
 		// Select format for parameters
 		if(paramTypes == null) {
@@ -353,6 +805,11 @@ public class ProtocolImpl implements Protocol {
 				buffer.writeShort(paramType.getParameterFormat().ordinal());
 			}
 		}
+	}
+
+	protected void loadParams(ChannelBuffer buffer, List<Type> paramTypes, List<Object> paramValues) throws IOException {
+
+		writeParamFormats(buffer, paramTypes);
 
 		// Values for each parameter
 		if (paramTypes == null) {
@@ -365,6 +822,18 @@ public class ProtocolImpl implements Protocol {
 				Type paramType = paramTypes.get(c);
 				Object paramValue = paramValues.get(c);
 
+				if(paramValue instanceof ParameterStream && paramType.getPrimitiveType() == PrimitiveType.Binary) {
+
+					// Only the length is written; data is streamed when sent
+					ParameterStream stream = (ParameterStream) paramValue;
+
+					buffer.writeInt(stream.getLength());
+
+					messageStreams.add(new MessageStream(buffer, buffer.writerIndex() - buffer.readerIndex(), stream));
+					messageStreamLength += stream.getLength();
+					continue;
+				}
+
 				Type.Codec codec = paramType.getCodec(paramType.getParameterFormat());
 				codec.encoder.encode(paramType, buffer, paramValue, context);
 				
@@ -376,6 +845,9 @@ public class ProtocolImpl implements Protocol {
 
 		msg.writeByte(msgId);
 		msg.writeInt(4);
+		
+		if(metrics != null)
+			metrics.messageSent(msgId, 5);
 	}
 
 	protected void beginMessage(ChannelBuffer msg, byte msgId) {
@@ -390,6 +862,9 @@ public class ProtocolImpl implements Protocol {
 		msg.markWriterIndex();
 
 		msg.writeInt(-1);
+		
+		messageStreamLength = 0;
+		messageId = msgId;
 	}
 
 	protected void endMessage(ChannelBuffer msg) throws IOException {
@@ -400,9 +875,16 @@ public class ProtocolImpl implements Protocol {
 		
 		int begPos = msg.writerIndex();
 		
-		msg.setInt(begPos, endPos - begPos);
+		// Streamed data is not in the buffer but counts toward the length
+		int length = endPos - begPos + messageStreamLength;
+		msg.setInt(begPos, length);
+		
+		messageStreamLength = 0;
 		
 		msg.writerIndex(endPos);
+		
+		if(metrics != null)
+			metrics.messageSent(messageId, messageId != 0 ? length + 1 : length);
 	}
 
 	/*
@@ -412,6 +894,11 @@ public class ProtocolImpl implements Protocol {
 
 	public void dispatch(ResponseMessage msg) throws IOException {
 
+		lastReceivedTime = System.currentTimeMillis();
+		
+		if(metrics != null)
+			metrics.messageReceived(msg.id, msg.data.readableBytes() + 5);
+		
 		switch (msg.id) {
 		case AUTHENTICATION_MSG_ID:
 			receiveAuthentication(msg.data);
@@ -581,7 +1068,15 @@ public class ProtocolImpl implements Protocol {
 
 		logger.finest("ERROR: " + notice.getCode() + ": " + notice.getMessage());
 
-		listener.error(notice);
+		if(beginState == BeginState.Sent) {
+			beginState = BeginState.Completed;
+			beginError = notice;
+			return;
+		}
+		
+		// Errors can arrive while idle (e.g. when the backend is terminated)
+		if(listener != null)
+			listener.error(notice);
 	}
 
 	private void receiveNotice(ChannelBuffer buffer) throws IOException {
@@ -639,6 +1134,10 @@ public class ProtocolImpl implements Protocol {
 
 	private void receiveRowData(ChannelBuffer buffer) throws IOException {
 		logger.finest("DATA");
+		
+		if(metrics != null)
+			metrics.rowDecoded();
+		
 		listener.rowData(buffer);
 	}
 
@@ -750,6 +1249,7 @@ public class ProtocolImpl implements Protocol {
 		case "CREATE":
 		case "DROP":
 		case "ALTER":
+		case "DISCARD":
 			
 			if(parts.length == 2) {
 
@@ -772,6 +1272,11 @@ public class ProtocolImpl implements Protocol {
 
 		logger.finest("COMPLETE: " + commandTag);
 
+		if(beginState == BeginState.Sent) {
+			beginState = BeginState.Completed;
+			return;
+		}
+		
 		listener.commandComplete(command, rowsAffected, oid);
 	}
 
@@ -783,7 +1288,10 @@ public class ProtocolImpl implements Protocol {
 
 		logger.finest("NOTIFY: " + processId + " - " + channelName + " - " + payload);
 
-		listener.notification(processId, channelName, payload);
+		context.reportNotification(processId, channelName, payload);
+
+		if(listener != null)
+			listener.notification(processId, channelName, payload);
 	}
 
 	private void receiveParameterStatus(ChannelBuffer buffer) throws IOException {
@@ -812,6 +1320,27 @@ public class ProtocolImpl implements Protocol {
 
 		logger.finest("READY: " + txStatus);
 		
+		//Responses to keepalive probes precede those of any later command
+		//and are never passed to a command's listener
+		for(int syncs = keepaliveSyncs.get(); syncs > 0; syncs = keepaliveSyncs.get()) {
+			if(keepaliveSyncs.compareAndSet(syncs, syncs - 1)) {
+				return;
+			}
+		}
+		
+		if(beginState == BeginState.Completed) {
+			
+			beginState = null;
+			
+			// Report a failed begin against the command it was sent with
+			if(beginError != null && listener != null) {
+				listener.error(beginError);
+				beginError = null;
+			}
+			
+			return;
+		}
+		
 		if(listener != null)
 			listener.ready(txStatus);
 	}
@@ -55,12 +55,17 @@ public class ProtocolShared {
 	}
 
 	private ClientBootstrap bootstrap;
+	private Timer timer;
 	private int count = 0;
 
 	public ClientBootstrap getBootstrap() {
 		return bootstrap;
 	}
 
+	public Timer getTimer() {
+		return timer;
+	}
+
 	private synchronized Ref addReference() {
 		if(count == 0) {
 			init();
@@ -85,7 +90,7 @@ public class ProtocolShared {
 		
 		Executor bossExecutorService = Executors.newCachedThreadPool(new NamedThreadFactory("PG-JDBC Boss"));
 		Executor workerExecutorService = Executors.newCachedThreadPool(new NamedThreadFactory("PG-JDBC Worker"));
-		Timer timer = new HashedWheelTimer(new NamedThreadFactory("PG-JDBC Timer"));
+		timer = new HashedWheelTimer(new NamedThreadFactory("PG-JDBC Timer"));
 		
 		int workerCount = getRuntime().availableProcessors();
 
@@ -108,6 +113,8 @@ public class ProtocolShared {
 		bootstrap.shutdown();
 
 		bootstrap.releaseExternalResources();
+		
+		timer.stop();
 	}
 
 }
@@ -2,7 +2,9 @@ package com.impossibl.postgres.protocol.v30;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -12,6 +14,7 @@ import com.impossibl.postgres.protocol.QueryCommand;
 import com.impossibl.postgres.protocol.ResultField;
 import com.impossibl.postgres.protocol.TransactionStatus;
 import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.Metrics;
 import com.impossibl.postgres.types.Type;
 
 
@@ -36,10 +39,26 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 		public void rowDescription(List<ResultField> resultFields) {
 			resultBatch.fields = resultFields;
 			resultBatch.results = !resultFields.isEmpty() ? new ArrayList<>() : null;
+			
+			DeferredRows rows = DeferredRows.create(resultFields, context.getRegistry());
+			if(rows != null) {
+				deferredRows.put(resultBatch, rows);
+			}
 		}
 
 		@Override
 		public void rowData(ChannelBuffer buffer) throws IOException {
+			
+			DeferredRows rows = deferredRows.get(resultBatch);
+			if(rows != null) {
+				rows.add(buffer);
+				return;
+			}
+			
+			readRow(resultBatch, buffer);
+		}
+		
+		void readRow(ResultBatch resultBatch, ChannelBuffer buffer) throws IOException {
 						
 			int fieldCount = buffer.readShort();
 
@@ -53,7 +72,7 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 				
 				Type.Codec.Decoder decoder = fieldType.getCodec(field.format).decoder;
 				
-				Object fieldVal = decoder.decode(fieldType, buffer, context);
+				Object fieldVal = Metrics.decode(fieldType, decoder, buffer, context);
 
 				rowInstance[c] = fieldVal;
 			}
@@ -95,6 +114,7 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 	String command;
 	List<ResultBatch> resultBatches;
 	ResultBatch resultBatch;
+	Map<ResultBatch, DeferredRows> deferredRows;
 
 	
 	
@@ -111,6 +131,7 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 		
 		resultBatch = new ResultBatch();
 		resultBatches = new ArrayList<>();
+		deferredRows = new IdentityHashMap<>();
 
 		QueryListener listener = new QueryListener(protocol.getContext());
 		
@@ -127,6 +148,29 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 		waitFor(listener);
 	}
 
+	@Override
+	public void resolveTypes(Context context) throws IOException {
+		
+		if(deferredRows.isEmpty() || error != null) {
+			return;
+		}
+		
+		QueryListener listener = new QueryListener(context);
+		
+		for(Map.Entry<ResultBatch, DeferredRows> entry : deferredRows.entrySet()) {
+			
+			DeferredRows rows = entry.getValue();
+			
+			rows.loadTypes(context.getRegistry());
+			
+			for(ChannelBuffer row : rows.rows) {
+				listener.readRow(entry.getKey(), row);
+			}
+		}
+		
+		deferredRows.clear();
+	}
+
 	@Override
 	public Status getStatus() {
 		return Status.Completed;
@@ -141,6 +185,15 @@ public class QueryCommandImpl extends CommandImpl implements QueryCommand {
 	public void setMaxFieldLength(int maxFieldLength) {
 	}
 
+	@Override
+	public boolean isColumnar() {
+		return false;
+	}
+
+	@Override
+	public void setColumnar(boolean columnar) {
+	}
+
 	@Override
 	public int getMaxRows() {
 		return 0;
@@ -1,11 +1,14 @@
 package com.impossibl.postgres.system;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static com.impossibl.postgres.system.Settings.APPLICATION_NAME;
 import static com.impossibl.postgres.system.Settings.CLIENT_ENCODING;
 import static com.impossibl.postgres.system.Settings.CREDENTIALS_USERNAME;
 import static com.impossibl.postgres.system.Settings.DATABASE;
 import static com.impossibl.postgres.system.Settings.FIELD_DATETIME_FORMAT_CLASS;
+import static com.impossibl.postgres.system.Settings.METRICS_DECODE_TIMING;
+import static com.impossibl.postgres.system.Settings.METRICS_ENABLED;
 import static com.impossibl.postgres.system.Settings.STANDARD_CONFORMING_STRINGS;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
@@ -15,15 +18,18 @@ import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.net.SocketAddress;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
 
 import com.impossibl.postgres.datetime.DateTimeFormat;
@@ -75,7 +81,10 @@ public class BasicContext implements Context {
 	protected KeyData keyData;
 	protected Protocol protocol;
 	protected Set<WeakReference<NotificationListener>> notificationListeners;
+	protected NotificationDispatcher notificationDispatcher;
+	protected Metrics metrics;
 	protected PreparedQuery[] refreshQueries;
+	protected Map<Integer, CountDownLatch> typeRefreshes = new HashMap<>();
 	
 	
 	Properties ensureDefaultSettings(Properties settings) {
@@ -95,14 +104,31 @@ public class BasicContext implements Context {
 		this.dateFormatter = new ISODateFormat();
 		this.timeFormatter = new ISOTimeFormat();
 		this.timestampFormatter = new ISOTimestampFormat();
-		this.notificationListeners = new ConcurrentSkipListSet<>(); 
+		this.notificationListeners = new CopyOnWriteArraySet<>();
+		this.notificationDispatcher = new NotificationDispatcher();
 		this.registry = new Registry(this);
-		this.protocol = new ProtocolFactoryImpl().connect(address, this);
+		if(Boolean.parseBoolean(settings.getProperty(METRICS_ENABLED, "false"))) {
+			this.metrics = Metrics.createConnectionMetrics(Boolean.parseBoolean(settings.getProperty(METRICS_DECODE_TIMING, "false")));
+		}
+		try {
+			this.protocol = new ProtocolFactoryImpl().connect(address, this);
+		}
+		catch(IOException e) {
+			if(metrics != null) {
+				metrics.close();
+			}
+			throw e;
+		}
 	}
 	
 	protected void shutdown() {		
 		
 		protocol.shutdown();
+		notificationDispatcher.shutdown();
+		
+		if(metrics != null) {
+			metrics.close();
+		}
 		
 		//Release resources
 		protocol = null;
@@ -126,6 +152,12 @@ public class BasicContext implements Context {
 		return registry;
 	}
 
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
 	public Protocol getProtocol() {
 		return protocol;
 	}
@@ -239,8 +271,8 @@ public class BasicContext implements Context {
 		
 		refreshQueries = new PreparedQuery[5];
 		
-		String sql0 = PgType.INSTANCE.getSQL(serverVersion) + " where t.oid = $1";
-		List<Type> params0 = Collections.<Type>emptyList();		
+		String sql0 = PgType.INSTANCE.getSQL(serverVersion) + " where t.oid = any( $1 )";
+		List<Type> params0 = newArrayList(registry.loadType("int4[]"));
 		refreshQueries[0] = prepareQuery(sql0, "refresh-type", params0);
 		
 		String sql1 = PgAttribute.INSTANCE.getSQL(serverVersion) + " and a.attrelid = $1";
@@ -276,31 +308,103 @@ public class BasicContext implements Context {
 	
 	public void refreshType(int typeId) {
 		
-		int latestKnownTypeId = registry.getLatestKnownTypeId();
-		if(latestKnownTypeId >= typeId) {
-			//Refresh this specific type
-			refreshSpecificType(typeId);
+		refreshTypes(Collections.singleton(typeId));
+	}
+	
+	/**
+	 * Refreshes a set of types from the catalog. Types are refreshed at
+	 * most once at a time; when another thread is already refreshing
+	 * one of the types it is not queried again, instead this waits for
+	 * that refresh to complete.
+	 * 
+	 * @param typeIds Ids of the types to refresh
+	 */
+	public void refreshTypes(Collection<Integer> typeIds) {
+		
+		CountDownLatch refresh = new CountDownLatch(1);
+		Set<Integer> refreshTypeIds = new HashSet<>();
+		Set<CountDownLatch> pendingRefreshes = new HashSet<>();
+		
+		synchronized(typeRefreshes) {
+			
+			for(Integer typeId : typeIds) {
+				
+				CountDownLatch pendingRefresh = typeRefreshes.get(typeId);
+				if(pendingRefresh != null) {
+					pendingRefreshes.add(pendingRefresh);
+				}
+				else {
+					typeRefreshes.put(typeId, refresh);
+					refreshTypeIds.add(typeId);
+				}
+				
+			}
+			
 		}
-		else {
-			//Load all new types we haven't seent
-			refreshTypes(latestKnownTypeId);
+		
+		if(!refreshTypeIds.isEmpty()) {
+			
+			try {
+				
+				List<Integer> specificTypeIds = new ArrayList<>();
+				boolean newTypes = false;
+				
+				int latestKnownTypeId = registry.getLatestKnownTypeId();
+				for(Integer typeId : refreshTypeIds) {
+					
+					if(latestKnownTypeId >= typeId) {
+						specificTypeIds.add(typeId);
+					}
+					else {
+						newTypes = true;
+					}
+				}
+				
+				if(newTypes) {
+					//Load all new types we haven't seen
+					refreshNewTypes(latestKnownTypeId);
+				}
+				
+				if(!specificTypeIds.isEmpty()) {
+					//Refresh these specific types
+					refreshSpecificTypes(specificTypeIds);
+				}
+				
+			}
+			finally {
+				
+				synchronized(typeRefreshes) {
+					typeRefreshes.keySet().removeAll(refreshTypeIds);
+				}
+				
+				refresh.countDown();
+			}
+			
+		}
+		
+		for(CountDownLatch pendingRefresh : pendingRefreshes) {
+			awaitUninterruptibly(pendingRefresh);
 		}
 		
 	}
 
-	void refreshSpecificType(int typeId) {
+	void refreshSpecificTypes(Collection<Integer> typeIds) {
 		
 		try {
 			
 			//Load types
-			List<PgType.Row> pgTypes = execPreparedQuery(refreshQueries[0], PgType.Row.class, typeId);
+			List<PgType.Row> pgTypes = execPreparedQuery(refreshQueries[0], PgType.Row.class, (Object)typeIds.toArray(new Integer[typeIds.size()]));
 			
 			if(pgTypes.isEmpty()) {
 				return;
 			}
 				
+			Integer[] relationIds = new Integer[pgTypes.size()];
+			for(int c=0; c < pgTypes.size(); ++c)
+				relationIds[c] = pgTypes.get(c).relationId;
+				
 			//Load attributes
-			List<PgAttribute.Row> pgAttrs = execPreparedQuery(refreshQueries[1], PgAttribute.Row.class, pgTypes.get(0).relationId);
+			List<PgAttribute.Row> pgAttrs = execPreparedQuery(refreshQueries[3], PgAttribute.Row.class, (Object)relationIds);
 			
 			registry.update(pgTypes, pgAttrs, Collections.<PgProc.Row>emptyList());
 		}
@@ -310,7 +414,7 @@ public class BasicContext implements Context {
 		
 	}
 	
-	void refreshTypes(int latestTypeId) {
+	void refreshNewTypes(int latestTypeId) {
 		
 		try {
 			
@@ -530,13 +634,14 @@ public class BasicContext implements Context {
 	
 	public void reportNotification(int processId, String channelName, String payload) {
 		
-		Iterator<WeakReference<NotificationListener>> iter = notificationListeners.iterator();
-		while(iter.hasNext()) {
+		notificationDispatcher.dispatch(processId, channelName, payload);
+		
+		for(WeakReference<NotificationListener> ref : notificationListeners) {
 			
-			NotificationListener listener = iter.next().get();
+			NotificationListener listener = ref.get();
 			if(listener == null) {
 				
-				iter.remove();
+				notificationListeners.remove(ref);
 			}
 			else {
 				
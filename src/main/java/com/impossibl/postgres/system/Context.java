@@ -1,6 +1,7 @@
 package com.impossibl.postgres.system;
 
 import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.TimeZone;
 
 import com.impossibl.postgres.datetime.DateTimeFormat;
@@ -23,6 +24,7 @@ public interface Context {
 	Class<?> lookupInstanceType(Type type);
 
 	void refreshType(int typeId);
+	void refreshTypes(Collection<Integer> typeIds);
 	void refreshRelationType(int relationId);	
 
 	Object getSetting(String name);
@@ -30,5 +32,10 @@ public interface Context {
 	boolean isSettingEnabled(String name);
 	
 	Protocol getProtocol();
+	
+	/**
+	 * @return Metrics of the connection or null if not collected
+	 */
+	Metrics getMetrics();
 
 }
@@ -1,6 +1,7 @@
 package com.impossibl.postgres.system;
 
 import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.TimeZone;
 
 import com.impossibl.postgres.datetime.DateTimeFormat;
@@ -57,6 +58,11 @@ public class DecoratorContext implements Context {
 		base.refreshType(typeId);
 	}
 
+	@Override
+	public void refreshTypes(Collection<Integer> typeIds) {
+		base.refreshTypes(typeIds);
+	}
+
 	@Override
 	public void refreshRelationType(int relationId) {
 		base.refreshRelationType(relationId);
@@ -82,4 +88,9 @@ public class DecoratorContext implements Context {
 		return base.getProtocol();
 	}
 
+	@Override
+	public Metrics getMetrics() {
+		return base.getMetrics();
+	}
+
 }
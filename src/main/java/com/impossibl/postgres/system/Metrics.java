@@ -0,0 +1,529 @@
+package com.impossibl.postgres.system;
+
+import static java.util.logging.Level.WARNING;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.impossibl.postgres.types.Type;
+
+/**
+ * Counters & gauges of a connection's protocol activity. Every update is
+ * also applied to the driver wide totals (see {@link #getDriverMetrics()}).
+ *
+ * Metrics are only collected for connections with the "metrics.enabled"
+ * setting; timing of value decoding additionally requires the
+ * "metrics.decodeTiming" setting. Each collecting connection, and the
+ * driver totals once the first such connection is created, are
+ * registered as MXBeans (under the "com.impossibl.postgres" domain, see
+ * {@link #getObjectName(String)}) and
+ * can be reported periodically to any number of {@link MetricsSink}s.
+ */
+public class Metrics implements MetricsMXBean {
+
+	private static Logger logger = Logger.getLogger(Metrics.class.getName());
+
+	public static final String DOMAIN = "com.impossibl.postgres";
+
+	/**
+	 * Distinguishes the MBeans of drivers loaded by different class
+	 * loaders (e.g. separate web applications)
+	 */
+	private static final String INSTANCE = Integer.toHexString(System.identityHashCode(Metrics.class));
+
+	private static final Metrics DRIVER = new Metrics("driver", null, false);
+	private static final AtomicLong connectionIds = new AtomicLong();
+	private static final Set<Metrics> connections = new CopyOnWriteArraySet<>();
+	private static final Map<MetricsSink, ScheduledFuture<?>> sinks = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService reporter;
+
+	/**
+	 * Count & total time of decoding values of a single type
+	 */
+	private static class Timing {
+		AtomicLong count = new AtomicLong();
+		AtomicLong nanos = new AtomicLong();
+	}
+
+	private String name;
+	private Metrics parent;
+	private boolean decodeTiming;
+	private ObjectName objectName;
+	private AtomicLongArray messagesSent = new AtomicLongArray(256);
+	private AtomicLongArray bytesSent = new AtomicLongArray(256);
+	private AtomicLongArray messagesReceived = new AtomicLongArray(256);
+	private AtomicLongArray bytesReceived = new AtomicLongArray(256);
+	private AtomicLong commands = new AtomicLong();
+	private AtomicLong roundTrips = new AtomicLong();
+	private AtomicLong inFlightCommands = new AtomicLong();
+	private AtomicLong rowsDecoded = new AtomicLong();
+	private AtomicLong statementCacheHits = new AtomicLong();
+	private AtomicLong statementCacheMisses = new AtomicLong();
+	private ConcurrentMap<String, Timing> decodeTimings = new ConcurrentHashMap<>();
+
+	private Metrics(String name, Metrics parent, boolean decodeTiming) {
+		this.name = name;
+		this.parent = parent;
+		this.decodeTiming = decodeTiming;
+	}
+
+	/**
+	 * Creates, and registers, the metrics of a new connection; the driver
+	 * totals are registered along with the first connection's
+	 *
+	 * @param decodeTiming Whether to time the decoding of values
+	 * @return Metrics of the connection
+	 */
+	public static Metrics createConnectionMetrics(boolean decodeTiming) {
+
+		Metrics metrics = new Metrics("connection-" + connectionIds.incrementAndGet(), DRIVER, decodeTiming);
+
+		DRIVER.register();
+		metrics.register();
+		connections.add(metrics);
+
+		return metrics;
+	}
+
+	/**
+	 * @return Totals of all connections collecting metrics
+	 */
+	public static Metrics getDriverMetrics() {
+		return DRIVER;
+	}
+
+	/**
+	 * Unregisters the driver totals MBean (e.g. when the driver is
+	 * deregistered) and stops reporting to all sinks; the MBean is
+	 * registered again with the next connection collecting metrics
+	 */
+	public static synchronized void unregisterDriverMetrics() {
+
+		DRIVER.unregister();
+
+		for(ScheduledFuture<?> report : sinks.values()) {
+			report.cancel(false);
+		}
+		sinks.clear();
+
+		if(reporter != null) {
+			reporter.shutdown();
+			reporter = null;
+		}
+	}
+
+	/**
+	 * Name the MBean of a set of metrics is registered under
+	 *
+	 * @param name Name of the metrics (e.g. "driver")
+	 * @return Object name of the MBean
+	 * @throws MalformedObjectNameException If the name is invalid
+	 */
+	public static ObjectName getObjectName(String name) throws MalformedObjectNameException {
+		return new ObjectName(DOMAIN + ":type=Metrics,instance=" + INSTANCE + ",name=" + name);
+	}
+
+	/**
+	 * Reports the driver totals, and the metrics of each open connection,
+	 * to a sink at a fixed rate on a shared (daemon) thread
+	 *
+	 * @param sink Sink to report to
+	 * @param period Period between reports
+	 * @param unit Unit of the period
+	 */
+	public static synchronized void addSink(final MetricsSink sink, long period, TimeUnit unit) {
+
+		removeSink(sink);
+
+		if(reporter == null) {
+			reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PG-JDBC Metrics");
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+		ScheduledFuture<?> report = reporter.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				report(sink);
+			}
+
+		}, period, period, unit);
+
+		sinks.put(sink, report);
+	}
+
+	/**
+	 * Stops reporting to a sink
+	 *
+	 * @param sink Sink to stop reporting to
+	 */
+	public static synchronized void removeSink(MetricsSink sink) {
+
+		ScheduledFuture<?> report = sinks.remove(sink);
+		if(report != null) {
+			report.cancel(false);
+		}
+	}
+
+	/**
+	 * Reports the driver totals, and the metrics of each open connection,
+	 * to a sink immediately
+	 *
+	 * @param sink Sink to report to
+	 */
+	public static void report(MetricsSink sink) {
+
+		try {
+
+			sink.report(DRIVER.name, DRIVER.getValues());
+
+			for(Metrics metrics : connections) {
+				sink.report(metrics.name, metrics.getValues());
+			}
+
+		}
+		catch(RuntimeException e) {
+			logger.log(WARNING, "Metrics sink failed", e);
+		}
+	}
+
+	/**
+	 * Determines if the decoding of values is timed for the context's
+	 * metrics
+	 */
+	public static boolean isDecodeTimed(Context context) {
+
+		Metrics metrics = context.getMetrics();
+
+		return metrics != null && metrics.decodeTiming;
+	}
+
+	/**
+	 * Decodes a value, timing the decode when enabled for the context's
+	 * metrics
+	 */
+	public static Object decode(Type type, Type.Codec.Decoder decoder, ChannelBuffer buffer, Context context) throws IOException {
+
+		Metrics metrics = context.getMetrics();
+		if(metrics == null || !metrics.decodeTiming) {
+			return decoder.decode(type, buffer, context);
+		}
+
+		long start = System.nanoTime();
+		try {
+			return decoder.decode(type, buffer, context);
+		}
+		finally {
+			metrics.valueDecoded(type.getName(), System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Unregisters the metrics of a closed connection; its counts remain
+	 * part of the driver totals
+	 */
+	public void close() {
+
+		connections.remove(this);
+
+		unregister();
+	}
+
+	private synchronized void unregister() {
+
+		if(objectName == null) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+		catch(JMException e) {
+			logger.log(WARNING, "Unable to unregister metrics MBean", e);
+		}
+
+		objectName = null;
+	}
+
+	private synchronized void register() {
+
+		if(objectName != null) {
+			return;
+		}
+
+		try {
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			ObjectName objectName = getObjectName(name);
+
+			if(!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+				this.objectName = objectName;
+			}
+
+		}
+		catch(JMException | SecurityException e) {
+			logger.log(WARNING, "Unable to register metrics MBean", e);
+		}
+	}
+
+	public void messageSent(byte id, long length) {
+		messagesSent.incrementAndGet(id & 0xff);
+		bytesSent.addAndGet(id & 0xff, length);
+		if(parent != null)
+			parent.messageSent(id, length);
+	}
+
+	public void messageReceived(byte id, long length) {
+		messagesReceived.incrementAndGet(id & 0xff);
+		bytesReceived.addAndGet(id & 0xff, length);
+		if(parent != null)
+			parent.messageReceived(id, length);
+	}
+
+	public void commandStarted() {
+		commands.incrementAndGet();
+		inFlightCommands.incrementAndGet();
+		if(parent != null)
+			parent.commandStarted();
+	}
+
+	public void commandFinished() {
+		inFlightCommands.decrementAndGet();
+		if(parent != null)
+			parent.commandFinished();
+	}
+
+	public void roundTrip() {
+		roundTrips.incrementAndGet();
+		if(parent != null)
+			parent.roundTrip();
+	}
+
+	public void rowDecoded() {
+		rowsDecoded.incrementAndGet();
+		if(parent != null)
+			parent.rowDecoded();
+	}
+
+	public void statementCacheLookup(boolean hit) {
+		(hit ? statementCacheHits : statementCacheMisses).incrementAndGet();
+		if(parent != null)
+			parent.statementCacheLookup(hit);
+	}
+
+	void valueDecoded(String typeName, long nanos) {
+
+		Timing timing = decodeTimings.get(typeName);
+		if(timing == null) {
+			Timing newTiming = new Timing();
+			timing = decodeTimings.putIfAbsent(typeName, newTiming);
+			if(timing == null) {
+				timing = newTiming;
+			}
+		}
+
+		timing.count.incrementAndGet();
+		timing.nanos.addAndGet(nanos);
+
+		if(parent != null)
+			parent.valueDecoded(typeName, nanos);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getMessagesSent() {
+		return sum(messagesSent);
+	}
+
+	@Override
+	public long getBytesSent() {
+		return sum(bytesSent);
+	}
+
+	@Override
+	public Map<String, Long> getMessagesSentByType() {
+		return byType(messagesSent);
+	}
+
+	@Override
+	public Map<String, Long> getBytesSentByType() {
+		return byType(bytesSent);
+	}
+
+	@Override
+	public long getMessagesReceived() {
+		return sum(messagesReceived);
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return sum(bytesReceived);
+	}
+
+	@Override
+	public Map<String, Long> getMessagesReceivedByType() {
+		return byType(messagesReceived);
+	}
+
+	@Override
+	public Map<String, Long> getBytesReceivedByType() {
+		return byType(bytesReceived);
+	}
+
+	@Override
+	public long getCommands() {
+		return commands.get();
+	}
+
+	@Override
+	public long getRoundTrips() {
+		return roundTrips.get();
+	}
+
+	@Override
+	public double getRoundTripsPerCommand() {
+		return ratio(roundTrips.get(), commands.get());
+	}
+
+	@Override
+	public long getInFlightCommands() {
+		return inFlightCommands.get();
+	}
+
+	@Override
+	public long getRowsDecoded() {
+		return rowsDecoded.get();
+	}
+
+	@Override
+	public Map<String, Long> getDecodeCountByType() {
+		Map<String, Long> counts = new TreeMap<>();
+		for(Map.Entry<String, Timing> entry : decodeTimings.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().count.get());
+		}
+		return counts;
+	}
+
+	@Override
+	public Map<String, Long> getDecodeNanosByType() {
+		Map<String, Long> nanos = new TreeMap<>();
+		for(Map.Entry<String, Timing> entry : decodeTimings.entrySet()) {
+			nanos.put(entry.getKey(), entry.getValue().nanos.get());
+		}
+		return nanos;
+	}
+
+	@Override
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	@Override
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	@Override
+	public double getStatementCacheHitRatio() {
+		long hits = statementCacheHits.get();
+		return ratio(hits, hits + statementCacheMisses.get());
+	}
+
+	/**
+	 * Snapshot of all values, keyed by metric name; values by type are
+	 * keyed as "&lt;metric&gt;.&lt;type&gt;" (e.g. "messagesSent.B" or
+	 * "decodeNanos.int4")
+	 *
+	 * @return Current values
+	 */
+	public Map<String, Long> getValues() {
+
+		Map<String, Long> values = new TreeMap<>();
+
+		values.put("messagesSent", getMessagesSent());
+		values.put("bytesSent", getBytesSent());
+		values.put("messagesReceived", getMessagesReceived());
+		values.put("bytesReceived", getBytesReceived());
+		values.put("commands", getCommands());
+		values.put("roundTrips", getRoundTrips());
+		values.put("inFlightCommands", getInFlightCommands());
+		values.put("rowsDecoded", getRowsDecoded());
+		values.put("statementCacheHits", getStatementCacheHits());
+		values.put("statementCacheMisses", getStatementCacheMisses());
+
+		putAll(values, "messagesSent.", getMessagesSentByType());
+		putAll(values, "bytesSent.", getBytesSentByType());
+		putAll(values, "messagesReceived.", getMessagesReceivedByType());
+		putAll(values, "bytesReceived.", getBytesReceivedByType());
+		putAll(values, "decodeCount.", getDecodeCountByType());
+		putAll(values, "decodeNanos.", getDecodeNanosByType());
+
+		return values;
+	}
+
+	private static void putAll(Map<String, Long> values, String prefix, Map<String, Long> typeValues) {
+		for(Map.Entry<String, Long> entry : typeValues.entrySet()) {
+			values.put(prefix + entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static long sum(AtomicLongArray counts) {
+		long total = 0;
+		for(int c=0; c < counts.length(); ++c) {
+			total += counts.get(c);
+		}
+		return total;
+	}
+
+	private static Map<String, Long> byType(AtomicLongArray counts) {
+		Map<String, Long> values = new TreeMap<>();
+		for(int c=0; c < counts.length(); ++c) {
+			long count = counts.get(c);
+			if(count != 0) {
+				// Startup (& SSL request) messages have no type
+				values.put(c == 0 ? "Startup" : String.valueOf((char) c), count);
+			}
+		}
+		return values;
+	}
+
+	private static double ratio(long numerator, long denominator) {
+		return denominator != 0 ? numerator / (double) denominator : 0;
+	}
+
+}
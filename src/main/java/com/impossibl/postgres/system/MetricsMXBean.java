@@ -0,0 +1,37 @@
+package com.impossibl.postgres.system;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link Metrics}. Message types are keyed by
+ * their protocol message type character (e.g. "B" for Bind sent, "D"
+ * for DataRow received).
+ */
+public interface MetricsMXBean {
+
+	String getName();
+
+	long getMessagesSent();
+	long getBytesSent();
+	Map<String, Long> getMessagesSentByType();
+	Map<String, Long> getBytesSentByType();
+
+	long getMessagesReceived();
+	long getBytesReceived();
+	Map<String, Long> getMessagesReceivedByType();
+	Map<String, Long> getBytesReceivedByType();
+
+	long getCommands();
+	long getRoundTrips();
+	double getRoundTripsPerCommand();
+	long getInFlightCommands();
+
+	long getRowsDecoded();
+	Map<String, Long> getDecodeCountByType();
+	Map<String, Long> getDecodeNanosByType();
+
+	long getStatementCacheHits();
+	long getStatementCacheMisses();
+	double getStatementCacheHitRatio();
+
+}
@@ -0,0 +1,22 @@
+package com.impossibl.postgres.system;
+
+import java.util.Map;
+
+/**
+ * Receiver of periodic metrics reports
+ *
+ * @see Metrics#addSink(MetricsSink, long, java.util.concurrent.TimeUnit)
+ */
+public interface MetricsSink {
+
+	/**
+	 * Reports the current values of a set of metrics
+	 *
+	 * @param name Name of the metrics' source ("driver" for the driver wide
+	 * 					totals or the name of a connection)
+	 * @param values Current values keyed by metric name (as produced by
+	 * 					{@link Metrics#getValues()})
+	 */
+	void report(String name, Map<String, Long> values);
+
+}
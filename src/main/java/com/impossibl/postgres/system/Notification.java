@@ -0,0 +1,38 @@
+package com.impossibl.postgres.system;
+
+/**
+ * Asynchronous notification (i.e. from NOTIFY) received from the server
+ */
+public class Notification {
+
+	private int processId;
+	private String channelName;
+	private String payload;
+
+	public Notification(int processId, String channelName, String payload) {
+		this.processId = processId;
+		this.channelName = channelName;
+		this.payload = payload;
+	}
+
+	/**
+	 * @return Process id of the notifying server backend
+	 */
+	public int getProcessId() {
+		return processId;
+	}
+
+	public String getChannelName() {
+		return channelName;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	@Override
+	public String toString() {
+		return channelName + " (" + processId + "): " + payload;
+	}
+
+}
@@ -0,0 +1,277 @@
+package com.impossibl.postgres.system;
+
+import static java.lang.Math.min;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Dispatches received notifications to the subscriptions of their
+ * channel. Dispatching (on the connection's I/O thread) only queues the
+ * notification for each subscription; subscribers are called on their
+ * subscription's executor, so slow subscribers never delay reading from
+ * the connection.
+ */
+public class NotificationDispatcher {
+
+	private static Logger logger = Logger.getLogger(NotificationDispatcher.class.getName());
+
+	/**
+	 * Handling of notifications received while a subscription's queue is
+	 * full
+	 */
+	public enum OverflowPolicy {
+		/** The received notification is discarded */
+		DropNewest,
+		/** The oldest queued notification is discarded */
+		DropOldest
+	}
+
+	/**
+	 * Subscription to a single channel with its own bounded queue
+	 */
+	public static class Subscription implements Runnable {
+
+		private String channelName;
+		private NotificationSubscriber subscriber;
+		private Executor executor;
+		private BlockingQueue<Notification> queue;
+		private OverflowPolicy overflowPolicy;
+		private int maxBatchSize;
+		private AtomicBoolean scheduled = new AtomicBoolean();
+		private AtomicLong dropped = new AtomicLong();
+		private volatile boolean closed;
+
+		public Subscription(String channelName, NotificationSubscriber subscriber, Executor executor, int queueCapacity, OverflowPolicy overflowPolicy, int maxBatchSize) {
+			this.channelName = channelName;
+			this.subscriber = subscriber;
+			this.executor = executor;
+			this.queue = new ArrayBlockingQueue<>(queueCapacity);
+			this.overflowPolicy = overflowPolicy;
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		public String getChannelName() {
+			return channelName;
+		}
+
+		/**
+		 * @return Number of notifications discarded due to overflow
+		 */
+		public long getDroppedCount() {
+			return dropped.get();
+		}
+
+		/**
+		 * @return Number of notifications waiting to be delivered
+		 */
+		public int getQueuedCount() {
+			return queue.size();
+		}
+
+		public boolean isClosed() {
+			return closed;
+		}
+
+		void offer(Notification notification) {
+
+			if(closed) {
+				return;
+			}
+
+			if(!queue.offer(notification)) {
+
+				switch(overflowPolicy) {
+				case DropOldest:
+					while(!queue.offer(notification)) {
+						if(queue.poll() != null) {
+							dropped.incrementAndGet();
+						}
+					}
+					break;
+
+				case DropNewest:
+					dropped.incrementAndGet();
+					break;
+				}
+			}
+
+			schedule();
+		}
+
+		private void schedule() {
+
+			if(scheduled.compareAndSet(false, true)) {
+
+				try {
+					executor.execute(this);
+				}
+				catch(RejectedExecutionException e) {
+					scheduled.set(false);
+					logger.log(WARNING, "Notification delivery rejected by executor", e);
+				}
+			}
+		}
+
+		/**
+		 * Delivers a single batch; further batches are scheduled separately
+		 * so subscriptions sharing an executor are served in turn
+		 */
+		@Override
+		public void run() {
+
+			try {
+
+				List<Notification> batch = new ArrayList<>(min(queue.size(), maxBatchSize));
+
+				if(!closed && queue.drainTo(batch, maxBatchSize) > 0) {
+
+					try {
+						subscriber.notifications(batch);
+					}
+					catch(RuntimeException e) {
+						logger.log(WARNING, "Notification subscriber failed", e);
+					}
+				}
+
+			}
+			finally {
+
+				scheduled.set(false);
+
+				if(!closed && !queue.isEmpty()) {
+					schedule();
+				}
+			}
+		}
+
+	}
+
+	private ConcurrentMap<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+	private ExecutorService defaultExecutor;
+
+	/**
+	 * Adds a subscription
+	 *
+	 * @param subscription Subscription to add
+	 * @return True if it is the first subscription to its channel
+	 */
+	public synchronized boolean add(Subscription subscription) {
+
+		List<Subscription> channelSubscriptions = subscriptions.get(subscription.channelName);
+		if(channelSubscriptions == null) {
+			channelSubscriptions = new CopyOnWriteArrayList<>();
+			subscriptions.put(subscription.channelName, channelSubscriptions);
+		}
+
+		channelSubscriptions.add(subscription);
+
+		return channelSubscriptions.size() == 1;
+	}
+
+	/**
+	 * Removes (and closes) a subscription; notifications still queued are
+	 * discarded
+	 *
+	 * @param subscription Subscription to remove
+	 * @return True if it was the last subscription to its channel
+	 */
+	public synchronized boolean remove(Subscription subscription) {
+
+		subscription.closed = true;
+		subscription.queue.clear();
+
+		List<Subscription> channelSubscriptions = subscriptions.get(subscription.channelName);
+		if(channelSubscriptions == null || !channelSubscriptions.remove(subscription)) {
+			return false;
+		}
+
+		if(channelSubscriptions.isEmpty()) {
+			subscriptions.remove(subscription.channelName);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return Names of all channels with at least one subscription
+	 */
+	public synchronized List<String> getChannelNames() {
+		return new ArrayList<>(subscriptions.keySet());
+	}
+
+	/**
+	 * Queues a notification for each subscription to its channel
+	 */
+	public void dispatch(int processId, String channelName, String payload) {
+
+		List<Subscription> channelSubscriptions = subscriptions.get(channelName);
+		if(channelSubscriptions == null) {
+			return;
+		}
+
+		Notification notification = new Notification(processId, channelName, payload);
+
+		for(Subscription subscription : channelSubscriptions) {
+			subscription.offer(notification);
+		}
+	}
+
+	/**
+	 * Executor used for subscriptions that do not specify one; a single
+	 * (daemon) thread created on first use
+	 */
+	public synchronized Executor getDefaultExecutor() {
+
+		if(defaultExecutor == null) {
+			defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PG-JDBC Notifications");
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+		return defaultExecutor;
+	}
+
+	/**
+	 * Closes all subscriptions and stops the default executor
+	 */
+	public synchronized void shutdown() {
+
+		for(List<Subscription> channelSubscriptions : subscriptions.values()) {
+			for(Subscription subscription : channelSubscriptions) {
+				subscription.closed = true;
+				subscription.queue.clear();
+			}
+		}
+
+		subscriptions.clear();
+
+		if(defaultExecutor != null) {
+			defaultExecutor.shutdown();
+			defaultExecutor = null;
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.impossibl.postgres.system;
+
+import java.util.List;
+
+/**
+ * Receiver of the notifications of a subscribed channel. Notifications
+ * are delivered in batches, in the order received, on the executor of
+ * the subscription; a subscriber is never called concurrently.
+ */
+public interface NotificationSubscriber {
+
+	/**
+	 * @param notifications Batch of notifications, in order; the list is
+	 * 					owned by the subscriber
+	 */
+	void notifications(List<Notification> notifications);
+
+}
@@ -6,6 +6,7 @@ public class Settings {
 	public static final String DATABASE_URL = "databaseUrl";
 	
 	public static final String CONNECTION_READONLY = "readOnly";
+	public static final String CONNECTION_KEEPALIVE_INTERVAL = "keepaliveInterval";
 
 	public static final String CLIENT_ENCODING = "client_encoding";
 	public static final String APPLICATION_NAME = "application_name";
@@ -16,6 +17,40 @@ public class Settings {
 	public static final String FIELD_VARYING_LENGTH_MAX 			= "field.varying.length.max";
 	public static final String FIELD_MONEY_FRACTIONAL_DIGITS	= "field.money.fractionalDigits";
 	public static final String FIELD_DATETIME_FORMAT_CLASS		= "field.datetime.format";
+	public static final String FIELD_BINARY_STREAM_THRESHOLD	= "field.binary.streamThreshold";
+	public static final String FIELD_BINARY_STREAM_LENGTH_MIN	= "field.binary.stream.length.min";
+	
+	public static final String RESULTSET_COLUMNAR = "resultset.columnar";
+	
+	public static final String STATEMENT_PREPARE_THRESHOLD = "prepareThreshold";
+	public static final int STATEMENT_PREPARE_THRESHOLD_DEFAULT = 5;
+	public static final String STATEMENT_REWRITE_IN_LISTS = "statement.rewriteInLists";
+	public static final String STATEMENT_PARAMETER_STREAM_THRESHOLD = "statement.parameterStreamThreshold";
+	
+	public static final String BATCH_PIPELINED = "batch.pipelined";
+	public static final String BATCH_FLUSH_SIZE = "batch.flushSize";
+	public static final int BATCH_FLUSH_SIZE_DEFAULT = 1024 * 1024;
+	public static final String BATCH_REWRITE_INSERTS = "batch.rewriteInserts";
+	
+	public static final String BLOB_REGION_SIZE = "blob.regionSize";
+	public static final int BLOB_REGION_SIZE_DEFAULT = 64 * 1024;
+	public static final String BLOB_READ_AHEAD = "blob.readAhead";
+	public static final int BLOB_READ_AHEAD_DEFAULT = 4;
+	public static final String BLOB_WRITE_BEHIND = "blob.writeBehind";
+	public static final int BLOB_WRITE_BEHIND_DEFAULT = 4;
+	
+	public static final String NOTIFICATION_QUEUE_CAPACITY = "notification.queueCapacity";
+	public static final int NOTIFICATION_QUEUE_CAPACITY_DEFAULT = 10000;
+	public static final String NOTIFICATION_BATCH_SIZE = "notification.batchSize";
+	public static final int NOTIFICATION_BATCH_SIZE_DEFAULT = 256;
+	public static final String NOTIFICATION_OVERFLOW_POLICY = "notification.overflowPolicy";
+	public static final String NOTIFICATION_OVERFLOW_POLICY_DEFAULT = "dropNewest";
+	public static final String NOTIFICATION_SHARED = "notification.shared";
+	public static final String NOTIFICATION_SHARED_CHECK_INTERVAL = "notification.shared.checkInterval";
+	public static final int NOTIFICATION_SHARED_CHECK_INTERVAL_DEFAULT = 5;
+	
+	public static final String METRICS_ENABLED = "metrics.enabled";
+	public static final String METRICS_DECODE_TIMING = "metrics.decodeTiming";
 	
 	public static final String STANDARD_CONFORMING_STRINGS = "standard_conforming_strings";
 
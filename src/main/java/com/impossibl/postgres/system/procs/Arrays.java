@@ -55,7 +55,7 @@ public class Arrays extends SimpleProcProvider {
 				
 				int dimensionCount = buffer.readInt();
 				/* boolean hasNulls = */ buffer.readInt() /* == 1 ? true : false */;
-				Type elementType = context.getRegistry().loadType(buffer.readInt());
+				int elementTypeId = buffer.readInt();
 				
 				//Each Dimension
 				int[] dimensions = new int[dimensionCount];
@@ -69,15 +69,21 @@ public class Arrays extends SimpleProcProvider {
 					lowerBounds[d] = buffer.readInt();
 				}
 				
-				if(atype.getElementType().getId() != elementType.getId()) {
-					context.refreshType(atype.getId());
-				}				
+				//Element types are loaded before decoding; never refresh
+				//from within a decoder
+				Type elementType = atype.getElementType();
+				if(elementType.getId() != elementTypeId) {
+					Type actualElementType = context.getRegistry().lookupType(elementTypeId);
+					if(actualElementType != null) {
+						elementType = actualElementType;
+					}
+				}
 
 				//
 				//Array & Elements
 				//
 
-				instance = readArray(buffer, elementType, dimensions, context);
+				instance = readArray(buffer, elementType, dimensions, Bytes.nestedContext(context));
 				
 				
 				if(length != buffer.readerIndex() - readStart) {
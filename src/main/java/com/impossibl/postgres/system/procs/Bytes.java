@@ -1,5 +1,6 @@
 package com.impossibl.postgres.system.procs;
 
+import static com.impossibl.postgres.system.Settings.FIELD_BINARY_STREAM_LENGTH_MIN;
 import static com.impossibl.postgres.system.Settings.FIELD_VARYING_LENGTH_MAX;
 import static com.impossibl.postgres.types.PrimitiveType.Binary;
 import static java.lang.Math.min;
@@ -8,7 +9,9 @@ import java.io.IOException;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 
+import com.impossibl.postgres.protocol.ParameterStream;
 import com.impossibl.postgres.system.Context;
+import com.impossibl.postgres.system.SettingsContext;
 import com.impossibl.postgres.types.PrimitiveType;
 import com.impossibl.postgres.types.Type;
 
@@ -23,6 +26,25 @@ public class Bytes extends SimpleProcProvider {
 		super(null, null, new BinEncoder(), new BinDecoder(), "bytea");
 	}
 
+	/**
+	 * Prepares a context for decoding values nested in containers (e.g.
+	 * arrays & records); nested values are always decoded as byte arrays.
+	 * 
+	 * @param context Context of the container
+	 * @return Context to decode nested values with
+	 */
+	public static Context nestedContext(Context context) {
+
+		Integer streamThreshold = (Integer) context.getSetting(FIELD_BINARY_STREAM_LENGTH_MIN);
+		if(streamThreshold == null || streamThreshold == 0) {
+			return context;
+		}
+
+		SettingsContext nested = new SettingsContext(context);
+		nested.setSetting(FIELD_BINARY_STREAM_LENGTH_MIN, 0);
+		return nested;
+	}
+
 	static class BinDecoder extends BinaryDecoder {
 
 		public PrimitiveType getInputPrimitiveType() {
@@ -33,16 +55,33 @@ public class Bytes extends SimpleProcProvider {
 			return byte[].class;
 		}
 
-		public byte[] decode(Type type, ChannelBuffer buffer, Context context) throws IOException {
+		/**
+		 * Decodes a value as a byte array or, when its length reaches the
+		 * context's stream threshold, as a slice of the received message
+		 * (avoiding a copy of large values). The threshold is only set in
+		 * the parsing context of statement results; other values (e.g.
+		 * function call results) are always byte arrays.
+		 */
+		public Object decode(Type type, ChannelBuffer buffer, Context context) throws IOException {
 
 			int length = buffer.readInt();
 			if(length == -1) {
 				return null;
 			}
 
+			Integer maxLength = (Integer) context.getSetting(FIELD_VARYING_LENGTH_MAX);
+
+			Integer streamThreshold = (Integer) context.getSetting(FIELD_BINARY_STREAM_LENGTH_MIN);
+			if(streamThreshold != null && streamThreshold > 0 && length >= streamThreshold && getInputPrimitiveType() == Binary) {
+
+				ChannelBuffer slice = buffer.readSlice(maxLength != null ? min(maxLength, length) : length);
+				buffer.skipBytes(length - slice.readableBytes());
+
+				return slice;
+			}
+
 			byte[] bytes;
 			
-			Integer maxLength = (Integer) context.getSetting(FIELD_VARYING_LENGTH_MAX);
 			if(maxLength != null) {
 				bytes = new byte[min(maxLength, length)];
 			}
@@ -74,6 +113,22 @@ public class Bytes extends SimpleProcProvider {
 				
 				buffer.writeInt(-1);
 			}
+			else if (val instanceof ChannelBuffer) {
+				
+				// Buffers (e.g. slices of larger arrays) are written without copying
+				ChannelBuffer bytes = (ChannelBuffer) val;
+				
+				buffer.writeInt(bytes.readableBytes());
+				buffer.writeBytes(bytes, bytes.readerIndex(), bytes.readableBytes());
+			}
+			else if (val instanceof ParameterStream) {
+				
+				// Streams are read completely when encoded in memory (e.g. batches)
+				ParameterStream stream = (ParameterStream) val;
+				
+				buffer.writeInt(stream.getLength());
+				stream.read(buffer, stream.getLength());
+			}
 			else {
 				
 				byte[] bytes = (byte[]) val;
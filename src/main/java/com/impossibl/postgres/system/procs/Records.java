@@ -50,19 +50,27 @@ public class Records extends SimpleProcProvider {
 				int itemCount = buffer.readInt();
 
 				Object[] attributeVals = new Object[itemCount];
+
+				Context attributeContext = Bytes.nestedContext(context);
 	
 				for (int c = 0; c < itemCount; ++c) {
 	
 					Attribute attribute = compType.getAttribute(c+1);
 	
-					Type attributeType = context.getRegistry().loadType(buffer.readInt());
+					int attributeTypeId = buffer.readInt();
 	
-					if (attributeType.getId() != attribute.type.getId()) {
+					//Attribute types are loaded before decoding; never refresh
+					//from within a decoder
+					Type attributeType = attribute.type;
+					if (attributeType.getId() != attributeTypeId) {
 	
-						context.refreshType(attributeType.getId());
+						Type actualAttributeType = context.getRegistry().lookupType(attributeTypeId);
+						if (actualAttributeType != null) {
+							attributeType = actualAttributeType;
+						}
 					}
 	
-					Object attributeVal = attributeType.getBinaryCodec().decoder.decode(attributeType, buffer, context);
+					Object attributeVal = attributeType.getBinaryCodec().decoder.decode(attributeType, buffer, attributeContext);
 	
 					attributeVals[c] = attributeVal;
 				}
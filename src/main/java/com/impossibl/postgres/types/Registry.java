@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -135,6 +136,52 @@ public class Registry {
 		
 	}
 
+	/**
+	 * Looks up an already loaded type by its type-id (aka OID). Unlike
+	 * {@link #loadType(int)} this never materializes or refreshes types,
+	 * so it is safe to use while decoding.
+	 * 
+	 * @param typeId The type's id
+	 * @return Type object or null, if not loaded
+	 */
+	public Type lookupType(int typeId) {
+		
+		lock.readLock().lock();
+		try {
+			return oidMap.get(typeId);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		
+	}
+
+	/**
+	 * Ensures a set of types are loaded. All types that are unknown are
+	 * refreshed together, with a single catalog lookup.
+	 * 
+	 * @param typeIds Ids of the types to load
+	 */
+	public void loadTypes(Collection<Integer> typeIds) {
+		
+		Set<Integer> unknownTypeIds = new HashSet<>();
+		
+		for(Integer typeId : typeIds) {
+			
+			if(typeId == 0 || lookupType(typeId) != null)
+				continue;
+			
+			if(loadRaw(typeId) == null) {
+				unknownTypeIds.add(typeId);
+			}
+		}
+		
+		if(!unknownTypeIds.isEmpty()) {
+			context.refreshTypes(unknownTypeIds);
+		}
+		
+	}
+
 	/**
 	 * Loads a type by its name
 	 * 
@@ -14,6 +14,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.Properties;
 
 import junit.framework.TestCase;
 
@@ -294,4 +296,226 @@ public class BatchExecuteTest extends TestCase {
 		stmt.close();
 	}
 
+	public void testPrimitiveParameters() throws SQLException {
+		Statement stmt = con.createStatement();
+		stmt.execute("CREATE TEMP TABLE batchprimitive (a int2, b int4, c int8, d float4, e float8, f bool, g numeric, h text)");
+
+		PreparedStatement pstmt = con.prepareStatement("INSERT INTO batchprimitive VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+		for(int i = 1; i <= 3; i++) {
+			pstmt.setShort(1, (short) i);
+			pstmt.setLong(2, i * 10L);
+			pstmt.setInt(3, i * 100);
+			pstmt.setDouble(4, i + 0.5);
+			pstmt.setFloat(5, i + 0.25f);
+			pstmt.setBoolean(6, i % 2 == 0);
+			pstmt.setInt(7, i * 1000);
+			if(i == 2) {
+				pstmt.setNull(8, Types.VARCHAR);
+			}
+			else {
+				pstmt.setLong(8, i);
+			}
+			pstmt.addBatch();
+		}
+		assertEquals(3, pstmt.executeBatch().length);
+		pstmt.close();
+
+		ResultSet rs = stmt.executeQuery("SELECT * FROM batchprimitive ORDER BY a");
+		for(int i = 1; i <= 3; i++) {
+			assertTrue(rs.next());
+			assertEquals(i, rs.getShort(1));
+			assertEquals(i * 10, rs.getInt(2));
+			assertEquals(i * 100L, rs.getLong(3));
+			assertEquals(i + 0.5f, rs.getFloat(4), 0.0f);
+			assertEquals(i + 0.25, rs.getDouble(5), 0.0);
+			assertEquals(i % 2 == 0, rs.getBoolean(6));
+			assertEquals(i * 1000, rs.getInt(7));
+			assertEquals(i == 2 ? null : Integer.toString(i), rs.getString(8));
+		}
+		assertTrue(!rs.next());
+		rs.close();
+		stmt.close();
+	}
+
+	public void testChangingParameterTypes() throws SQLException {
+		Statement stmt = con.createStatement();
+		stmt.execute("CREATE TEMP TABLE batchtypes (i int4, t text)");
+
+		PreparedStatement pstmt = con.prepareStatement("INSERT INTO batchtypes VALUES (?, ?)");
+		pstmt.setInt(1, 1);
+		pstmt.setObject(2, 5, Types.INTEGER);
+		pstmt.addBatch();
+		pstmt.setInt(1, 2);
+		pstmt.setObject(2, "abc", Types.VARCHAR);
+		pstmt.addBatch();
+		pstmt.setInt(1, 3);
+		pstmt.setObject(2, 7.5, Types.DOUBLE);
+		pstmt.addBatch();
+		assertEquals(3, pstmt.executeBatch().length);
+		pstmt.close();
+
+		ResultSet rs = stmt.executeQuery("SELECT t FROM batchtypes ORDER BY i");
+		assertTrue(rs.next());
+		assertEquals("5", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("abc", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("7.5", rs.getString(1));
+		assertFalse(rs.next());
+		rs.close();
+		stmt.close();
+	}
+
+	public void testPipelinedBatch() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("batch.pipelined", "true");
+		props.setProperty("batch.flushSize", "256");
+
+		Connection pipelinedCon = TestUtil.openDB(props);
+		try {
+			Statement stmt = pipelinedCon.createStatement();
+			stmt.execute("CREATE TEMP TABLE batchpipelined (a int4, b text)");
+
+			PreparedStatement pstmt = pipelinedCon.prepareStatement("INSERT INTO batchpipelined VALUES (?, ?)");
+			for(int i = 0; i < 100; i++) {
+				pstmt.setInt(1, i);
+				pstmt.setString(2, "row" + i);
+				pstmt.addBatch();
+			}
+
+			int[] counts = pstmt.executeBatch();
+			assertEquals(100, counts.length);
+			for(int count : counts) {
+				assertEquals(1, count);
+			}
+
+			// Queued rows are discarded, flushed rows are not
+			for(int i = 100; i < 120; i++) {
+				pstmt.setInt(1, i);
+				pstmt.setString(2, "row" + i);
+				pstmt.addBatch();
+			}
+			pstmt.clearBatch();
+
+			int flushed = pstmt.executeBatch().length;
+			assertTrue(flushed > 0 && flushed < 20);
+			pstmt.close();
+
+			ResultSet rs = stmt.executeQuery("SELECT a, b FROM batchpipelined ORDER BY a");
+			for(int i = 0; i < 100 + flushed; i++) {
+				assertTrue(rs.next());
+				assertEquals(i, rs.getInt(1));
+				assertEquals("row" + i, rs.getString(2));
+			}
+			assertTrue(!rs.next());
+			rs.close();
+			stmt.close();
+		}
+		finally {
+			TestUtil.closeDB(pipelinedCon);
+		}
+	}
+
+	public void testMultiRowInsertRewrite() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("batch.rewriteInserts", "true");
+
+		Connection rewriteCon = TestUtil.openDB(props);
+		try {
+			Statement stmt = rewriteCon.createStatement();
+			stmt.execute("CREATE TEMP TABLE batchrewrite (a serial, b int4, c text)");
+
+			// Enough rows to require several statements
+			int rows = 40000;
+
+			PreparedStatement pstmt = rewriteCon.prepareStatement("INSERT INTO batchrewrite (b, c) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+			for(int i = 0; i < rows; i++) {
+				pstmt.setInt(1, i);
+				if(i == rows - 1) {
+					pstmt.setNull(2, Types.VARCHAR);
+				}
+				else {
+					pstmt.setString(2, "row" + i);
+				}
+				pstmt.addBatch();
+			}
+
+			int[] counts = pstmt.executeBatch();
+			assertEquals(rows, counts.length);
+			for(int count : counts) {
+				assertEquals(1, count);
+			}
+
+			ResultSet keys = pstmt.getGeneratedKeys();
+			for(int i = 0; i < rows; i++) {
+				assertTrue(keys.next());
+				assertEquals(i + 1, keys.getInt("a"));
+				assertEquals(i, keys.getInt("b"));
+			}
+			assertTrue(!keys.next());
+			keys.close();
+			pstmt.close();
+
+			ResultSet rs = stmt.executeQuery("SELECT count(*), count(c), sum(b) FROM batchrewrite");
+			assertTrue(rs.next());
+			assertEquals(rows, rs.getInt(1));
+			assertEquals(rows - 1, rs.getInt(2));
+			assertEquals((long) rows * (rows - 1) / 2, rs.getLong(3));
+			rs.close();
+
+			// Statements that cannot be rewritten execute normally
+			pstmt = rewriteCon.prepareStatement("UPDATE batchrewrite SET c = ? WHERE b = ?");
+			pstmt.setString(1, "updated");
+			pstmt.setInt(2, 0);
+			pstmt.addBatch();
+			pstmt.setString(1, "updated");
+			pstmt.setInt(2, -1);
+			pstmt.addBatch();
+
+			counts = pstmt.executeBatch();
+			assertEquals(2, counts.length);
+			assertEquals(1, counts[0]);
+			assertEquals(0, counts[1]);
+			pstmt.close();
+			stmt.close();
+		}
+		finally {
+			TestUtil.closeDB(rewriteCon);
+		}
+	}
+
+	public void testMultiRowInsertRewriteQuoting() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("batch.rewriteInserts", "true");
+
+		Connection rewriteCon = TestUtil.openDB(props);
+		try {
+			Statement stmt = rewriteCon.createStatement();
+			stmt.execute("CREATE TEMP TABLE \"BatchQuoted\" (\"Num\" int8, \"Text\" text, \"Tag\" text)");
+
+			PreparedStatement pstmt = rewriteCon.prepareStatement("INSERT INTO \"BatchQuoted\" (\"Num\", \"Text\", \"Tag\") VALUES (?::int8, 'it''s', ?)");
+			for(int i = 0; i < 3; i++) {
+				pstmt.setString(1, Integer.toString(i));
+				pstmt.setString(2, "tag" + i);
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+			pstmt.close();
+
+			ResultSet rs = stmt.executeQuery("SELECT \"Num\", \"Text\", \"Tag\" FROM \"BatchQuoted\" ORDER BY \"Num\"");
+			for(int i = 0; i < 3; i++) {
+				assertTrue(rs.next());
+				assertEquals(i, rs.getLong(1));
+				assertEquals("it's", rs.getString(2));
+				assertEquals("tag" + i, rs.getString(3));
+			}
+			assertTrue(!rs.next());
+			rs.close();
+			stmt.close();
+		}
+		finally {
+			TestUtil.closeDB(rewriteCon);
+		}
+	}
+
 }
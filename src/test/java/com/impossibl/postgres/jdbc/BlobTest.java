@@ -17,6 +17,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -315,6 +317,217 @@ public class BlobTest extends TestCase {
 
 	}
 	
+	public void testSetBytesSection() throws SQLException {
+		byte[] data = "abcdefghijklmnopqrstuvwxyx0123456789".getBytes();
+
+		PreparedStatement ps = _conn.prepareStatement(INSERT);
+		ps.executeUpdate();
+		ps.close();
+
+		ps = _conn.prepareStatement(SELECT);
+		ResultSet rs = ps.executeQuery();
+
+		assertTrue(rs.next());
+		Blob b = rs.getBlob("DATA");
+		assertEquals(10, b.setBytes(1, data, 3, 10));
+		assertEquals(10, b.length());
+		assertTrue(Arrays.equals(Arrays.copyOfRange(data, 3, 13), b.getBytes(1, 10)));
+
+		rs.close();
+		ps.close();
+	}
+
+	public void testReadAheadStream() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("blob.regionSize", "1000");
+		props.setProperty("blob.readAhead", "3");
+
+		Connection conn = TestUtil.openDB(props);
+		try {
+			conn.setAutoCommit(false);
+
+			byte[] data = new byte[25500];
+			new Random(7).nextBytes(data);
+
+			PreparedStatement ps = conn.prepareStatement(INSERT);
+			ps.executeUpdate();
+			ps.close();
+
+			ps = conn.prepareStatement(SELECT);
+			ResultSet rs = ps.executeQuery();
+			assertTrue(rs.next());
+			Blob b = rs.getBlob("DATA");
+			b.setBytes(1, data);
+
+			// Bulk reads spanning several regions
+			InputStream in = b.getBinaryStream();
+			byte[] read = new byte[data.length];
+			int total = 0;
+			for(int count; (count = in.read(read, total, Math.min(1700, read.length - total))) > 0;) {
+				total += count;
+			}
+			assertEquals(data.length, total);
+			assertEquals(-1, in.read(new byte[10], 0, 10));
+			assertTrue(Arrays.equals(data, read));
+			in.close();
+
+			// Single byte reads from an offset
+			in = b.getBinaryStream(2001, data.length);
+			for(int i = 2000; i < data.length; i++) {
+				assertEquals(data[i] & 0xff, in.read());
+			}
+			assertEquals(-1, in.read());
+			in.close();
+
+			rs.close();
+			ps.close();
+			conn.rollback();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testStreamThreshold() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("field.binary.streamThreshold", "10");
+
+		Connection conn = TestUtil.openDB(props);
+		try {
+			conn.setAutoCommit(false);
+
+			byte[] data = new byte[1000];
+			new Random(9).nextBytes(data);
+
+			PreparedStatement ps = conn.prepareStatement(INSERT);
+			ps.executeUpdate();
+			ps.close();
+
+			// Large object reads are never streamed
+			ps = conn.prepareStatement(SELECT);
+			ResultSet rs = ps.executeQuery();
+			assertTrue(rs.next());
+			Blob b = rs.getBlob("DATA");
+			b.setBytes(1, data);
+			assertTrue(Arrays.equals(data, b.getBytes(1, data.length)));
+
+			rs.close();
+			ps.close();
+			conn.rollback();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testWriteBehindStream() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("blob.regionSize", "1000");
+		props.setProperty("blob.writeBehind", "3");
+
+		Connection conn = TestUtil.openDB(props);
+		try {
+			conn.setAutoCommit(false);
+
+			byte[] data = new byte[25500];
+			new Random(11).nextBytes(data);
+
+			PreparedStatement ps = conn.prepareStatement(INSERT);
+			ps.executeUpdate();
+			ps.close();
+
+			ps = conn.prepareStatement(SELECT);
+			ResultSet rs = ps.executeQuery();
+			assertTrue(rs.next());
+			Blob b = rs.getBlob("DATA");
+
+			OutputStream out = b.setBinaryStream(1);
+			out.write(data, 0, 10000);
+			for(int i = 10000; i < 12345; i++) {
+				out.write(data[i]);
+			}
+			// Array sections can be overwritten once written
+			byte[] section = Arrays.copyOfRange(data, 12345, data.length);
+			out.write(section);
+			Arrays.fill(section, (byte)0);
+			out.close();
+
+			assertEquals(data.length, b.length());
+			assertTrue(Arrays.equals(data, b.getBytes(1, data.length)));
+
+			rs.close();
+			ps.close();
+			conn.rollback();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testPositionAcrossRegions() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("blob.regionSize", "100");
+
+		Connection conn = TestUtil.openDB(props);
+		try {
+			conn.setAutoCommit(false);
+
+			byte[] data = new byte[1000];
+			Arrays.fill(data, (byte)'a');
+			// Match spans a region boundary & follows a partial match
+			System.arraycopy("aab".getBytes("US-ASCII"), 0, data, 298, 3);
+			data[700] = 'b';
+
+			PreparedStatement ps = conn.prepareStatement(INSERT);
+			ps.executeUpdate();
+			ps.close();
+
+			ps = conn.prepareStatement(SELECT);
+			ResultSet rs = ps.executeQuery();
+			assertTrue(rs.next());
+			Blob b = rs.getBlob("DATA");
+			b.setBytes(1, data);
+
+			byte[] pattern = "aab".getBytes("US-ASCII");
+			assertEquals(299, b.position(pattern, 1));
+			assertEquals(699, b.position(pattern, 300));
+			assertEquals(-1, b.position(pattern, 700));
+			assertEquals(-1, b.position("c".getBytes("US-ASCII"), 1));
+
+			rs.close();
+			ps.close();
+			conn.rollback();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testLargeOffsets() throws Exception {
+		PreparedStatement ps = _conn.prepareStatement(INSERT);
+		ps.executeUpdate();
+		ps.close();
+
+		ps = _conn.prepareStatement(SELECT);
+		ResultSet rs = ps.executeQuery();
+		assertTrue(rs.next());
+		Blob b = rs.getBlob("DATA");
+
+		long offset = 3L * 1024 * 1024 * 1024;
+		byte[] data = {1, 2, 3};
+		assertEquals(3, b.setBytes(offset + 1, data));
+
+		assertEquals(offset + 3, b.length());
+		assertTrue(Arrays.equals(data, b.getBytes(offset + 1, 3)));
+
+		b.truncate(offset + 1);
+		assertEquals(offset + 1, b.length());
+
+		rs.close();
+		ps.close();
+		_conn.rollback();
+	}
+
 	public void testFree() throws SQLException {
 		Statement stmt = _conn.createStatement();
 		
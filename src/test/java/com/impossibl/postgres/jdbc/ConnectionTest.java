@@ -14,9 +14,12 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 import junit.framework.TestCase;
 
+import com.impossibl.postgres.protocol.Protocol;
+
 /*
  * TestCase to test the internal functionality of org.postgresql.jdbc2.Connection
  * and it's superclass.
@@ -157,6 +160,145 @@ public class ConnectionTest extends TestCase
         TestUtil.closeDB(con);
     }
 
+    /*
+     * The begin of a transaction is sent along with its first statement;
+     * make sure errors are still reported against the statement.
+     */
+    public void testTransactionFirstStatement() throws Exception
+    {
+        con = TestUtil.openDB();
+        con.setAutoCommit(false);
+
+        Statement st = con.createStatement();
+        try {
+            st.executeUpdate("insert into test_missing (id) values (1)");
+            fail("Undefined table error expected");
+        }
+        catch(SQLException e) {
+            assertEquals("42P01", e.getSQLState());
+        }
+        con.rollback();
+
+        PreparedStatement ps = con.prepareStatement("insert into test_a (imagename,image,id) values ('begin',1,?)");
+        ps.setInt(1, 4321);
+        assertEquals(1, ps.executeUpdate());
+        ps.close();
+        con.rollback();
+
+        ResultSet rs = st.executeQuery("select count(*) from test_a where id=4321");
+        assertTrue(rs.next());
+        assertEquals(0, rs.getInt(1));
+        rs.close();
+        st.close();
+
+        TestUtil.closeDB(con);
+    }
+
+    /*
+     * Read only & isolation level are tracked locally and only retrieved
+     * again after statements that may have changed them.
+     */
+    public void testSessionStateTracking() throws Exception
+    {
+        con = TestUtil.openDB();
+        PGConnection pgcon = (PGConnection) con;
+
+        assertFalse(con.isReadOnly());
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, con.getTransactionIsolation());
+        assertNotNull(pgcon.readOnly);
+        assertNotNull(pgcon.transactionIsolation);
+
+        con.setReadOnly(true);
+        assertTrue(con.isReadOnly());
+        con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, con.getTransactionIsolation());
+
+        // Changed behind the connection's back
+        Statement st = con.createStatement();
+        st.execute("SET SESSION CHARACTERISTICS AS TRANSACTION READ WRITE ISOLATION LEVEL READ COMMITTED");
+        assertNull(pgcon.readOnly);
+        assertFalse(con.isReadOnly());
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, con.getTransactionIsolation());
+
+        // Changes in a transaction are undone by rolling back
+        con.setAutoCommit(false);
+        st.execute("SET default_transaction_isolation = 'repeatable read'");
+        assertEquals(Connection.TRANSACTION_REPEATABLE_READ, con.getTransactionIsolation());
+        con.rollback();
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, con.getTransactionIsolation());
+
+        st.execute("SELECT 1");
+        con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, con.getTransactionIsolation());
+        con.rollback();
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, con.getTransactionIsolation());
+
+        st.close();
+        TestUtil.closeDB(con);
+    }
+
+    /*
+     * isValid uses a protocol level ping
+     */
+    public void testIsValid() throws Exception
+    {
+        con = TestUtil.openDB();
+
+        assertTrue(con.isValid(0));
+        assertTrue(con.isValid(5));
+
+        try {
+            con.isValid(-1);
+            fail("Negative timeout should be rejected");
+        }
+        catch(SQLException e) {
+            // Expected
+        }
+
+        TestUtil.closeDB(con);
+
+        assertFalse(con.isValid(5));
+    }
+
+    /*
+     * Idle connections are probed in the background
+     */
+    public void testKeepalive() throws Exception
+    {
+        Properties props = new Properties();
+        props.setProperty("keepaliveInterval", "1");
+        con = TestUtil.openDB(props);
+        Protocol protocol = ((PGConnection) con).getProtocol();
+
+        long start = System.currentTimeMillis();
+        Thread.sleep(2500);
+
+        // Heard from without any statement being executed
+        assertTrue(protocol.getLastReceivedTime() > start);
+        assertTrue(con.isValid(5));
+
+        Statement st = con.createStatement();
+        ResultSet rs = st.executeQuery("SELECT 1");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        st.close();
+
+        // Commands issued while probes are sent receive their own responses
+        PreparedStatement ps = con.prepareStatement("SELECT ?::int4");
+        for (int i = 0; i < 4; i++)
+        {
+            Thread.sleep(1000);
+            ps.setInt(1, i);
+            rs = ps.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            rs.close();
+        }
+        ps.close();
+
+        TestUtil.closeDB(con);
+    }
+
     /*
      * Simple test to see if isClosed works.
      */
@@ -57,7 +57,7 @@ public class DriverTest extends TestCase {
 
 	private void verifyUrl(PGDriver drv, String url, String dbName, Object... hosts) throws Exception {
 		assertTrue(url, drv.acceptsURL(url));
-		PGDriver.ConnectionSpecifier connSpec = drv.parseURL(url);
+		PGDriver.ConnectionSpecifier connSpec = PGDriver.parseURL(url);
 		assertEquals(url, dbName, connSpec.database);
 		assertEquals(url, hosts.length/2, connSpec.addresses.size());
 		for(int c=0; c < hosts.length/2; ++c) {
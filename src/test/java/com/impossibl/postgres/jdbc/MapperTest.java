@@ -0,0 +1,88 @@
+package com.impossibl.postgres.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.impossibl.postgres.mapper.Mapper;
+import com.impossibl.postgres.mapper.PropertySetter;
+import com.impossibl.postgres.protocol.ResultField;
+
+public class MapperTest {
+
+	public static class Bean {
+
+		private String name;
+		public int count;
+		public String ignored;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = "set:" + name;
+		}
+
+	}
+
+	static List<ResultField> fields(String... names) {
+
+		List<ResultField> fields = new ArrayList<>();
+		for(String name : names) {
+			ResultField field = new ResultField();
+			field.name = name;
+			fields.add(field);
+		}
+
+		return fields;
+	}
+
+	@Test
+	public void testSetterAndField() {
+
+		List<PropertySetter> setters = Mapper.buildMapping(Bean.class, fields("name", "count", "missing"));
+
+		assertEquals(3, setters.size());
+		assertNull(setters.get(2));
+
+		Bean bean = new Bean();
+		setters.get(0).set(bean, "abc");
+		setters.get(1).set(bean, 5);
+
+		assertEquals("set:abc", bean.getName());
+		assertEquals(5, bean.count);
+	}
+
+	@Test
+	public void testTypeMismatch() {
+
+		List<PropertySetter> setters = Mapper.buildMapping(Bean.class, fields("name", "count"));
+
+		Bean bean = new Bean();
+		setters.get(0).set(bean, 10);
+		setters.get(1).set(bean, "10");
+
+		assertNull(bean.getName());
+		assertEquals(0, bean.count);
+	}
+
+	@Test
+	public void testCached() {
+
+		List<PropertySetter> first = Mapper.buildMapping(Bean.class, fields("count", "ignored"));
+		List<PropertySetter> second = Mapper.buildMapping(Bean.class, fields("count", "ignored"));
+		List<PropertySetter> other = Mapper.buildMapping(Bean.class, fields("ignored", "count"));
+
+		assertSame(first, second);
+		assertNotNull(other.get(0));
+		assertEquals(2, other.size());
+	}
+
+}
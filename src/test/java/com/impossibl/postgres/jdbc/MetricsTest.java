@@ -0,0 +1,246 @@
+package com.impossibl.postgres.jdbc;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impossibl.postgres.system.Metrics;
+import com.impossibl.postgres.system.MetricsSink;
+
+public class MetricsTest {
+
+	Connection conn;
+	Metrics metrics;
+
+	@Before
+	public void before() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("metrics.enabled", "true");
+		props.setProperty("metrics.decodeTiming", "true");
+		conn = TestUtil.openDB(props);
+		metrics = ((PGConnection) conn).getMetrics();
+	}
+
+	@After
+	public void after() throws SQLException {
+		TestUtil.closeDB(conn);
+	}
+
+	void query(String sql) throws SQLException {
+		PreparedStatement ps = conn.prepareStatement(sql);
+		ResultSet rs = ps.executeQuery();
+		while(rs.next()) {
+			rs.getObject(1);
+		}
+		rs.close();
+		ps.close();
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+
+		Connection plainConn = TestUtil.openDB();
+		try {
+			assertNull(((PGConnection) plainConn).getMetrics());
+		}
+		finally {
+			TestUtil.closeDB(plainConn);
+		}
+	}
+
+	@Test
+	public void testCounts() throws Exception {
+
+		assertNotNull(metrics);
+
+		long driverRows = Metrics.getDriverMetrics().getRowsDecoded();
+		long commands = metrics.getCommands();
+		long rows = metrics.getRowsDecoded();
+
+		query("SELECT i, i::text FROM generate_series(1, 10) AS i");
+
+		assertEquals(rows + 10, metrics.getRowsDecoded());
+		assertTrue(metrics.getCommands() > commands);
+		assertTrue(metrics.getRoundTrips() >= metrics.getCommands());
+		assertTrue(metrics.getRoundTripsPerCommand() >= 1);
+		assertEquals(0, metrics.getInFlightCommands());
+		assertTrue(Metrics.getDriverMetrics().getRowsDecoded() >= driverRows + 10);
+
+		assertTrue(metrics.getMessagesReceivedByType().get("D") >= 10);
+		assertTrue(metrics.getMessagesSentByType().get("B") >= 1);
+		assertTrue(metrics.getBytesSent() > 0);
+		assertTrue(metrics.getBytesReceived() > metrics.getMessagesReceived() * 5);
+
+		assertTrue(metrics.getDecodeCountByType().get("int4") >= 10);
+		assertTrue(metrics.getDecodeCountByType().get("text") >= 10);
+		assertTrue(metrics.getDecodeNanosByType().get("int4") > 0);
+
+		Map<String, Long> values = metrics.getValues();
+		assertEquals(metrics.getRowsDecoded(), (long) values.get("rowsDecoded"));
+		assertEquals(metrics.getMessagesReceivedByType().get("D"), values.get("messagesReceived.D"));
+	}
+
+	@Test
+	public void testColumnarDecodeTiming() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty("metrics.enabled", "true");
+		props.setProperty("metrics.decodeTiming", "true");
+		props.setProperty("resultset.columnar", "true");
+
+		Connection columnarConn = TestUtil.openDB(props);
+		try {
+			Metrics columnarMetrics = ((PGConnection) columnarConn).getMetrics();
+
+			PreparedStatement ps = columnarConn.prepareStatement("SELECT i::int8, i::float8 FROM generate_series(1, 10) AS i");
+			ResultSet rs = ps.executeQuery();
+			for(int i = 1; i <= 10; i++) {
+				assertTrue(rs.next());
+				assertEquals(i, rs.getLong(1));
+				assertEquals(i, rs.getDouble(2), 0);
+			}
+			rs.close();
+			ps.close();
+
+			assertTrue(columnarMetrics.getDecodeCountByType().get("int8") >= 10);
+			assertTrue(columnarMetrics.getDecodeCountByType().get("float8") >= 10);
+		}
+		finally {
+			TestUtil.closeDB(columnarConn);
+		}
+	}
+
+	@Test
+	public void testStatementCache() throws Exception {
+
+		long hits = metrics.getStatementCacheHits();
+
+		query("SELECT 1");
+		query("SELECT 1");
+
+		assertTrue(metrics.getStatementCacheHits() > hits);
+		assertTrue(metrics.getStatementCacheHitRatio() > 0);
+	}
+
+	@Test
+	public void testMBeans() throws Exception {
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		ObjectName driverName = Metrics.getObjectName("driver");
+		ObjectName connName = Metrics.getObjectName(metrics.getName());
+
+		assertTrue(server.isRegistered(driverName));
+		assertTrue(server.isRegistered(connName));
+
+		query("SELECT 1");
+
+		assertEquals(metrics.getRowsDecoded(), server.getAttribute(connName, "RowsDecoded"));
+		assertNotNull(server.getAttribute(connName, "MessagesReceivedByType"));
+
+		conn.close();
+
+		assertFalse(server.isRegistered(connName));
+		assertTrue(server.isRegistered(driverName));
+	}
+
+	@Test
+	public void testDriverDeregistration() throws Exception {
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		ObjectName driverName = Metrics.getObjectName("driver");
+
+		assertTrue(server.isRegistered(driverName));
+
+		final AtomicInteger reports = new AtomicInteger();
+
+		Metrics.addSink(new MetricsSink() {
+
+			@Override
+			public void report(String name, Map<String, Long> values) {
+				reports.incrementAndGet();
+			}
+
+		}, 10, MILLISECONDS);
+
+		PGDriver driver = (PGDriver) DriverManager.getDriver(TestUtil.getURL());
+		driver.deregister();
+
+		assertFalse(server.isRegistered(driverName));
+
+		// Sinks are no longer reported to
+		Thread.sleep(50);
+		int reported = reports.get();
+		Thread.sleep(100);
+		assertEquals(reported, reports.get());
+
+		// Registered again along with the next collecting connection
+		new PGDriver();
+
+		Properties props = new Properties();
+		props.setProperty("metrics.enabled", "true");
+		Connection other = TestUtil.openDB(props);
+		try {
+			assertTrue(server.isRegistered(driverName));
+		}
+		finally {
+			TestUtil.closeDB(other);
+		}
+	}
+
+	@Test
+	public void testSink() throws Exception {
+
+		final Map<String, Map<String, Long>> reports = new ConcurrentHashMap<>();
+		final CountDownLatch reported = new CountDownLatch(2);
+
+		MetricsSink sink = new MetricsSink() {
+
+			@Override
+			public void report(String name, Map<String, Long> values) {
+				reports.put(name, values);
+				reported.countDown();
+			}
+
+		};
+
+		query("SELECT 1");
+
+		Metrics.addSink(sink, 10, MILLISECONDS);
+		try {
+			assertTrue(reported.await(10, SECONDS));
+		}
+		finally {
+			Metrics.removeSink(sink);
+		}
+
+		assertTrue(reports.containsKey("driver"));
+		assertTrue(reports.containsKey(metrics.getName()));
+		assertTrue(reports.get(metrics.getName()).get("rowsDecoded") >= 1);
+	}
+
+}
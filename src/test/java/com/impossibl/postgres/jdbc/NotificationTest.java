@@ -0,0 +1,270 @@
+package com.impossibl.postgres.jdbc;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impossibl.postgres.system.Notification;
+import com.impossibl.postgres.system.NotificationSubscriber;
+
+public class NotificationTest {
+
+	static class Collector implements NotificationSubscriber {
+
+		List<Notification> received = new ArrayList<>();
+		List<Integer> batchSizes = new ArrayList<>();
+		CountDownLatch latch;
+
+		Collector(int expected) {
+			latch = new CountDownLatch(expected);
+		}
+
+		@Override
+		public synchronized void notifications(List<Notification> notifications) {
+			received.addAll(notifications);
+			batchSizes.add(notifications.size());
+			for(int c=0; c < notifications.size(); ++c) {
+				latch.countDown();
+			}
+		}
+
+		void await() throws InterruptedException {
+			assertTrue("notifications not received", latch.await(10, SECONDS));
+		}
+
+	}
+
+	Connection conn;
+	Connection notifyConn;
+
+	@Before
+	public void before() throws Exception {
+		notifyConn = TestUtil.openDB();
+	}
+
+	@After
+	public void after() throws SQLException {
+		TestUtil.closeDB(conn);
+		TestUtil.closeDB(notifyConn);
+	}
+
+	void notify(String channelName, int count) throws SQLException {
+		Statement stmt = notifyConn.createStatement();
+		stmt.execute("SELECT pg_notify('" + channelName + "', i::text) FROM generate_series(1, " + count + ") AS i");
+		stmt.close();
+	}
+
+	@Test
+	public void testSubscribe() throws Exception {
+
+		conn = TestUtil.openDB();
+
+		Collector first = new Collector(3);
+		Collector second = new Collector(3);
+		Collector other = new Collector(1);
+
+		NotificationConnection notifConn = conn.unwrap(NotificationConnection.class);
+		NotificationSubscription firstSub = notifConn.subscribe("Test Channel", first);
+		NotificationSubscription secondSub = notifConn.subscribe("Test Channel", second);
+		NotificationSubscription otherSub = notifConn.subscribe("other", other);
+
+		notify("test channel", 2);
+		notify("Test Channel", 3);
+		notify("other", 1);
+
+		first.await();
+		second.await();
+		other.await();
+
+		assertEquals(3, first.received.size());
+		assertEquals("Test Channel", first.received.get(0).getChannelName());
+		assertEquals("1", first.received.get(0).getPayload());
+		assertEquals("3", first.received.get(2).getPayload());
+		assertEquals(3, second.received.size());
+		assertEquals(1, other.received.size());
+
+		firstSub.close();
+		secondSub.close();
+		otherSub.close();
+
+		firstSub.close();
+
+		assertEquals(0, firstSub.getDroppedCount());
+	}
+
+	@Test
+	public void testBatchingAndOverflow() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty("notification.queueCapacity", "10");
+		props.setProperty("notification.batchSize", "4");
+		conn = TestUtil.openDB(props);
+
+		// Hold delivery until all notifications have been queued
+		final Semaphore hold = new Semaphore(0);
+		Executor executor = new Executor() {
+
+			@Override
+			public void execute(final Runnable command) {
+				new Thread() {
+
+					@Override
+					public void run() {
+						hold.acquireUninterruptibly();
+						command.run();
+					}
+
+				}.start();
+			}
+
+		};
+
+		Collector collector = new Collector(10);
+
+		NotificationSubscription sub = conn.unwrap(NotificationConnection.class).subscribe("overflow", collector, executor);
+
+		notify("overflow", 15);
+
+		// Ensure the notifications have been received
+		Statement stmt = conn.createStatement();
+		stmt.execute("SELECT 1");
+		stmt.close();
+
+		hold.release(100);
+
+		collector.await();
+
+		assertEquals(5, sub.getDroppedCount());
+		assertEquals(10, collector.received.size());
+		assertEquals("10", collector.received.get(9).getPayload());
+		assertEquals(4, (int) collector.batchSizes.get(0));
+
+		sub.close();
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty("notification.queueCapacity", "10");
+		props.setProperty("notification.overflowPolicy", "dropOldest");
+		conn = TestUtil.openDB(props);
+
+		final Semaphore hold = new Semaphore(0);
+		Executor executor = new Executor() {
+
+			@Override
+			public void execute(final Runnable command) {
+				new Thread() {
+
+					@Override
+					public void run() {
+						hold.acquireUninterruptibly();
+						command.run();
+					}
+
+				}.start();
+			}
+
+		};
+
+		Collector collector = new Collector(10);
+
+		NotificationSubscription sub = conn.unwrap(NotificationConnection.class).subscribe("overflow", collector, executor);
+
+		notify("overflow", 15);
+
+		Statement stmt = conn.createStatement();
+		stmt.execute("SELECT 1");
+		stmt.close();
+
+		hold.release(100);
+
+		collector.await();
+
+		assertEquals(5, sub.getDroppedCount());
+		assertEquals("6", collector.received.get(0).getPayload());
+		assertEquals("15", collector.received.get(9).getPayload());
+
+		sub.close();
+	}
+
+	@Test
+	public void testShared() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty("notification.shared", "true");
+		conn = TestUtil.openDB(props);
+		Connection otherConn = TestUtil.openDB(props);
+
+		Collector first = new Collector(2);
+		Collector second = new Collector(2);
+
+		NotificationSubscription firstSub = conn.unwrap(NotificationConnection.class).subscribe("shared", first);
+		NotificationSubscription secondSub = otherConn.unwrap(NotificationConnection.class).subscribe("shared", second);
+
+		assertEquals(1, SharedNotificationListener.getListenerCount());
+
+		// Subscriptions outlive the connections used to make them
+		TestUtil.closeDB(otherConn);
+
+		notify("shared", 2);
+
+		first.await();
+		second.await();
+
+		assertEquals("2", second.received.get(1).getPayload());
+
+		firstSub.close();
+		assertEquals(1, SharedNotificationListener.getListenerCount());
+
+		secondSub.close();
+		assertEquals(0, SharedNotificationListener.getListenerCount());
+	}
+
+	@Test
+	public void testSharedReconnect() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty("notification.shared", "true");
+		props.setProperty("notification.shared.checkInterval", "1");
+		conn = TestUtil.openDB(props);
+
+		Collector collector = new Collector(1);
+
+		NotificationSubscription sub = conn.unwrap(NotificationConnection.class).subscribe("reconnect", collector);
+
+		Statement stmt = notifyConn.createStatement();
+		ResultSet rs = stmt.executeQuery("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE query = 'LISTEN \"reconnect\"'");
+		assertTrue(rs.next());
+		assertTrue(rs.getBoolean(1));
+		rs.close();
+		stmt.close();
+
+		for(int c=0; c < 20 && collector.latch.getCount() > 0; ++c) {
+			notify("reconnect", 1);
+			collector.latch.await(500, MILLISECONDS);
+		}
+
+		collector.await();
+
+		sub.close();
+	}
+
+}
@@ -49,4 +49,47 @@ public class PerformanceTest {
 		
 	}
 	
+	@Test
+	public void testParseLargeStatement() throws Exception {
+		
+		StringBuilder sql = new StringBuilder("INSERT INTO test (id, name, descr, amount) VALUES ");
+		for(int c=0; sql.length() < 64 * 1024; ++c) {
+			if(c > 0)
+				sql.append(", ");
+			sql.append("(?, 'name ").append(c).append("', /* row ").append(c).append(" */ \"x\", -").append(c).append(".5e-1)");
+		}
+		
+		benchmarkParse("Large statement", sql.toString());
+	}
+	
+	@Test
+	public void testParseDollarQuotedBody() throws Exception {
+		
+		StringBuilder sql = new StringBuilder("CREATE FUNCTION test() RETURNS void AS $body$\nBEGIN\n");
+		while(sql.length() < 16 * 1024) {
+			sql.append("  PERFORM some_func('a', $$b$$, 10, ?); -- comment\n");
+		}
+		sql.append("END;\n$body$ LANGUAGE plpgsql");
+		
+		benchmarkParse("Dollar quoted body", sql.toString());
+	}
+	
+	void benchmarkParse(String name, String sql) throws Exception {
+		
+		//Warm up
+		for(int c=0; c < 200; ++c) {
+			new SQLText(sql);
+		}
+		
+		int iterations = 1000;
+		
+		Timer timer = new Timer();
+		
+		for(int c=0; c < iterations; ++c) {
+			new SQLText(sql);
+		}
+		
+		System.out.println(name + " (" + sql.length() + " chars) Parse Time: " + (timer.getLap() / (float)iterations) + "ms");
+	}
+	
 }
@@ -19,6 +19,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -135,6 +138,66 @@ public class PreparedStatementTest extends TestCase {
 		runBrokenStream(is, Integer.MAX_VALUE);
 	}
 
+	public void testStreamedBinaryParameters() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("statement.parameterStreamThreshold", "100");
+
+		Connection streamConn = TestUtil.openDB(props);
+		try {
+			byte[] data = new byte[300 * 1024 + 7];
+			new Random(3).nextBytes(data);
+
+			PreparedStatement pstmt = streamConn.prepareStatement("INSERT INTO streamtable (bin,str) VALUES (?,?)");
+			pstmt.setBinaryStream(1, new ByteArrayInputStream(data), data.length);
+			pstmt.setString(2, "streamed");
+			assertEquals(1, pstmt.executeUpdate());
+
+			// Streams cannot be sent again without being set again
+			try {
+				pstmt.executeUpdate();
+				fail("Expected error re-executing with a consumed stream");
+			}
+			catch(SQLException e) {
+				// Ok
+			}
+
+			// Batches read streams into memory
+			pstmt.setBinaryStream(1, new ByteArrayInputStream(data), 1000);
+			pstmt.setString(2, "batched");
+			pstmt.addBatch();
+			pstmt.executeBatch();
+			pstmt.close();
+
+			Statement stmt = streamConn.createStatement();
+			ResultSet rs = stmt.executeQuery("SELECT bin FROM streamtable WHERE str = 'streamed'");
+			assertTrue(rs.next());
+			assertTrue(Arrays.equals(data, rs.getBytes(1)));
+			rs.close();
+
+			rs = stmt.executeQuery("SELECT bin FROM streamtable WHERE str = 'batched'");
+			assertTrue(rs.next());
+			assertTrue(Arrays.equals(Arrays.copyOf(data, 1000), rs.getBytes(1)));
+			rs.close();
+
+			stmt.executeUpdate("DELETE FROM streamtable");
+			stmt.close();
+
+			// Failed streams must leave the connection usable
+			Connection current = conn;
+			conn = streamConn;
+			try {
+				runBrokenStream(new ByteArrayInputStream(data, 0, 500), 1000);
+				runBrokenStream(new BrokenInputStream(new ByteArrayInputStream(data), 70 * 1024), data.length);
+			}
+			finally {
+				conn = current;
+			}
+		}
+		finally {
+			TestUtil.closeDB(streamConn);
+		}
+	}
+
 	private void runBrokenStream(InputStream is, int length) throws SQLException {
 		PreparedStatement pstmt = null;
 		try {
@@ -734,4 +797,277 @@ public class PreparedStatementTest extends TestCase {
 		pstmt.close();
 	}
 
+	private static int countServerStatements(Connection conn) throws SQLException {
+		Statement stmt = conn.createStatement();
+		ResultSet rs = stmt.executeQuery("SELECT count(*) FROM pg_prepared_statements");
+		rs.next();
+		int count = rs.getInt(1);
+		stmt.close();
+		return count;
+	}
+
+	public void testPrepareThreshold() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("prepareThreshold", "3");
+		Connection conn = TestUtil.openDB(props);
+		try {
+			int initial = countServerStatements(conn);
+
+			PGPreparedStatement pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT ?::int4 + 1");
+			for(int i = 1; i <= 3; i++) {
+				pstmt.setInt(1, i);
+				ResultSet rs = pstmt.executeQuery();
+				assertTrue(rs.next());
+				assertEquals(i + 1, rs.getInt(1));
+				rs.close();
+				assertNull(pstmt.name);
+			}
+			assertEquals(initial, countServerStatements(conn));
+
+			// Crossing the threshold promotes to a named statement
+			for(int i = 4; i <= 6; i++) {
+				pstmt.setInt(1, i);
+				ResultSet rs = pstmt.executeQuery();
+				assertTrue(rs.next());
+				assertEquals(i + 1, rs.getInt(1));
+				rs.close();
+				assertNotNull(pstmt.name);
+			}
+			assertEquals(initial + 1, countServerStatements(conn));
+
+			pstmt.close();
+			assertEquals(initial, countServerStatements(conn));
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testPrepareThresholdDisabled() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("prepareThreshold", "0");
+		Connection conn = TestUtil.openDB(props);
+		try {
+			PGPreparedStatement pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT ?::int4");
+			assertNotNull(pstmt.name);
+			pstmt.setInt(1, 1);
+			ResultSet rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(1, rs.getInt(1));
+			pstmt.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testCachedDescription() throws Exception {
+		Connection conn = TestUtil.openDB();
+		try {
+			PGPreparedStatement pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT ?::int4 + 1");
+			assertNull(((PGConnection) conn).statementDescriptions.get(pstmt.sqlText, pstmt.parameterTypes));
+			pstmt.setInt(1, 1);
+			ResultSet rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(2, rs.getInt(1));
+			pstmt.close();
+
+			// A new statement with the same text is parsed & executed together
+			pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT ?::int4 + 1");
+			assertNotNull(((PGConnection) conn).statementDescriptions.get(pstmt.sqlText, pstmt.parameterTypes));
+			for(int i = 1; i <= 10; i++) {
+				pstmt.setInt(1, i);
+				rs = pstmt.executeQuery();
+				assertTrue(rs.next());
+				assertEquals(i + 1, rs.getInt(1));
+				assertEquals(Types.INTEGER, rs.getMetaData().getColumnType(1));
+				rs.close();
+			}
+			pstmt.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testCachedDescriptionSchemaChange() throws Exception {
+		Connection conn = TestUtil.openDB();
+		try {
+			Statement stmt = conn.createStatement();
+			stmt.execute("CREATE TEMP TABLE desc_change (a int4)");
+			stmt.execute("INSERT INTO desc_change VALUES (1)");
+
+			PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM desc_change WHERE a = ?");
+			pstmt.setInt(1, 1);
+			ResultSet rs = pstmt.executeQuery();
+			assertEquals(1, rs.getMetaData().getColumnCount());
+			pstmt.close();
+
+			stmt.execute("ALTER TABLE desc_change ADD COLUMN b text DEFAULT 'x'");
+			stmt.close();
+
+			// Cached description is out of date; fields come from the server
+			pstmt = conn.prepareStatement("SELECT * FROM desc_change WHERE a = ?");
+			pstmt.setInt(1, 1);
+			rs = pstmt.executeQuery();
+			assertEquals(2, rs.getMetaData().getColumnCount());
+			assertTrue(rs.next());
+			assertEquals(1, rs.getInt(1));
+			assertEquals("x", rs.getString(2));
+			pstmt.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testCachedDescriptionTypeChange() throws Exception {
+		Connection conn = TestUtil.openDB();
+		try {
+			Statement stmt = conn.createStatement();
+			stmt.execute("CREATE TEMP TABLE desc_type (a int4)");
+			stmt.execute("INSERT INTO desc_type VALUES (1)");
+
+			PreparedStatement pstmt = conn.prepareStatement("SELECT a FROM desc_type WHERE a = ?");
+			pstmt.setString(1, "1");
+			ResultSet rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			pstmt.close();
+
+			stmt.execute("ALTER TABLE desc_type ALTER COLUMN a TYPE text");
+			stmt.close();
+
+			// Cached parameter types no longer match; the statement is re-parsed
+			pstmt = conn.prepareStatement("SELECT a FROM desc_type WHERE a = ?");
+			pstmt.setString(1, "1");
+			rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals("1", rs.getString(1));
+			assertEquals(Types.VARCHAR, rs.getMetaData().getColumnType(1));
+			pstmt.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testParameterCoercionPlan() throws Exception {
+		Connection conn = TestUtil.openDB();
+		try {
+			PGPreparedStatement pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT ?::int4 + 1");
+			pstmt.setString(1, "1");
+			ResultSet rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(2, rs.getInt(1));
+			rs.close();
+
+			// Target types are reused while the parameter types are unchanged
+			Class<?>[] targetTypes = pstmt.parameterTargetTypes;
+			assertNotNull(targetTypes);
+			for(int i = 2; i <= 5; i++) {
+				pstmt.setLong(1, i);
+				rs = pstmt.executeQuery();
+				assertTrue(rs.next());
+				assertEquals(i + 1, rs.getInt(1));
+				rs.close();
+			}
+			assertSame(targetTypes, pstmt.parameterTargetTypes);
+
+			// Changing a parameter's type invalidates them
+			pstmt.setObject(1, 6, Types.BIGINT);
+			rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(7, rs.getInt(1));
+			rs.close();
+			assertNotSame(targetTypes, pstmt.parameterTargetTypes);
+
+			pstmt.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
+	public void testInListRewrite() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("statement.rewriteInLists", "true");
+
+		Connection conn = TestUtil.openDB(props);
+		try {
+			Statement stmt = conn.createStatement();
+			stmt.execute("CREATE TEMP TABLE inlist (id int4, name text)");
+			stmt.execute("INSERT INTO inlist SELECT i, 'name' || i FROM generate_series(1, 10) i");
+			stmt.close();
+
+			PGPreparedStatement pstmt = (PGPreparedStatement) conn.prepareStatement("SELECT id FROM inlist WHERE id IN (?, ?, ?) AND name <> ? ORDER BY id");
+			pstmt.setInt(1, 2);
+			pstmt.setLong(2, 5);
+			pstmt.setString(3, "7");
+			pstmt.setString(4, "name5");
+
+			ResultSet rs = pstmt.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(2, rs.getInt(1));
+			assertTrue(rs.next());
+			assertEquals(7, rs.getInt(1));
+			assertFalse(rs.next());
+			rs.close();
+
+			assertEquals(4, pstmt.getParameterMetaData().getParameterCount());
+			assertEquals(Types.INTEGER, pstmt.getParameterMetaData().getParameterType(1));
+			assertEquals(Types.VARCHAR, pstmt.getParameterMetaData().getParameterType(4));
+
+			// Lists of any size share the same native SQL
+			PGPreparedStatement pstmt2 = (PGPreparedStatement) conn.prepareStatement("SELECT id FROM inlist WHERE id NOT IN (?) AND name <> ? ORDER BY id");
+			assertEquals(pstmt.sqlText.replace("= ANY", "<> ALL"), pstmt2.sqlText);
+
+			pstmt2.setInt(1, 1);
+			pstmt2.setNull(2, Types.VARCHAR);
+			rs = pstmt2.executeQuery();
+			assertFalse(rs.next());
+			rs.close();
+
+			pstmt2.setString(2, "name3");
+			rs = pstmt2.executeQuery();
+			for(int i = 2; i <= 10; i++) {
+				if(i == 3) {
+					continue;
+				}
+				assertTrue(rs.next());
+				assertEquals(i, rs.getInt(1));
+			}
+			assertFalse(rs.next());
+			rs.close();
+
+			// Quoted identifiers & literals are retained
+			PreparedStatement pstmt3 = conn.prepareStatement("SELECT \"id\", 'it''s' FROM inlist WHERE name = 'name4' AND id IN (?, ?)");
+			pstmt3.setInt(1, 4);
+			pstmt3.setInt(2, 5);
+			rs = pstmt3.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(4, rs.getInt(1));
+			assertEquals("it's", rs.getString(2));
+			assertFalse(rs.next());
+			rs.close();
+
+			// Unset list elements are not sent as nulls
+			pstmt3.clearParameters();
+			pstmt3.setInt(1, 4);
+			try {
+				pstmt3.executeQuery();
+				fail("Expected SQLException");
+			}
+			catch(SQLException e) {
+				assertTrue(e.getMessage().contains("parameter 2"));
+			}
+
+			pstmt.close();
+			pstmt2.close();
+			pstmt3.close();
+		}
+		finally {
+			TestUtil.closeDB(conn);
+		}
+	}
+
 }
@@ -24,6 +24,10 @@ import org.junit.runners.Suite.SuiteClasses;
 	TimeTest.class,
 	TimezoneTest.class,
 	StructTest.class,
+	TypedQueryTest.class,
+	MapperTest.class,
+	NotificationTest.class,
+	MetricsTest.class,
 	BlobTest.class,
 	XmlTest.class,
 	IntervalTest.class,
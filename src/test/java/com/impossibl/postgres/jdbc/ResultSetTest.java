@@ -7,16 +7,24 @@
  */
 package com.impossibl.postgres.jdbc;
 
+import java.io.InputStream;
+import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Locale;
+import java.util.Properties;
 
 import junit.framework.TestCase;
 
+import com.google.common.io.ByteStreams;
+
+import com.impossibl.postgres.protocol.ColumnVector;
+
 
 
 /*
@@ -411,6 +419,33 @@ public class ResultSetTest extends TestCase {
 		stmt.close();
 	}
 
+	public void testFetchSizeInTransaction() throws SQLException {
+		con.setAutoCommit(false);
+		try {
+			// First statement of the transaction; begins it
+			Statement stmt = con.createStatement();
+			stmt.setFetchSize(2);
+			ResultSet rs = stmt.executeQuery("SELECT i FROM generate_series(1, 5) AS i");
+			for(int i = 1; i <= 5; i++) {
+				assertTrue(rs.next());
+				assertEquals(i, rs.getInt(1));
+			}
+			assertFalse(rs.next());
+			rs.close();
+
+			rs = stmt.executeQuery("SELECT 6");
+			assertTrue(rs.next());
+			assertEquals(6, rs.getInt(1));
+			rs.close();
+			stmt.close();
+
+			con.commit();
+		}
+		finally {
+			con.setAutoCommit(true);
+		}
+	}
+
 	public void testZeroRowResultPositioning() throws SQLException {
 		Statement stmt = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
 		ResultSet rs = stmt.executeQuery("SELECT * FROM pg_database WHERE datname='nonexistantdatabase'");
@@ -703,4 +738,102 @@ public class ResultSetTest extends TestCase {
 		}
 	}
 
+	public void testColumnar() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("resultset.columnar", "true");
+		Connection colCon = TestUtil.openDB(props);
+		try {
+			Statement stmt = colCon.createStatement();
+			ResultSet rs = stmt.executeQuery("SELECT id, id::int8, id::float8, 'v' || (id % 2), id::numeric FROM testrs UNION ALL SELECT NULL, NULL, NULL, NULL, NULL ORDER BY 1");
+
+			ColumnarResultSet crs = rs.unwrap(ColumnarResultSet.class);
+			assertTrue(crs.isColumnar());
+			assertTrue(crs.getColumnVector(1) instanceof ColumnVector.Ints);
+			assertTrue(crs.getColumnVector(2) instanceof ColumnVector.Longs);
+			assertTrue(crs.getColumnVector(3) instanceof ColumnVector.Doubles);
+			assertTrue(crs.getColumnVector(4) instanceof ColumnVector.Strings);
+			assertEquals(7, crs.getColumnVector(1).size());
+			assertEquals(2, ((ColumnVector.Strings) crs.getColumnVector(4)).getDictionary().size());
+
+			int sum = 0;
+			while(rs.next()) {
+				int id = rs.getInt(1);
+				if(rs.wasNull()) {
+					assertEquals(0L, rs.getLong(2));
+					assertTrue(rs.wasNull());
+					assertNull(rs.getString(4));
+					assertNull(rs.getObject(5));
+					continue;
+				}
+				sum += id;
+				assertEquals(Integer.valueOf(id), rs.getObject(1));
+				assertEquals(id, rs.getLong(2));
+				assertEquals((double) id, rs.getDouble(3));
+				assertEquals("v" + (id % 2), rs.getString(4));
+				assertEquals(id, rs.getBigDecimal(5).intValue());
+			}
+			assertEquals(25, sum);
+			rs.close();
+
+			rs = stmt.executeQuery("SELECT id FROM testrs");
+			assertTrue(rs.isWrapperFor(ColumnarResultSet.class));
+			stmt.close();
+		}
+		finally {
+			TestUtil.closeDB(colCon);
+		}
+
+		ResultSet rs = con.createStatement().executeQuery("SELECT id FROM testrs");
+		assertFalse(rs.unwrap(ColumnarResultSet.class).isColumnar());
+		try {
+			rs.unwrap(ColumnarResultSet.class).getColumnVector(1);
+			fail("Expected non-columnar result set to throw");
+		}
+		catch(SQLException e) {
+			// Ok
+		}
+	}
+
+
+	public void testStreamedBinary() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("field.binary.streamThreshold", "1000");
+		Connection streamCon = TestUtil.openDB(props);
+		try {
+			PreparedStatement ps = streamCon.prepareStatement("SELECT decode(repeat('ab', 5000), 'hex'), '\\x0102'::bytea, ARRAY[decode(repeat('cd', 2000), 'hex')]");
+			ResultSet rs = ps.executeQuery();
+			assertTrue(rs.next());
+
+			byte[] expected = new byte[5000];
+			Arrays.fill(expected, (byte) 0xab);
+
+			// Above threshold; streamed
+			InputStream in = rs.getBinaryStream(1);
+			assertTrue(Arrays.equals(expected, ByteStreams.toByteArray(in)));
+			// Each stream reads from the start
+			assertEquals(0xab, rs.getBinaryStream(1).read());
+			assertTrue(Arrays.equals(expected, rs.getBytes(1)));
+			assertTrue(Arrays.equals(expected, (byte[]) rs.getObject(1)));
+
+			Blob blob = rs.getBlob(1);
+			assertEquals(5000, blob.length());
+			assertTrue(Arrays.equals(new byte[] {(byte) 0xab, (byte) 0xab}, blob.getBytes(4999, 10)));
+			assertTrue(Arrays.equals(expected, ByteStreams.toByteArray(blob.getBinaryStream())));
+
+			// Below threshold; materialized
+			assertTrue(Arrays.equals(new byte[] {1, 2}, rs.getBytes(2)));
+			assertTrue(Arrays.equals(new byte[] {1, 2}, ByteStreams.toByteArray(rs.getBinaryStream(2))));
+
+			// Array elements are never streamed
+			byte[][] elements = (byte[][]) rs.getArray(3).getArray();
+			assertEquals(2000, elements[0].length);
+
+			rs.close();
+			ps.close();
+		}
+		finally {
+			TestUtil.closeDB(streamCon);
+		}
+	}
+
 }
@@ -2,7 +2,10 @@ package com.impossibl.postgres.jdbc;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.sql.SQLException;
 import java.text.ParseException;
@@ -90,4 +93,157 @@ public class SQLTextTests {
 		}
 	}
 
+	@Test
+	public void testDollarQuotedText() throws SQLException, ParseException {
+		
+		String sql =
+				"create function f(int) returns int as $body$ select $1 + ?; -- ? $$ ; $body$ language sql;" +
+				"select $$it's a ? { ($$, x$$y";
+		
+		SQLText sqlText = new SQLText(sql);
+		
+		assertThat(sqlText.getStatementCount(), is(2));
+		assertThat(sqlText.toString(), is(equalTo(sql)));
+	}
+
+	@Test
+	public void testSeparateComments() throws SQLException, ParseException {
+		
+		SQLText sqlText = new SQLText("select /* one */ ?, /* two /* nested */ */ ?");
+		
+		assertThat(sqlText.toString(), is(equalTo("select /* one */ $1, /* two /* nested */ */ $2")));
+	}
+
+	@Test
+	public void testUnbalancedGroups() {
+		
+		for(String sql : new String[] {"select (1", "select {fn abs(1)", "select 1)", "select 1}"}) {
+			
+			try {
+				new SQLText(sql);
+				fail("Expected parse error for: " + sql);
+			}
+			catch(ParseException e) {
+				// Ok
+			}
+		}
+	}
+
+	@Test
+	public void testTranslationCache() throws SQLException {
+		
+		String sql = "select {fn abs(?)}, ? from test where a = ?; select ?";
+		
+		SQLTextCache.Entry entry = SQLTextCache.get(sql, null);
+		
+		assertThat(entry.nativeSQL, is(equalTo("select abs($1), $2 from test where a = $3;select $1")));
+		assertThat(entry.parameterCount, is(4));
+		assertThat(entry.statementCount, is(2));
+		
+		assertSame(entry, SQLTextCache.get(sql, null));
+		
+		try {
+			SQLTextCache.get("select (1", null);
+			fail("Expected parse error");
+		}
+		catch(SQLException e) {
+			// Ok
+		}
+	}
+
+	@Test
+	public void testMultiRowInsertQuoting() throws SQLException {
+
+		String[][] tests = new String[][] {
+			new String[] {
+				"INSERT INTO \"MyTable\" (\"Col\") VALUES (?)",
+				"INSERT INTO \"MyTable\" (\"Col\") VALUES ($1), ($2)"
+			},
+			new String[] {
+				"INSERT INTO t (a, b) VALUES (?, 'x''y')",
+				"INSERT INTO t (a, b) VALUES ($1, 'x''y'), ($2, 'x''y')"
+			},
+			new String[] {
+				"INSERT INTO t (a, b) VALUES (?::\"MyType\", $$q$$)",
+				"INSERT INTO t (a, b) VALUES ($1::\"MyType\", $$q$$), ($2::\"MyType\", $$q$$)"
+			},
+			new String[] {
+				"INSERT INTO t (a) VALUES (?) RETURNING 'k', \"Id\"",
+				"INSERT INTO t (a) VALUES ($1), ($2) RETURNING 'k', \"Id\""
+			},
+		};
+
+		for(String[] test : tests) {
+
+			SQLTextCache.Entry entry = SQLTextCache.translate(SQLTextCache.parse(test[0]), null);
+
+			assertThat(entry.multiRowInsert.build(2), is(equalTo(test[1])));
+		}
+	}
+
+	@Test
+	public void testInListRewriteQuoting() throws SQLException {
+
+		String[][] tests = new String[][] {
+			new String[] {
+				"SELECT * FROM \"Users\" WHERE name = 'bob' AND id IN (?, ?)",
+				"SELECT * FROM \"Users\" WHERE name = 'bob' AND (id = ANY ($1))"
+			},
+			new String[] {
+				"SELECT 'it''s' FROM t WHERE \"Id\" NOT IN (?, ?) AND b = ?",
+				"SELECT 'it''s' FROM t WHERE (\"Id\" <> ALL ($1)) AND b = $2"
+			},
+			new String[] {
+				"SELECT $$IN (?)$$, $tag$x$tag$ FROM t WHERE a IN (?)",
+				"SELECT $$IN (?)$$, $tag$x$tag$ FROM t WHERE (a = ANY ($1))"
+			},
+		};
+
+		for(String[] test : tests) {
+
+			SQLTextCache.Entry entry = SQLTextCache.translate(SQLTextCache.parse(test[0]), null);
+
+			assertThat(entry.inListRewrite.getNativeSQL(), is(equalTo(test[1])));
+		}
+	}
+
+	@Test
+	public void testInListRewritePrecedence() throws SQLException {
+
+		String[][] tests = new String[][] {
+			new String[] {
+				"SELECT * FROM t WHERE NOT t.a IN (?) AND b = ?",
+				"SELECT * FROM t WHERE NOT (t.a = ANY ($1)) AND b = $2"
+			},
+			new String[] {
+				"SELECT * FROM t WHERE lower(name) IN (?, ?) OR a::int4 NOT IN (?)",
+				"SELECT * FROM t WHERE (lower(name) = ANY ($1)) OR (a::int4 <> ALL ($2))"
+			},
+			new String[] {
+				"SELECT a IN (?) = true FROM t",
+				null
+			},
+			new String[] {
+				"SELECT * FROM t WHERE a = b IN (?, ?)",
+				null
+			},
+			new String[] {
+				"SELECT * FROM t WHERE a + b NOT IN (?)",
+				null
+			},
+		};
+
+		for(String[] test : tests) {
+
+			SQLTextCache.Entry entry = SQLTextCache.translate(SQLTextCache.parse(test[0]), null);
+
+			if(test[1] == null) {
+				assertThat(entry.inListRewrite, is(nullValue()));
+			}
+			else {
+				assertThat(entry.inListRewrite.getNativeSQL(), is(equalTo(test[1])));
+			}
+		}
+	}
+
 }
@@ -22,6 +22,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.impossibl.postgres.data.Record;
+
 public class StructTest {
 	
 	static class TestStruct implements SQLData {
@@ -186,4 +188,50 @@ public class StructTest {
 		
 	}
 
+	@Test
+	public void testTypesCreatedAfterConnect() throws SQLException {
+		
+		TestUtil.createType(conn, "teststruct_new", "str text, num float");
+		TestUtil.createType(conn, "teststruct_new2", "val teststruct_new, vals teststruct_new[]");
+		
+		try {
+			
+			// Unknown types are only seen in the results of a simple query
+			// and must be loaded before the rows are decoded
+			Statement st = conn.createStatement();
+			ResultSet rs = st.executeQuery("SELECT ROW('a', 1.5)::teststruct_new, ARRAY[ROW('b', 2.5)::teststruct_new]; SELECT 1;");
+			assertTrue(rs.next());
+			
+			Record val = (Record) rs.getObject(1);
+			assertEquals("a", val.getValues()[0]);
+			assertEquals(1.5, (Double) val.getValues()[1], 0.0);
+			
+			Object[] vals = (Object[]) rs.getArray(2).getArray();
+			assertEquals("b", ((Record) vals[0]).getValues()[0]);
+			
+			rs.close();
+			st.close();
+			
+			// Nested unknown types are loaded with the prepared statement's
+			// description
+			PreparedStatement pst = conn.prepareStatement("SELECT ROW(ROW('c', 3.5)::teststruct_new, ARRAY[ROW('d', 4.5)::teststruct_new])::teststruct_new2");
+			rs = pst.executeQuery();
+			assertTrue(rs.next());
+			
+			Record struct = (Record) rs.getObject(1);
+			val = (Record) struct.getValues()[0];
+			assertEquals("c", val.getValues()[0]);
+			vals = (Object[]) struct.getValues()[1];
+			assertEquals("d", ((Record) vals[0]).getValues()[0]);
+			
+			rs.close();
+			pst.close();
+		}
+		finally {
+			TestUtil.dropType(conn, "teststruct_new2");
+			TestUtil.dropType(conn, "teststruct_new");
+		}
+		
+	}
+
 }
@@ -0,0 +1,153 @@
+package com.impossibl.postgres.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TypedQueryTest {
+	
+	public static class FieldRow {
+		public int id;
+		public String name;
+		public Double score;
+	}
+	
+	public static class BinaryRow {
+		public byte[] data;
+	}
+	
+	public static class BeanRow {
+		
+		private long id;
+		private String name;
+		
+		public long getId() {
+			return id;
+		}
+		
+		public void setId(long id) {
+			this.id = id;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public void setName(String name) {
+			this.name = name;
+		}
+		
+	}
+	
+	Connection conn;
+	TypedQueryConnection queryConn;
+
+	@Before
+	public void before() throws Exception {
+		conn = TestUtil.openDB();
+		queryConn = conn.unwrap(TypedQueryConnection.class);
+		
+		TestUtil.createTable(conn, "typedquery", "id int4, name text, score float8");
+		
+		Statement stmt = conn.createStatement();
+		stmt.executeUpdate("INSERT INTO typedquery VALUES (1, 'one', 1.5)");
+		stmt.executeUpdate("INSERT INTO typedquery VALUES (2, 'two', NULL)");
+		stmt.executeUpdate("INSERT INTO typedquery VALUES (3, 'three', 3.5)");
+		stmt.close();
+	}
+	
+	@After
+	public void after() throws SQLException {
+		TestUtil.dropTable(conn, "typedquery");
+		TestUtil.closeDB(conn);
+	}
+	
+	@Test
+	public void testFieldRows() throws SQLException {
+		
+		List<FieldRow> rows = queryConn.query("SELECT id, name, score FROM typedquery WHERE id >= ? ORDER BY id", FieldRow.class, 2);
+		
+		assertEquals(2, rows.size());
+		assertEquals(2, rows.get(0).id);
+		assertEquals("two", rows.get(0).name);
+		assertNull(rows.get(0).score);
+		assertEquals(3, rows.get(1).id);
+		assertEquals(3.5, rows.get(1).score, 0.0);
+	}
+	
+	@Test
+	public void testBeanRows() throws SQLException {
+		
+		List<BeanRow> rows = queryConn.query("SELECT id, name, 'ignored' AS other FROM typedquery WHERE name = ?", BeanRow.class, "three");
+		
+		assertEquals(1, rows.size());
+		assertEquals(3L, rows.get(0).getId());
+		assertEquals("three", rows.get(0).getName());
+	}
+	
+	@Test
+	public void testArrayAndMapRows() throws SQLException {
+		
+		List<Object[]> arrays = queryConn.query("SELECT id, name FROM typedquery ORDER BY id", Object[].class);
+		assertEquals(3, arrays.size());
+		assertArrayEquals(new Object[] {1, "one"}, arrays.get(0));
+		
+		@SuppressWarnings("rawtypes")
+		List<HashMap> maps = queryConn.query("SELECT id, name FROM typedquery WHERE id = ?", HashMap.class, "1");
+		assertEquals(1, maps.size());
+		assertEquals("one", maps.get(0).get("name"));
+	}
+
+	@Test
+	public void testEmptyAndNoResults() throws SQLException {
+		
+		assertTrue(queryConn.query("SELECT id FROM typedquery WHERE id < 0", FieldRow.class).isEmpty());
+		assertTrue(queryConn.query("UPDATE typedquery SET name = name WHERE id = ?", FieldRow.class, 1).isEmpty());
+	}
+
+	@Test
+	public void testParameterCountMismatch() throws SQLException {
+		
+		try {
+			queryConn.query("SELECT id FROM typedquery WHERE id = ?", FieldRow.class);
+			fail("Expected parameter count error");
+		}
+		catch(SQLException e) {
+			// Ok
+		}
+	}
+	
+	@Test
+	public void testBinaryStreamThreshold() throws Exception {
+		
+		Properties props = new Properties();
+		props.setProperty("field.binary.streamThreshold", "10");
+		
+		Connection streamConn = TestUtil.openDB(props);
+		try {
+			
+			// Typed rows always receive byte arrays
+			List<BinaryRow> rows = streamConn.unwrap(TypedQueryConnection.class).query("SELECT decode(repeat('ab', 100), 'hex') AS data", BinaryRow.class);
+			
+			assertEquals(1, rows.size());
+			assertEquals(100, rows.get(0).data.length);
+		}
+		finally {
+			TestUtil.closeDB(streamConn);
+		}
+	}
+
+}